@@ -0,0 +1,110 @@
+package maze;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import javalib.worldimages.Posn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// measures building the board, its edges and the wall knockdown of a size x size maze,
+// making a new maze of that size with the "r" key, in place and from scratch, finding
+// its answer the first time it's needed, and making the same maze with KruskalGenerator
+// and with ParallelKruskal on one thread and on every core
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx3g" })
+public class GenerationBenchmark {
+
+  // represents a finished maze that kruskals can run on again and again
+  @State(Scope.Thread)
+  public static class MazeState {
+    @Param({ "10", "100", "500", "1000", "2000" })
+    int size;
+
+    Maze maze;
+    KruskalGenerator kruskal;
+    ParallelKruskal oneThread;
+    ParallelKruskal everyCore;
+
+    @Setup(Level.Trial)
+    public void makeMaze() {
+      this.maze = new Maze(new Posn(this.size, this.size));
+      this.kruskal = new KruskalGenerator();
+      this.oneThread = new ParallelKruskal(new ForkJoinPool(1));
+      this.everyCore = new ParallelKruskal();
+    }
+  }
+
+  // represents a maze with no grid, so regenerate has to make the board again
+  @State(Scope.Thread)
+  public static class NoBoardState extends MazeState {
+    @Setup(Level.Invocation)
+    public void emptyBoard() {
+      this.maze.grid = null;
+    }
+  }
+
+  @Benchmark
+  public Object createBoard(MazeState state) {
+    state.maze.createBoard();
+    return state.maze.grid;
+  }
+
+  @Benchmark
+  public Object setVertexEdges(MazeState state) {
+    state.maze.setVertexEdges();
+    return state.maze.buffers.kruskal.weights;
+  }
+
+  @Benchmark
+  public Object kruskals(MazeState state) {
+    state.maze.kruskals();
+    return state.maze.usedPassages;
+  }
+
+  @Benchmark
+  public Object regenerate(MazeState state) {
+    state.maze.regenerate(EdgeWeights.NO_BIAS);
+    return state.maze.usedPassages;
+  }
+
+  @Benchmark
+  public Object rebuild(NoBoardState state) {
+    state.maze.regenerate(EdgeWeights.NO_BIAS);
+    return state.maze.usedPassages;
+  }
+
+  @Benchmark
+  public Object kruskalGenerator(MazeState state) {
+    state.kruskal.generate(state.maze.grid, 1, EdgeWeights.NO_BIAS);
+    return state.maze.grid;
+  }
+
+  @Benchmark
+  public Object parallelKruskalOneThread(MazeState state) {
+    state.oneThread.generate(state.maze.grid, 1, EdgeWeights.NO_BIAS);
+    return state.maze.grid;
+  }
+
+  @Benchmark
+  public Object parallelKruskal(MazeState state) {
+    state.everyCore.generate(state.maze.grid, 1, EdgeWeights.NO_BIAS);
+    return state.maze.grid;
+  }
+
+  @Benchmark
+  public Object ensureAnswer(MazeState state) {
+    state.maze.answerFound = false;
+    return state.maze.ensureAnswer();
+  }
+}
@@ -0,0 +1,108 @@
+package maze;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+import javalib.worldimages.Posn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// measures one tick of the animation (with steps steps each tick), drawing a frame of a
+// finished size x size maze, and a tick and a frame together while the animation runs
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx3g" })
+public class RenderBenchmark {
+
+  // represents a maze that has just started animating its bfs
+  @State(Scope.Thread)
+  public static class TickState {
+    @Param({ "10", "100", "500", "1000", "2000" })
+    int size;
+
+    @Param({ "1", "64" })
+    int steps;
+
+    Maze maze;
+
+    @Setup(Level.Trial)
+    public void makeMaze() {
+      this.maze = new Maze(new Posn(this.size, this.size));
+      this.maze.alreadySeen = this.maze.bfs();
+      this.maze.stepsPerTick = this.steps;
+    }
+  }
+
+  // represents a maze whose walls are all knocked down, whose bfs has been drawn
+  // and whose answer is showing, which is the most there ever is on the screen
+  @State(Scope.Thread)
+  public static class FinishedState {
+    @Param({ "10", "100", "500", "1000", "2000" })
+    int size;
+
+    Maze maze;
+
+    @Setup(Level.Trial)
+    public void makeMaze() {
+      this.maze = new Maze(new Posn(this.size, this.size));
+      this.maze.currentUsedEdgeIndex = this.maze.usedCount;
+      this.maze.drawnBoxes = this.maze.bfs();
+      this.maze.current = this.maze.drawnBoxes.get(this.maze.drawnBoxes.size() - 1);
+      this.maze.showAnswer = true;
+    }
+  }
+
+  // represents a maze that starts animating its bfs again every iteration, so each
+  // frame has a tick's worth of new walls and cells to draw until it runs out
+  @State(Scope.Thread)
+  public static class AnimationState {
+    @Param({ "10", "100", "500", "1000", "2000" })
+    int size;
+
+    Maze maze;
+
+    @Setup(Level.Trial)
+    public void makeMaze() {
+      this.maze = new Maze(new Posn(this.size, this.size));
+    }
+
+    @Setup(Level.Iteration)
+    public void restart() {
+      this.maze.currentUsedEdgeIndex = 0;
+      this.maze.drawnBoxes = new ArrayList<Vertex>();
+      this.maze.alreadySeen = this.maze.bfs();
+      this.maze.makeScene();
+    }
+  }
+
+  @Benchmark
+  public Object onTick(TickState state) {
+    Maze maze = state.maze;
+    maze.onTick();
+    // takes back what the tick did so every call does the same work
+    maze.drawnBoxes.subList(0, maze.drawnBoxes.size()).clear();
+    maze.alreadySeenIndex = 0;
+    maze.currentUsedEdgeIndex = 0;
+    return maze.current;
+  }
+
+  @Benchmark
+  public Object makeScene(FinishedState state) {
+    return state.maze.makeScene();
+  }
+
+  @Benchmark
+  public Object frame(AnimationState state) {
+    state.maze.onTick();
+    return state.maze.makeScene();
+  }
+}
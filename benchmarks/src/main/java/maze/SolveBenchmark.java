@@ -0,0 +1,139 @@
+package maze;
+
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+import javalib.worldimages.Posn;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+// measures solving a size x size maze with a Stack (dfs) and a Queue (bfs), solving
+// its grid with a GridSolver's breadth first search, A* and bidirectional search and
+// with a ParallelBfs on one thread, four and every core, measuring it with MazeStats,
+// building the answer from the cameFrom of a finished search, and building a TreeIndex
+// and asking it for the distance and path between the other two corners
+@State(Scope.Thread)
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx3g" })
+public class SolveBenchmark {
+  @Param({ "10", "100", "500", "1000", "2000" })
+  int size;
+
+  Maze maze;
+  int[] cameFrom; // the cell each cell is reached from, on the only path from the top left
+  GridSolver solver;
+  IntQueue forward;
+  IntQueue backward;
+  LongHeap open;
+  TreeIndex index;
+  ParallelBfs oneThread;
+  ParallelBfs fourWorkers;
+  ParallelBfs everyCore;
+
+  @Setup(Level.Trial)
+  public void makeMaze() {
+    this.maze = new Maze(new Posn(this.size, this.size));
+    MazeGrid grid = this.maze.grid;
+    this.cameFrom = new int[grid.size()];
+    this.solver = new GridSolver();
+    this.forward = new IntQueue();
+    this.backward = new IntQueue();
+    this.open = new LongHeap();
+    this.index = new TreeIndex(grid);
+    this.oneThread = new ParallelBfs(new ForkJoinPool(1), ParallelBfs.CHUNK);
+    this.fourWorkers = new ParallelBfs(new ForkJoinPool(4), ParallelBfs.CHUNK);
+    this.everyCore = new ParallelBfs();
+    IntQueue worklist = new IntQueue();
+    BitSet visited = new BitSet(grid.size());
+    worklist.add(0);
+    visited.set(0);
+    while (!worklist.isEmpty()) {
+      int cell = worklist.remove();
+      for (int direction = 0; direction < 4; direction += 1) {
+        if (grid.isOpen(cell, direction) && !visited.get(grid.neighbor(cell, direction))) {
+          int neighbor = grid.neighbor(cell, direction);
+          visited.set(neighbor);
+          this.cameFrom[neighbor] = cell;
+          worklist.add(neighbor);
+        }
+      }
+    }
+  }
+
+  @Benchmark
+  public Object searchHelpStack() {
+    return this.maze.searchHelp(new Stack<Vertex>());
+  }
+
+  @Benchmark
+  public Object searchHelpQueue() {
+    return this.maze.searchHelp(new Queue<Vertex>());
+  }
+
+  @Benchmark
+  public Object gridBfs() {
+    return this.solver.solve(this.maze.grid, this.forward);
+  }
+
+  @Benchmark
+  public Object aStar() {
+    return this.solver.aStar(this.maze.grid, this.open);
+  }
+
+  @Benchmark
+  public Object bidirectional() {
+    return this.solver.bidirectional(this.maze.grid, this.forward, this.backward);
+  }
+
+  @Benchmark
+  public Object parallelBfsOneThread() {
+    return this.oneThread.solve(this.maze.grid);
+  }
+
+  @Benchmark
+  public Object parallelBfsFourWorkers() {
+    return this.fourWorkers.solve(this.maze.grid);
+  }
+
+  @Benchmark
+  public Object parallelBfs() {
+    return this.everyCore.solve(this.maze.grid);
+  }
+
+  @Benchmark
+  public Object mazeStats() {
+    return new MazeStats(this.maze.grid, this.everyCore, MazeStats.TILE);
+  }
+
+  @Benchmark
+  public Object treeIndex() {
+    return new TreeIndex(this.maze.grid);
+  }
+
+  @Benchmark
+  public int treeDistance() {
+    return this.index.distance(this.size - 1, this.maze.grid.size() - this.size);
+  }
+
+  @Benchmark
+  public Object treePath() {
+    return this.index.path(this.size - 1, this.maze.grid.size() - this.size);
+  }
+
+  @Benchmark
+  public Object reconstruct() {
+    this.maze.reconstruct(this.cameFrom, this.maze.grid.size() - 1);
+    return this.maze.answer;
+  }
+}
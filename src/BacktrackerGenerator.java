@@ -0,0 +1,41 @@
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+// represents the recursive backtracker, a depth-first walk that knocks down a wall to a
+// random unvisited neighbor and backs up when there is none, with an IntStack instead
+// of recursion
+class BacktrackerGenerator implements MazeGenerator {
+  public String name() {
+    return "backtracker";
+  }
+
+  public void generate(MazeGrid grid, long seed, int bias) {
+    grid.clear();
+    SplittableRandom random = new SplittableRandom(seed);
+    BitSet visited = new BitSet(grid.size());
+    IntStack path = new IntStack();
+    int[] options = new int[4];
+    visited.set(0);
+    path.add(0);
+    while (!path.isEmpty()) {
+      int cell = path.peek();
+      int count = 0;
+      for (int direction = 0; direction < 4; direction += 1) {
+        if (grid.hasNeighbor(cell, direction) && !visited.get(grid.neighbor(cell, direction))) {
+          options[count] = direction;
+          count += 1;
+        }
+      }
+      if (count == 0) {
+        path.remove();
+      }
+      else {
+        int direction = MazeGenerator.pickDirection(random, options, count, bias);
+        int next = grid.neighbor(cell, direction);
+        grid.open(cell, direction);
+        visited.set(next);
+        path.add(next);
+      }
+    }
+  }
+}
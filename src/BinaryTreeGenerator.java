@@ -0,0 +1,31 @@
+import java.util.SplittableRandom;
+
+// represents the binary tree algorithm, every cell knocks down its east or south wall
+// so the whole maze is one pass with no memory besides the grid
+class BinaryTreeGenerator implements MazeGenerator {
+  public String name() {
+    return "binarytree";
+  }
+
+  public void generate(MazeGrid grid, long seed, int bias) {
+    grid.clear();
+    SplittableRandom random = new SplittableRandom(seed);
+    long coins = 0;
+    for (int y = 0; y < grid.height; y += 1) {
+      for (int x = 0; x < grid.width; x += 1) {
+        int cell = grid.cell(x, y);
+        if ((cell & 63) == 0) {
+          coins = MazeGenerator.flipCoins(random, bias);
+        }
+        boolean east = x < grid.width - 1;
+        boolean south = y < grid.height - 1;
+        if (east && (!south || (coins & (1L << cell)) != 0)) {
+          grid.open(cell, MazeGrid.EAST);
+        }
+        else if (south) {
+          grid.open(cell, MazeGrid.SOUTH);
+        }
+      }
+    }
+  }
+}
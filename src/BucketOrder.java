@@ -0,0 +1,55 @@
+import java.util.Arrays;
+
+// represents the indices of a list of weights sorted from lightest to heaviest,
+// made with a counting sort since every weight is a small int (0-199 for kruskals)
+class BucketOrder {
+  int[] start; // where the bucket of each weight starts in order, plus the end
+  int[] order; // the indices sorted by weight, ties stay in index order
+
+  // constructor for BucketOrder, sorts the indices of the given weights
+  BucketOrder(int[] weights) {
+    this.start = new int[0];
+    this.order = new int[0];
+    this.sort(weights);
+  }
+
+  // EFFECT: sorts the indices of the given weights instead, reusing the arrays if they
+  // are big enough (start can then be longer than the heaviest weight + 2)
+  void sort(int[] weights) {
+    int max = -1;
+    for (int w : weights) {
+      if (w < 0) {
+        throw new IllegalArgumentException("Weights can't be negative!");
+      }
+      max = Math.max(max, w);
+    }
+    if (this.start.length < max + 2) {
+      this.start = new int[max + 2];
+    }
+    else {
+      Arrays.fill(this.start, 0);
+    }
+    if (this.order.length != weights.length) {
+      this.order = new int[weights.length];
+    }
+    // counts how many of each weight there are
+    for (int w : weights) {
+      this.start[w + 1] += 1;
+    }
+    // turns the counts into where each bucket starts
+    for (int w = 1; w < this.start.length; w += 1) {
+      this.start[w] += this.start[w - 1];
+    }
+    // places every index into its bucket, using each start as a cursor, which leaves
+    // every start where the bucket after it starts
+    for (int i = 0; i < weights.length; i += 1) {
+      this.order[this.start[weights[i]]] = i;
+      this.start[weights[i]] += 1;
+    }
+    // so moves them all back one bucket
+    for (int w = this.start.length - 1; w > 0; w -= 1) {
+      this.start[w] = this.start[w - 1];
+    }
+    this.start[0] = 0;
+  }
+}
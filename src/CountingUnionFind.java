@@ -0,0 +1,32 @@
+// represents a UnionFind that counts how far up the trees its finds go, for the
+// MazeMetrics and KruskalsEvent of a kruskals that is being recorded
+class CountingUnionFind extends UnionFind {
+  long findSteps; // steps up the trees taken by every find since the last reset
+  int deepestFind; // the most steps one find has taken since the last reset
+
+  // constructor for CountingUnionFind, every cell starts out as its own representative
+  CountingUnionFind(int size) {
+    super(size);
+  }
+
+  // EFFECT: makes every cell its own representative again and starts the counts over
+  void reset() {
+    super.reset();
+    this.findSteps = 0;
+    this.deepestFind = 0;
+  }
+
+  // returns the representative of the given cell
+  // EFFECT: halves the path like UnionFind.find, counting the steps it takes
+  int find(int cell) {
+    int steps = 0;
+    while (this.parent[cell] != cell) {
+      this.parent[cell] = this.parent[this.parent[cell]];
+      cell = this.parent[cell];
+      steps += 1;
+    }
+    this.findSteps += steps;
+    this.deepestFind = Math.max(this.deepestFind, steps);
+    return cell;
+  }
+}
@@ -0,0 +1,39 @@
+// represents the weight of every passage of a grid as a hash of a seed and the passage
+// index, so any worker can find any weight without sharing or allocating a Random
+class EdgeWeights {
+  static final int NO_BIAS = 0; // every passage is 0-99
+  static final int BIAS_X = 1; // south passages are 100-199, so the maze runs left-right
+  static final int BIAS_Y = 2; // east passages are 100-199, so the maze runs up-down
+  static final int WEIGHTS = 200; // every weight is less than this
+
+  long seed;
+  int bias;
+
+  // constructor for EdgeWeights
+  EdgeWeights(long seed, int bias) {
+    if (bias < NO_BIAS || bias > BIAS_Y) {
+      throw new IllegalArgumentException("Bias has to be NO_BIAS, BIAS_X or BIAS_Y!");
+    }
+    this.seed = seed;
+    this.bias = bias;
+  }
+
+  // returns the weight of the given passage
+  int weight(int passage) {
+    // maps the top 32 bits of the hash onto 0-99 without a modulo
+    int weight = (int) (((this.hash(passage) >>> 32) * 100) >>> 32);
+    if ((this.bias == BIAS_X && (passage & 1) == MazeGrid.SOUTH)
+        || (this.bias == BIAS_Y && (passage & 1) == MazeGrid.EAST)) {
+      weight += 100;
+    }
+    return weight;
+  }
+
+  // returns a well mixed 64 bit hash of the seed and the given passage (SplitMix64)
+  long hash(int passage) {
+    long z = this.seed + (passage + 1L) * 0x9E3779B97F4A7C15L;
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,150 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/* Notes:
+ * - Eller's algorithm makes a perfect maze one row at a time, so it only keeps the
+ *   set label of each cell in the current row and never holds the whole maze
+ * - Each row knocks down some east walls between different sets, then knocks down
+ *   at least one south wall for every set so no set gets cut off
+ * - The last row joins every set that is left
+ * - A set's label is the column of one of its cells that goes down, so a cell that
+ *   starts a new set in the next row can just use its own column as its label
+ * - The coin flips are drawn 64 at a time from one long, since a random branch per
+ *   cell costs more than the rest of the row put together
+ */
+
+// represents Eller's algorithm, which streams a maze row by row in O(width) memory
+class EllerGenerator {
+  int width;
+  int[] labels; // the set of each cell in the current row
+  int[] parent; // merges labels while knocking down east walls
+  int[] fallback; // the cell of each label that goes down if no other cell does
+  int[] fallbackKey; // the random key of each fallback, the smallest key wins
+  int[] firstDown; // the first cell of each label that goes down, which is its next label
+  long[] coins; // one coin flip per cell, deciding whether to join it to the east
+  long[] east; // the east walls knocked down in the current row
+  long[] south; // the south walls knocked down in the current row
+
+  // constructor for EllerGenerator, makes the buffers for rows of the given width
+  EllerGenerator(int width) {
+    if (width <= 1) {
+      throw new IllegalArgumentException("Maze has to be bigger than 1 dimension!");
+    }
+    this.width = width;
+    this.labels = new int[width];
+    this.parent = new int[width];
+    this.fallback = new int[width];
+    this.fallbackKey = new int[width];
+    this.firstDown = new int[width];
+    this.coins = new long[(width + 63) >>> 6];
+    this.east = new long[(width + 63) >>> 6];
+    this.south = new long[(width + 63) >>> 6];
+  }
+
+  // EFFECT: sends every row of a height tall maze to the sink
+  // the bias makes joining across a row 3/4 likely (BIAS_X) or 1/4 likely (BIAS_Y)
+  void generate(int height, long seed, int bias, IRowSink sink) {
+    if (height <= 1) {
+      throw new IllegalArgumentException("Maze has to be bigger than 1 dimension!");
+    }
+    SplittableRandom random = new SplittableRandom(seed);
+    for (int x = 0; x < this.width; x += 1) {
+      this.labels[x] = x;
+    }
+    for (int y = 0; y < height; y += 1) {
+      boolean last = y == height - 1;
+      this.flipCoins(random, bias);
+      this.joinAcross(last);
+      if (last) {
+        Arrays.fill(this.south, 0L);
+      }
+      else {
+        this.goDown(random);
+      }
+      sink.acceptRow(y, this.east, this.south);
+      if (!last) {
+        this.nextRow();
+      }
+    }
+    sink.finish();
+  }
+
+  // EFFECT: flips a coin for every cell of the row, weighted by the bias
+  void flipCoins(SplittableRandom random, int bias) {
+    for (int i = 0; i < this.coins.length; i += 1) {
+      this.coins[i] = MazeGenerator.flipCoins(random, bias);
+    }
+  }
+
+  // returns the label that the given label has been merged into
+  // EFFECT: halves the path from the label to its representative
+  int find(int label) {
+    while (this.parent[label] != label) {
+      this.parent[label] = this.parent[this.parent[label]];
+      label = this.parent[label];
+    }
+    return label;
+  }
+
+  // EFFECT: knocks down east walls between different sets in the current row where
+  // the coin says so, or every one of them if it is the last row
+  void joinAcross(boolean last) {
+    for (int i = 0; i < this.width; i += 1) {
+      this.parent[i] = i;
+    }
+    Arrays.fill(this.east, 0L);
+    for (int x = 0; x < this.width - 1; x += 1) {
+      if (last || (this.coins[x >>> 6] & (1L << x)) != 0) {
+        int left = this.find(this.labels[x]);
+        int right = this.find(this.labels[x + 1]);
+        if (left != right) {
+          this.parent[right] = left;
+          this.east[x >>> 6] |= 1L << x;
+        }
+      }
+    }
+    for (int x = 0; x < this.width; x += 1) {
+      this.labels[x] = this.find(this.labels[x]);
+    }
+  }
+
+  // EFFECT: knocks down south walls in the current row, half of the time for each
+  // cell but always at least one for each set
+  void goDown(SplittableRandom random) {
+    for (int i = 0; i < this.south.length; i += 1) {
+      this.south[i] = random.nextLong();
+    }
+    this.south[this.south.length - 1] &= -1L >>> (-this.width & 63); // no bits past the row
+    Arrays.fill(this.firstDown, -1);
+    Arrays.fill(this.fallbackKey, Integer.MAX_VALUE);
+    for (int x = 0; x < this.width; x += 1) {
+      int label = this.labels[x];
+      if ((this.south[x >>> 6] & (1L << x)) != 0 && this.firstDown[label] < 0) {
+        this.firstDown[label] = x;
+      }
+      // every cell of the set is equally likely to have the smallest key
+      int key = random.nextInt();
+      if (key < this.fallbackKey[label]) {
+        this.fallbackKey[label] = key;
+        this.fallback[label] = x;
+      }
+    }
+    for (int x = 0; x < this.width; x += 1) {
+      int label = this.labels[x];
+      if (this.firstDown[label] < 0) {
+        int picked = this.fallback[label];
+        this.south[picked >>> 6] |= 1L << picked;
+        this.firstDown[label] = picked;
+      }
+    }
+  }
+
+  // EFFECT: moves on to the next row, cells under a south passage keep their set
+  // and every other cell starts a new set labeled by its own column
+  void nextRow() {
+    for (int x = 0; x < this.width; x += 1) {
+      boolean down = (this.south[x >>> 6] & (1L << x)) != 0;
+      this.labels[x] = down ? this.firstDown[this.labels[x]] : x;
+    }
+  }
+}
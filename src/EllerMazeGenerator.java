@@ -0,0 +1,11 @@
+// represents Eller's algorithm streamed into the grid through a GridRowSink
+class EllerMazeGenerator implements MazeGenerator {
+  public String name() {
+    return "eller";
+  }
+
+  public void generate(MazeGrid grid, long seed, int bias) {
+    grid.clear();
+    new EllerGenerator(grid.width).generate(grid.height, seed, bias, new GridRowSink(grid));
+  }
+}
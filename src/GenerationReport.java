@@ -0,0 +1,22 @@
+// represents how long a generator took to make one maze
+class GenerationReport {
+  String generator;
+  int cells;
+  long nanos;
+
+  GenerationReport(String generator, int cells, long nanos) {
+    this.generator = generator;
+    this.cells = cells;
+    this.nanos = nanos;
+  }
+
+  // returns how many cells the generator made each second
+  double cellsPerSecond() {
+    return this.cells * 1e9 / Math.max(this.nanos, 1);
+  }
+
+  public String toString() {
+    return String.format("%s: %d cells in %.2f ms (%.2f M cells/s)", this.generator, this.cells,
+        this.nanos / 1e6, this.cellsPerSecond() / 1e6);
+  }
+}
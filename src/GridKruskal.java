@@ -0,0 +1,107 @@
+import java.util.Arrays;
+
+/* Notes:
+ * - Every Kruskal's in the project is this one: weigh the passages, put them in weight
+ *   order with a BucketOrder and join the cells on either side with a UnionFind
+ * - The weights are kept by passage index, so ties stay in passage order and the same
+ *   seed makes the same maze whichever of them runs it
+ * - A wall that isn't a passage of the range weighs LEFT_OUT, which sorts after every
+ *   real weight and is never joined, so the weights can be filled without a separate
+ *   list of passages
+ * - It can cover a range of rows instead of the whole grid, which is how each of
+ *   ParallelKruskal's strips runs it on its own cells
+ */
+
+// represents Kruskal's algorithm on the passages between the cells first .. last - 1
+// of a grid, with the buffers it needs kept so it can run again
+class GridKruskal {
+  static final int LEFT_OUT = EdgeWeights.WEIGHTS; // heavier than every passage's weight
+
+  int offset; // the passage of weights[0], 2 * first
+  int[] weights; // the weight of every passage of the range, LEFT_OUT if it isn't in it
+  BucketOrder sorted; // the indices of weights from lightest to heaviest
+  int[] tree; // the passages joined by the last join, in the order it joined them
+  int treeSize; // the number of passages in tree
+
+  // constructor for GridKruskal, for the cells first .. last - 1
+  GridKruskal(int first, int last) {
+    if (last - first < 1) {
+      throw new IllegalArgumentException("Kruskal's needs at least 1 cell!");
+    }
+    this.offset = 2 * first;
+    this.weights = new int[2 * (last - first)];
+    Arrays.fill(this.weights, LEFT_OUT);
+    this.sorted = new BucketOrder(new int[0]);
+    this.tree = new int[last - first - 1];
+    this.treeSize = 0;
+  }
+
+  // constructor for GridKruskal, for every cell of a grid with the given number of cells
+  GridKruskal(int cells) {
+    this(0, cells);
+  }
+
+  // returns the passage index of weights[i]
+  int passage(int i) {
+    return this.offset + i;
+  }
+
+  // EFFECT: weighs every passage between two cells of the range with the given weights,
+  // and every other wall of the range with LEFT_OUT
+  void weigh(MazeGrid grid, EdgeWeights weights) {
+    int last = (this.offset + this.weights.length) / 2; // one past the last cell
+    for (int i = 0; i < this.weights.length; i += 1) {
+      int passage = this.passage(i);
+      if (grid.isPassage(passage) && grid.passageNeighbor(passage) < last) {
+        this.weights[i] = weights.weight(passage);
+      }
+      else {
+        this.weights[i] = LEFT_OUT;
+      }
+    }
+  }
+
+  // EFFECT: puts the passages in order from lightest to heaviest
+  void sort() {
+    this.sorted.sort(this.weights);
+  }
+
+  // returns the number of passages it tried to join
+  // EFFECT: joins the cells on either side of each sorted passage, lightest first, until
+  // the tree spans the range or only LEFT_OUT walls are left, recording in tree the
+  // passages that joined two sets
+  int join(MazeGrid grid, UnionFind sets) {
+    int[] order = this.sorted.order;
+    this.treeSize = 0;
+    int unions = 0;
+    for (int i = 0; i < order.length && this.treeSize < this.tree.length
+        && this.weights[order[i]] < LEFT_OUT; i += 1) {
+      int passage = this.passage(order[i]);
+      unions += 1;
+      // union only joins the two cells if they were in different trees
+      if (sets.union(grid.passageCell(passage), grid.passageNeighbor(passage))) {
+        this.tree[this.treeSize] = passage;
+        this.treeSize += 1;
+      }
+    }
+    return unions;
+  }
+
+  // EFFECT: knocks down the walls of the passages in tree
+  void open(MazeGrid grid) {
+    for (int i = 0; i < this.treeSize; i += 1) {
+      grid.openPassage(this.tree[i]);
+    }
+  }
+
+  // EFFECT: puts every wall of the grid back up and knocks down the spanning tree of
+  // the range with the given weights, starting the given sets over
+  void generate(MazeGrid grid, EdgeWeights weights, UnionFind sets) {
+    grid.clear();
+    sets.reset();
+    this.weigh(grid, weights);
+    this.sort();
+    this.join(grid, sets);
+    this.open(grid);
+  }
+}
@@ -0,0 +1,21 @@
+// represents a sink that knocks the rows down in a MazeGrid
+class GridRowSink implements IRowSink {
+  MazeGrid grid;
+
+  GridRowSink(MazeGrid grid) {
+    this.grid = grid;
+  }
+
+  // EFFECT: opens the row's passages in the grid
+  public void acceptRow(int y, long[] east, long[] south) {
+    for (int x = 0; x < this.grid.width; x += 1) {
+      int cell = this.grid.cell(x, y);
+      if ((east[x >>> 6] & (1L << x)) != 0) {
+        this.grid.open(cell, MazeGrid.EAST);
+      }
+      if ((south[x >>> 6] & (1L << x)) != 0) {
+        this.grid.open(cell, MazeGrid.SOUTH);
+      }
+    }
+  }
+}
@@ -0,0 +1,223 @@
+import java.util.Arrays;
+import java.util.BitSet;
+
+/* Notes:
+ * - Solves a MazeGrid straight from its passage bits with int cells in an
+ *   IIntCollection, so there is no Vertex or ArrayList for each cell
+ * - An IntStack makes it a depth first search and an IntQueue a breadth first search,
+ *   in a perfect maze both find the same (only) path
+ * - The buffers are kept between solves, so solving many mazes of one size only
+ *   allocates the path
+ * - aStar looks at the cell with the smallest steps so far + Manhattan distance to
+ *   the bottom right first, out of a LongHeap, and on a tie the cell furthest along,
+ *   so it goes straight for the bottom right and only backs up at dead ends
+ * - bidirectional grows a breadth first search from each corner, a cell at a time,
+ *   until they touch, so each only covers about half the way
+ * - Every search keeps the cells in the order it saw them in order, which is what
+ *   Maze animates
+ */
+
+// represents a search from the top left cell of a grid to the bottom right
+class GridSolver {
+  BitSet visited; // the cells that have been seen
+  int[] cameFrom; // the cell that each seen cell was reached from
+  int seenCount; // the number of cells the last solve saw
+  int[] order; // the cells the last solve saw, in the order it saw them, with room for
+  // the cell where bidirectional's searches meet, which both of them see
+  BitSet reached; // the cells that bidirectional has seen from the bottom right
+  int[] goesTo; // the cell after each cell reached from the bottom right, towards it
+  int[] steps; // the number of steps aStar took to get to each seen cell
+
+  GridSolver() {
+    this.visited = new BitSet();
+    this.cameFrom = new int[0];
+    this.seenCount = 0;
+    this.order = new int[0];
+    this.reached = new BitSet();
+    this.goesTo = new int[0];
+    this.steps = new int[0];
+  }
+
+  // EFFECT: makes room for every cell of the grid and forgets the last search
+  void prepare(MazeGrid grid) {
+    if (this.cameFrom.length < grid.size()) {
+      this.cameFrom = new int[grid.size()];
+      this.order = new int[grid.size() + 1];
+    }
+    this.visited.clear();
+    this.seenCount = 0;
+  }
+
+  // EFFECT: adds the cell to the cells the search has seen
+  void see(int cell) {
+    this.order[this.seenCount] = cell;
+    this.seenCount += 1;
+  }
+
+  // returns the cells the last solve saw, in the order it saw them
+  int[] seen() {
+    return Arrays.copyOf(this.order, this.seenCount);
+  }
+
+  // returns the cells on the path from the top left to the bottom right of the grid,
+  // or an empty path if the bottom right can't be reached
+  int[] solve(MazeGrid grid, IIntCollection worklist) {
+    if (this.search(grid, worklist)) {
+      return this.path(grid.size() - 1);
+    }
+    else {
+      return new int[0];
+    }
+  }
+
+  // returns whether the bottom right can be reached from the top left, leaving the way
+  // back from it in cameFrom
+  boolean search(MazeGrid grid, IIntCollection worklist) {
+    int target = grid.size() - 1;
+    this.prepare(grid);
+    worklist.clear();
+    worklist.add(0);
+
+    while (!worklist.isEmpty()) {
+      int cell = worklist.remove();
+      if (this.visited.get(cell)) {
+        continue;
+      }
+      this.visited.set(cell);
+      this.see(cell);
+      if (cell == target) {
+        return true;
+      }
+      for (int direction = 0; direction < 4; direction += 1) {
+        if (grid.isOpen(cell, direction)) {
+          int neighbor = grid.neighbor(cell, direction);
+          if (!this.visited.get(neighbor)) {
+            worklist.add(neighbor);
+            this.cameFrom[neighbor] = cell;
+          }
+        }
+      }
+    }
+    return false;
+  }
+
+  // returns the path like solve, looking at the cells that look closest to the bottom
+  // right first
+  int[] aStar(MazeGrid grid, LongHeap open) {
+    int target = grid.size() - 1;
+    this.prepare(grid);
+    if (this.steps.length < grid.size()) {
+      this.steps = new int[grid.size()];
+    }
+    open.clear();
+    this.steps[0] = 0;
+    open.add(this.priority(grid, 0, 0));
+
+    while (!open.isEmpty()) {
+      int cell = target - (int) open.remove();
+      if (this.visited.get(cell)) {
+        continue;
+      }
+      this.visited.set(cell);
+      this.see(cell);
+      if (cell == target) {
+        return this.path(target);
+      }
+      for (int direction = 0; direction < 4; direction += 1) {
+        if (grid.isOpen(cell, direction)) {
+          int neighbor = grid.neighbor(cell, direction);
+          if (!this.visited.get(neighbor)) {
+            this.steps[neighbor] = this.steps[cell] + 1;
+            this.cameFrom[neighbor] = cell;
+            open.add(this.priority(grid, neighbor, this.steps[neighbor]));
+          }
+        }
+      }
+    }
+    return new int[0];
+  }
+
+  // returns the LongHeap item of a cell that took the given steps to get to:
+  // steps + the Manhattan distance to the bottom right in the high 32 bits, and the
+  // cells left after it in the low 32 bits, so a later cell wins a tie
+  long priority(MazeGrid grid, int cell, int steps) {
+    int distance = (grid.width - 1 - grid.cellX(cell)) + (grid.height - 1 - grid.cellY(cell));
+    return ((long) (steps + distance) << 32) | (grid.size() - 1 - cell);
+  }
+
+  // returns the path like solve, searching from the top left and the bottom right at
+  // the same time until the searches meet
+  int[] bidirectional(MazeGrid grid, IntQueue forward, IntQueue backward) {
+    int target = grid.size() - 1;
+    this.prepare(grid);
+    if (this.goesTo.length < grid.size()) {
+      this.goesTo = new int[grid.size()];
+    }
+    this.reached.clear();
+    forward.clear();
+    backward.clear();
+    forward.add(0);
+    this.visited.set(0);
+    this.see(0);
+    backward.add(target);
+    this.reached.set(target);
+    this.see(target);
+
+    while (!forward.isEmpty() && !backward.isEmpty()) {
+      int meet = this.expand(grid, forward, this.visited, this.cameFrom, this.reached);
+      if (meet < 0) {
+        meet = this.expand(grid, backward, this.reached, this.goesTo, this.visited);
+      }
+      if (meet >= 0) {
+        int[] start = this.path(meet);
+        int length = start.length;
+        for (int c = meet; c != target; c = this.goesTo[c]) {
+          length += 1;
+        }
+        int[] path = Arrays.copyOf(start, length);
+        for (int i = start.length; i < length; i += 1) {
+          path[i] = this.goesTo[path[i - 1]];
+        }
+        return path;
+      }
+    }
+    return new int[0];
+  }
+
+  // returns the first cell that the other search has also seen, or -1 if there isn't one
+  // EFFECT: takes the next cell off the worklist and sees its neighbors, remembering
+  // in from which cell each of them came from, up to and including the cell where
+  // the searches meet
+  int expand(MazeGrid grid, IntQueue worklist, BitSet mine, int[] from, BitSet theirs) {
+    int cell = worklist.remove();
+    for (int direction = 0; direction < 4; direction += 1) {
+      if (grid.isOpen(cell, direction)) {
+        int neighbor = grid.neighbor(cell, direction);
+        if (!mine.get(neighbor)) {
+          mine.set(neighbor);
+          from[neighbor] = cell;
+          worklist.add(neighbor);
+          this.see(neighbor);
+          if (theirs.get(neighbor)) {
+            return neighbor;
+          }
+        }
+      }
+    }
+    return -1;
+  }
+
+  // returns the cells from the top left to the given cell by following cameFrom back
+  int[] path(int cell) {
+    int length = 1;
+    for (int c = cell; c != 0; c = this.cameFrom[c]) {
+      length += 1;
+    }
+    int[] path = new int[length];
+    for (int i = length - 1; i >= 0; i -= 1) {
+      path[i] = cell;
+      cell = this.cameFrom[cell];
+    }
+    return path;
+  }
+}
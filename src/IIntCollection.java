@@ -0,0 +1,15 @@
+// Represents a mutable collection of cell indices, without boxing them
+interface IIntCollection {
+  // Is this collection empty?
+  boolean isEmpty();
+
+  // EFFECT: adds the cell to the collection
+  void add(int cell);
+
+  // Returns the first cell of the collection
+  // EFFECT: removes that first cell
+  int remove();
+
+  // EFFECT: removes every cell but keeps the buffer for reuse
+  void clear();
+}
@@ -0,0 +1,10 @@
+// represents something that takes a maze one finished row at a time
+interface IRowSink {
+  // EFFECT: takes row y of the maze, bit x of east is set if the wall to the east of
+  // cell x is knocked down, and the same for south (the arrays are reused after this)
+  void acceptRow(int y, long[] east, long[] south);
+
+  // EFFECT: is told that the last row has been sent
+  default void finish() {
+  }
+}
@@ -0,0 +1,45 @@
+// represents a Queue of cell indices for breadth-first search
+class IntQueue implements IIntCollection {
+  int[] contents;
+  int head; // the index of the first cell
+  int size; // the number of cells
+
+  IntQueue() {
+    this.contents = new int[16];
+    this.head = 0;
+    this.size = 0;
+  }
+
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  public int remove() {
+    if (this.size == 0) {
+      throw new IllegalStateException("Can't remove from an empty collection!");
+    }
+    int cell = this.contents[this.head];
+    this.head = (this.head + 1) % this.contents.length;
+    this.size -= 1;
+    return cell;
+  }
+
+  public void add(int cell) {
+    if (this.size == this.contents.length) {
+      // unwraps the cells into a buffer twice as big
+      int[] bigger = new int[this.size * 2];
+      int firstPart = this.contents.length - this.head;
+      System.arraycopy(this.contents, this.head, bigger, 0, firstPart);
+      System.arraycopy(this.contents, 0, bigger, firstPart, this.head);
+      this.contents = bigger;
+      this.head = 0;
+    }
+    this.contents[(this.head + this.size) % this.contents.length] = cell;
+    this.size += 1;
+  }
+
+  public void clear() {
+    this.head = 0;
+    this.size = 0;
+  }
+}
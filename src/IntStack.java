@@ -0,0 +1,44 @@
+import java.util.Arrays;
+
+// represents a Stack of cell indices for depth-first search
+class IntStack implements IIntCollection {
+  int[] contents;
+  int size; // the number of cells, contents[size - 1] is the top
+
+  IntStack() {
+    this.contents = new int[16];
+    this.size = 0;
+  }
+
+  public boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  public int remove() {
+    if (this.size == 0) {
+      throw new IllegalStateException("Can't remove from an empty collection!");
+    }
+    this.size -= 1;
+    return this.contents[this.size];
+  }
+
+  // returns the cell on top of the stack without removing it
+  int peek() {
+    if (this.size == 0) {
+      throw new IllegalStateException("Can't remove from an empty collection!");
+    }
+    return this.contents[this.size - 1];
+  }
+
+  public void add(int cell) {
+    if (this.size == this.contents.length) {
+      this.contents = Arrays.copyOf(this.contents, this.size * 2);
+    }
+    this.contents[this.size] = cell;
+    this.size += 1;
+  }
+
+  public void clear() {
+    this.size = 0;
+  }
+}
@@ -0,0 +1,11 @@
+// represents Kruskal's algorithm on the grid, a GridKruskal over every cell
+class KruskalGenerator implements MazeGenerator {
+  public String name() {
+    return "kruskal";
+  }
+
+  public void generate(MazeGrid grid, long seed, int bias) {
+    new GridKruskal(grid.size()).generate(grid, new EdgeWeights(seed, bias),
+        new UnionFind(grid.size()));
+  }
+}
@@ -0,0 +1,31 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// represents a run of kruskals, for Flight Recorder
+@Name("maze.Kruskals")
+@Label("Kruskals")
+@Category("Maze")
+@Description("Knocking down the walls of a maze with kruskals")
+@Enabled(false)
+class KruskalsEvent extends Event {
+  @Label("Cells")
+  int cells;
+
+  @Label("Sort Time")
+  @Timespan(Timespan.NANOSECONDS)
+  long sortNanos;
+
+  @Label("Unions")
+  long unions;
+
+  @Label("Find Steps")
+  long findSteps;
+
+  @Label("Deepest Find")
+  int deepestFind;
+}
@@ -0,0 +1,65 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// represents how many times took how long, in buckets that are 1/8 of a power of two
+// wide, so every percentile is within 1/8 of the real one
+class LatencyHistogram {
+  static final int BUCKETS = 8 * 62; // enough for any positive long
+
+  AtomicLongArray counts; // the number of times in each bucket
+  AtomicLong count; // the number of times recorded
+  AtomicLong max; // the longest time recorded
+
+  LatencyHistogram() {
+    this.counts = new AtomicLongArray(BUCKETS);
+    this.count = new AtomicLong();
+    this.max = new AtomicLong();
+  }
+
+  // returns the bucket the given number of nanoseconds goes in: 0-7 are themselves, and
+  // after that the highest bit picks 8 buckets and the 3 bits under it pick one of them
+  static int bucket(long nanos) {
+    if (nanos < 8) {
+      return (int) Math.max(nanos, 0);
+    }
+    int high = 63 - Long.numberOfLeadingZeros(nanos);
+    return 8 * (high - 2) + (int) ((nanos >>> (high - 3)) & 7);
+  }
+
+  // returns the most nanoseconds that go in the given bucket
+  static long highest(int bucket) {
+    if (bucket < 8) {
+      return bucket;
+    }
+    int high = bucket / 8 + 2;
+    return ((8L + bucket % 8 + 1) << (high - 3)) - 1;
+  }
+
+  // EFFECT: records one time that took the given nanoseconds
+  void record(long nanos) {
+    this.counts.incrementAndGet(LatencyHistogram.bucket(nanos));
+    this.count.incrementAndGet();
+    this.max.accumulateAndGet(nanos, Math::max);
+  }
+
+  // returns the number of nanoseconds that the given fraction (0-1) of the times took at
+  // most, rounded up to the end of its bucket, or 0 if nothing was recorded
+  long percentile(double fraction) {
+    long rank = (long) Math.ceil(fraction * this.count.get());
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i += 1) {
+      seen += this.counts.get(i);
+      if (seen >= Math.max(rank, 1)) {
+        return Math.min(LatencyHistogram.highest(i), this.max.get());
+      }
+    }
+    return this.max.get();
+  }
+
+  // returns the number of times and their percentiles as one line of text
+  String report() {
+    return String.format("%d requests, p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms",
+        this.count.get(), this.percentile(0.5) / 1e6, this.percentile(0.9) / 1e6,
+        this.percentile(0.99) / 1e6, this.max.get() / 1e6);
+  }
+}
@@ -0,0 +1,64 @@
+import java.util.Arrays;
+
+// represents a min-heap of longs, used as a priority queue of cells by packing the
+// priority into the high 32 bits and the cell or passage into the low 32 bits
+class LongHeap {
+  long[] contents;
+  int size;
+
+  LongHeap() {
+    this.contents = new long[16];
+    this.size = 0;
+  }
+
+  // Is this heap empty?
+  boolean isEmpty() {
+    return this.size == 0;
+  }
+
+  // EFFECT: adds the item to the heap
+  void add(long item) {
+    if (this.size == this.contents.length) {
+      this.contents = Arrays.copyOf(this.contents, this.size * 2);
+    }
+    // moves bigger parents down until the item fits
+    int i = this.size;
+    while (i > 0 && this.contents[(i - 1) >>> 1] > item) {
+      this.contents[i] = this.contents[(i - 1) >>> 1];
+      i = (i - 1) >>> 1;
+    }
+    this.contents[i] = item;
+    this.size += 1;
+  }
+
+  // Returns the smallest item of the heap
+  // EFFECT: removes that item
+  long remove() {
+    if (this.size == 0) {
+      throw new IllegalStateException("Can't remove from an empty collection!");
+    }
+    long smallest = this.contents[0];
+    this.size -= 1;
+    long last = this.contents[this.size];
+    // moves smaller children up until the last item fits
+    int i = 0;
+    while (2 * i + 1 < this.size) {
+      int child = 2 * i + 1;
+      if (child + 1 < this.size && this.contents[child + 1] < this.contents[child]) {
+        child += 1;
+      }
+      if (this.contents[child] >= last) {
+        break;
+      }
+      this.contents[i] = this.contents[child];
+      i = child;
+    }
+    this.contents[i] = last;
+    return smallest;
+  }
+
+  // EFFECT: removes every item but keeps the buffer for reuse
+  void clear() {
+    this.size = 0;
+  }
+}
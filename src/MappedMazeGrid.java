@@ -0,0 +1,34 @@
+import java.nio.LongBuffer;
+
+// represents a MazeGrid whose passage bits are in a LongBuffer, like a mapped file,
+// instead of a long[]
+class MappedMazeGrid extends MazeGrid {
+  LongBuffer words;
+
+  MappedMazeGrid(int width, int height, LongBuffer words) {
+    super(width, height, false);
+    if (words.capacity() < this.passageWords()) {
+      throw new IllegalArgumentException("There aren't enough passage bits for the maze!");
+    }
+    this.words = words;
+  }
+
+  long passageWord(int i) {
+    return this.words.get(i);
+  }
+
+  boolean isPassageOpen(int passage) {
+    return (this.words.get(passage >>> 6) & (1L << passage)) != 0;
+  }
+
+  void openPassage(int passage) {
+    int i = passage >>> 6;
+    this.words.put(i, this.words.get(i) | (1L << passage));
+  }
+
+  void clear() {
+    for (int i = 0; i < this.passageWords(); i += 1) {
+      this.words.put(i, 0L);
+    }
+  }
+}
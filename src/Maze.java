@@ -1,8 +1,26 @@
+import java.io.ByteArrayOutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.Map;
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.Recording;
 
 import tester.*;
 import javalib.impworld.*;
@@ -16,8 +34,12 @@ import javalib.worldimages.*;
  *   and Maze to run the board
  * - We won't allow any dimensions smaller than 2x2
  * - The board will be generated but you need to click a key to choose
- *   Manual (m), BFS (b), DFS (d), toggle solution (a), arrow keys (only if
- *   manual is clicked), bias in x direction (x), bias in y direction (y)
+ *   Manual (m), BFS (b), DFS (d), A* (s), BFS from both ends (w),
+ *   toggle solution (a), arrow keys (only if manual is clicked),
+ *   bias in x direction (x), bias in y direction (y), next generator (g),
+ *   twice or half as many steps each tick (= and -),
+ *   as many steps each tick as fit in TICK_BUDGET (t),
+ *   toggle making the next mazes in the background (p)
  *   otherwise nothing will happen
  */
 
@@ -35,42 +57,14 @@ import javalib.worldimages.*;
  * - That's all and have fun!
  */
 
-// represents each Square of the board
-class Vertex {
-  Posn posn;
-  Color color;
-  ArrayList<Edge> outEdges; // edges from this Vertex
-
-  // constructor for Vertex
-  Vertex(Posn posn, Color color) {
-    this.posn = posn;
-    this.color = color;
-    this.outEdges = new ArrayList<Edge>();
-  }
-
-  // EFFECT: changes the Vertex's color
-  void changeColor(Color color) {
-    this.color = color;
-  }
-
-  // draws the cell
-  WorldImage drawVertex(Posn cellSize) {
-    return new RectangleImage(cellSize.x, cellSize.y, "solid", this.color);
-  }
-}
-
-// represents an Edge connecting weights
+// represents an Edge connecting weights, the view of the wall between two next-door
+// Vertices that findEdge makes when it's needed
 class Edge implements Comparable<Edge> {
   Vertex from;
   Vertex to;
   int weight;
 
-  // constructor for Edge
-  Edge(Vertex from, Vertex to) {
-    this(from, to, new Random().nextInt(100)); // 0-99
-  }
-
-  // constructor for Edge, used for examples with a given weight
+  // constructor for Edge, with the weight of its wall
   Edge(Vertex from, Vertex to, int weight) {
     this.from = from;
     this.to = to;
@@ -86,83 +80,71 @@ class Edge implements Comparable<Edge> {
 
 // represents the Maze game
 class Maze extends World {
+  static final long TICK_BUDGET = 8000000; // nanoseconds, about half a frame at 60 fps
+  static final int STEPS_PER_CLOCK = 64; // steps between reading the clock in onTick
+
   Color lightBlue = new Color(135, 210, 250); // constant lightBlue color
   Posn dimension; // (x, y) so x squares to the right and y down
   Posn cellSize; // size of each cell
-  ArrayList<ArrayList<Vertex>> allVertices;
-  ArrayList<Edge> allEdges; // holds every single edge
-  ArrayList<Edge> usedEdges; // edges from kruskals
+  MazeGrid grid; // holds which walls are knocked down, the Vertices and Edges are views of it
+  int[] usedPassages; // the passages from kruskals, in the order it knocked them down
+  int usedCount; // the number of passages in usedPassages
   ArrayList<Vertex> alreadySeen; // holds a list of the already seen Vertices
+  int alreadySeenIndex; // holds the index of the next Vertex of alreadySeen to draw
   ArrayList<Vertex> answer; // holds a list of the already seen Vertices
+  boolean answerFound; // is answer the path of the maze showing? found when it's needed
   ArrayList<Vertex> drawnBoxes; // holds a list of the already drawn Vertices
   boolean manual; // checks whether we can do the manual controls
   boolean showAnswer; // checks whether we should show the answer
   Vertex pointer; // holds the pointer for manual
   Vertex current; // holds the thing the current vertex is at for the search loop
-  ArrayList<Edge> currentUsedEdge; // holds the current edges for the wall knockdown
-  Integer currentUsedEdgeIndex; // holds the index of the current Edge for the usedEdges
+  int currentUsedEdgeIndex; // holds the number of usedPassages the wall knockdown has shown
+  int stepsPerTick; // how many walls get knocked down and Vertices drawn each tick
+  long tickBudget; // nanoseconds each tick can spend on steps instead, 0 if it's off
+  MazeGenerator generator; // the generator used by "g", kruskals is used if it is null
+  SceneCache sceneCache; // the picture of the maze that makeScene adds to every frame
+  long seed; // the seed of the Edge weights of the maze showing
+  SplittableRandom seeds; // gives the seed of each new maze that a key makes
+  MazeBuffers buffers; // kept between mazes of the same size, null until kruskals needs it
+  EdgeWeights unweighed; // the weights of the maze showing if the buffers don't have them
+  // yet, null if they do
+  MazeMetrics metrics; // where the time spent is recorded, null if it isn't
+  ExecutorService prefetcher; // makes the next maze of each bias, null if "p" is off
+  ArrayList<Future<PrefetchedMaze>> prefetched; // the next maze of each bias, by bias
   // for the EC wall knockdown
 
   // constructor for maze, the one that should be used for a real game
   Maze(Posn dimension) {
-    if (dimension.x <= 1 || dimension.y <= 1) {
-      throw new IllegalArgumentException("Maze has to be bigger than 1 dimension!");
-    }
-    this.dimension = dimension;
-    this.cellSize = new Posn(1000 / this.dimension.x, 600 / this.dimension.y);
-    this.allVertices = new ArrayList<ArrayList<Vertex>>();
-    this.allEdges = new ArrayList<Edge>();
-    this.usedEdges = new ArrayList<Edge>();
-    this.alreadySeen = new ArrayList<Vertex>();
-    this.answer = new ArrayList<Vertex>();
-    this.drawnBoxes = new ArrayList<Vertex>();
-    this.manual = false;
-    this.showAnswer = false;
-    if (this.allVertices.size() == 0) {
-      this.createBoard();
-    }
-    this.pointer = this.findVertex(new Posn(0, 0));
-    this.current = this.findVertex(new Posn(0, 0));
-    this.currentUsedEdge = new ArrayList<Edge>();
-    this.currentUsedEdgeIndex = 0;
-    this.setVertexEdges();
-    this.findVertex(new Posn(0, 0)).changeColor(Color.green);
-    this.findVertex(new Posn(this.dimension.x - 1, this.dimension.y - 1))
-        .changeColor(Color.magenta);
-    this.kruskals();
-    // sets the answer to the dfs search in case they do manual
-    this.searchHelp(new Stack<Vertex>());
+    this(dimension, new SplittableRandom().nextLong());
   }
 
-  // constructor for maze
-  Maze(ArrayList<ArrayList<Vertex>> allVertices) {
-    if (allVertices.size() <= 1 || allVertices.get(0).size() <= 1) {
+  // constructor for maze, the same seed always gives the same mazes
+  Maze(Posn dimension, long seed) {
+    if (dimension.x <= 1 || dimension.y <= 1) {
       throw new IllegalArgumentException("Maze has to be bigger than 1 dimension!");
     }
-    this.dimension = new Posn(allVertices.size(), allVertices.get(0).size());
+    this.dimension = dimension;
     this.cellSize = new Posn(1000 / this.dimension.x, 600 / this.dimension.y);
-    this.allVertices = allVertices;
-    this.allEdges = new ArrayList<Edge>();
-    this.usedEdges = new ArrayList<Edge>();
+    this.usedPassages = new int[0];
+    this.usedCount = 0;
     this.alreadySeen = new ArrayList<Vertex>();
+    this.alreadySeenIndex = 0;
     this.answer = new ArrayList<Vertex>();
+    this.answerFound = false;
     this.drawnBoxes = new ArrayList<Vertex>();
     this.manual = false;
     this.showAnswer = false;
-    if (this.allVertices.size() == 0) {
-      this.createBoard();
-    }
+    this.createBoard();
     this.pointer = this.findVertex(new Posn(0, 0));
     this.current = this.findVertex(new Posn(0, 0));
-    this.currentUsedEdge = new ArrayList<Edge>();
     this.currentUsedEdgeIndex = 0;
+    this.stepsPerTick = 1;
+    this.tickBudget = 0;
+    this.seed = seed;
+    this.seeds = new SplittableRandom(seed);
+    this.metrics = MazeMetrics.fromProperty();
     this.setVertexEdges();
-    this.findVertex(new Posn(0, 0)).changeColor(Color.green);
-    this.findVertex(new Posn(this.dimension.x - 1, this.dimension.y - 1))
-        .changeColor(Color.magenta);
     this.kruskals();
-    // sets the answer to the dfs search in case they do manual
-    this.searchHelp(new Stack<Vertex>());
   }
 
   // constructor for maze, used for examples
@@ -172,140 +154,67 @@ class Maze extends World {
     }
     this.dimension = dimension;
     this.cellSize = new Posn(1000 / this.dimension.x, 600 / this.dimension.y);
-    this.allVertices = new ArrayList<ArrayList<Vertex>>();
-    this.allEdges = new ArrayList<Edge>();
-    this.usedEdges = new ArrayList<Edge>();
+    this.usedPassages = new int[0];
+    this.usedCount = 0;
     this.alreadySeen = new ArrayList<Vertex>();
+    this.alreadySeenIndex = 0;
     this.answer = new ArrayList<Vertex>();
+    this.answerFound = false;
     this.drawnBoxes = new ArrayList<Vertex>();
     this.manual = false;
     this.showAnswer = false;
-    this.currentUsedEdge = new ArrayList<Edge>();
     this.currentUsedEdgeIndex = 0;
+    this.stepsPerTick = 1;
+    this.tickBudget = 0;
+    this.seed = random.nextLong();
+    this.seeds = new SplittableRandom(this.seed);
+    this.metrics = MazeMetrics.fromProperty();
     // this examples doesn't have a pointer initialized because no board has been
     // created
   }
 
-  // constructor for maze, used for examples
-  Maze(ArrayList<ArrayList<Vertex>> allVertices, Random random) {
-    if (allVertices.size() <= 1 || allVertices.get(0).size() <= 1) {
-      throw new IllegalArgumentException("Maze has to be bigger than 1 dimension!");
-    }
-    this.dimension = new Posn(allVertices.size(), allVertices.get(0).size());
-    this.cellSize = new Posn(1000 / this.dimension.x, 600 / this.dimension.y);
-    this.allVertices = allVertices;
-    this.allEdges = new ArrayList<Edge>();
-    this.usedEdges = new ArrayList<Edge>();
-    this.alreadySeen = new ArrayList<Vertex>();
-    this.answer = new ArrayList<Vertex>();
-    this.drawnBoxes = new ArrayList<Vertex>();
-    this.manual = false;
-    this.showAnswer = false;
-    this.pointer = this.findVertex(new Posn(0, 0));
-    this.current = this.findVertex(new Posn(0, 0));
-    this.currentUsedEdge = new ArrayList<Edge>();
-    this.currentUsedEdgeIndex = 0;
+  // constructor for maze, shows the maze in a MazeFile without generating or weighing it
+  // again, the walls are only weighed and usedPassages only found once they're needed,
+  // and the keys carry on with the file's seed like a Maze made with that seed would
+  Maze(MazeFile file) {
+    this(new Posn(file.grid.width, file.grid.height), new Random());
+    this.grid = file.grid;
+    this.seed = file.seed;
+    this.seeds = new SplittableRandom(file.seed);
+    this.unweighed = new EdgeWeights(file.seed, file.bias);
+    this.usedPassages = null;
+    this.pointer = this.vertexAt(0);
+    this.current = this.vertexAt(0);
   }
 
   // draws the scene of the maze
   public WorldScene makeScene() {
+    MazeFrameEvent event = new MazeFrameEvent();
+    boolean recording = MazeMetrics.recording(this.metrics, event);
+    long start = 0;
+    if (recording) {
+      event.begin();
+      start = System.nanoTime();
+    }
     WorldScene background = new WorldScene(1000, 600);
-
-    // places the gray background
-    background.placeImageXY(new RectangleImage(1000, 600, "solid", Color.gray), 500, 300);
-    // places the green box on top left
-    background.placeImageXY(
-        new RectangleImage(this.cellSize.x, this.cellSize.y, "solid", Color.green),
-        this.cellSize.x / 2, this.cellSize.y / 2);
-    // places the magenta box on the bottom right
-    background.placeImageXY(
-        new RectangleImage(this.cellSize.x, this.cellSize.y, "solid", Color.magenta),
-        (this.dimension.x - 1) * this.cellSize.x + this.cellSize.x / 2,
-        (this.dimension.y - 1) * this.cellSize.y + this.cellSize.y / 2);
-    // creates the horizontal lines to the grid
-    for (int y = 0; y <= 600; y += this.cellSize.y) {
-      WorldImage line = new RectangleImage(1000, 2, "solid", Color.black);
-      background.placeImageXY(line, 500, y);
-    }
-    // creates the vertical lines to the grid
-    for (int x = 0; x < 1000; x += this.cellSize.x) {
-      WorldImage line = new RectangleImage(2, 600, "solid", Color.black);
-      background.placeImageXY(line, x, 300);
-    }
-
-    // draws each wall being knocked down (COMMENT THIS OUT FOR THE FOR LOOP
-    // UNDERNEATH TO START
-    // WITH WALLS KNOCKED DOWN, HIGHLIGHT ALL THE NEEDED CODE AND CLICK CTRL+/ OR
-    // CMD+/)
-    for (Edge e : this.currentUsedEdge) {
-      WorldImage horizontal = new RectangleImage(this.cellSize.x - 2, 2, "solid", Color.gray);
-      WorldImage vertical = new RectangleImage(2, this.cellSize.y - 2, "solid", Color.gray);
-      if (e.from.posn.x < e.to.posn.x) {
-        background.placeImageXY(vertical, e.to.posn.x * this.cellSize.x,
-            e.from.posn.y * this.cellSize.y + this.cellSize.y / 2);
-      }
-      if (e.from.posn.x > e.to.posn.x) {
-        background.placeImageXY(vertical, e.from.posn.x * this.cellSize.x,
-            e.from.posn.y * this.cellSize.y + this.cellSize.y / 2);
-      }
-      if (e.from.posn.y < e.to.posn.y) {
-        background.placeImageXY(horizontal, e.from.posn.x * this.cellSize.x + this.cellSize.x / 2,
-            e.to.posn.y * this.cellSize.y);
-      }
-      if (e.from.posn.y > e.to.posn.y) {
-        background.placeImageXY(horizontal, e.from.posn.x * this.cellSize.x + this.cellSize.x / 2,
-            e.from.posn.y * this.cellSize.y);
-      }
+    if (this.sceneCache == null) {
+      this.sceneCache = new SceneCache();
     }
 
-    // (UNCOMMENT THIS TO START WITH WALLS ALREADY KNOCKED DOWN)
-    // draws over the lines with gray if there's an edge connecting two nodes
-    //    for (Edge e : this.usedEdges) {
-    //      WorldImage horizontal = new RectangleImage(this.cellSize.x - 2, 2, "solid", Color.gray);
-    //      WorldImage vertical = new RectangleImage(2, this.cellSize.y - 2, "solid", Color.gray);
-    //      if (e.from.posn.x < e.to.posn.x) {
-    //        background.placeImageXY(vertical, e.to.posn.x * this.cellSize.x,
-    //            e.from.posn.y * this.cellSize.y + this.cellSize.y / 2);
-    //      }
-    //      if (e.from.posn.x > e.to.posn.x) {
-    //        background.placeImageXY(vertical, e.from.posn.x * this.cellSize.x,
-    //            e.from.posn.y * this.cellSize.y + this.cellSize.y / 2);
-    //      }
-    //      if (e.from.posn.y < e.to.posn.y) {
-    //        background.placeImageXY(horizontal, 
-    // e.from.posn.x * this.cellSize.x + this.cellSize.x / 2,
-    //            e.to.posn.y * this.cellSize.y);
-    //      }
-    //      if (e.from.posn.y > e.to.posn.y) {
-    //        background.placeImageXY(horizontal, 
-    // e.from.posn.x * this.cellSize.x + this.cellSize.x / 2,
-    //            e.from.posn.y * this.cellSize.y);
-    //      }
-    //    }
-
-    // loops through drawnBoxes and add it onto background
-    for (Vertex v : this.drawnBoxes) {
+    // places the grid, the knocked down walls, the drawnBoxes and the answer, which
+    // the cache only paints when they change
+    background.placeImageXY(this.sceneCache.update(this), 500, 300);
+    // draws the Vertex the search loop is currently on, unless the answer is over it
+    // (the raster paints it into the picture when the cells are too small for this)
+    if (this.sceneCache.raster == null && (!this.showAnswer
+        || !this.sceneCache.answerCells.get(this.cellIndex(this.current)))) {
       background.placeImageXY(
-          new RectangleImage(this.cellSize.x - 2, this.cellSize.y - 2, "solid", this.lightBlue),
-          v.posn.x * this.cellSize.x + this.cellSize.x / 2,
-          v.posn.y * this.cellSize.y + this.cellSize.y / 2);
-    }
-    // draws the Vertex the search loop is currently on
-    background.placeImageXY(
-        new RectangleImage(this.cellSize.x - 2, this.cellSize.y - 2, "solid", Color.green),
-        this.current.posn.x * this.cellSize.x + this.cellSize.x / 2,
-        this.current.posn.y * this.cellSize.y + this.cellSize.y / 2);
-    // toggles the answer
-    if (this.showAnswer) {
-      for (Vertex v : this.answer) {
-        background.placeImageXY(
-            new RectangleImage(this.cellSize.x - 2, this.cellSize.y - 2, "solid", Color.BLUE),
-            v.posn.x * this.cellSize.x + this.cellSize.x / 2,
-            v.posn.y * this.cellSize.y + this.cellSize.y / 2);
-      }
+          new RectangleImage(this.cellSize.x - 2, this.cellSize.y - 2, "solid", Color.green),
+          this.current.posn.x * this.cellSize.x + this.cellSize.x / 2,
+          this.current.posn.y * this.cellSize.y + this.cellSize.y / 2);
     }
     // if manual is turned on it draws the manual position
-    if (this.manual) {
+    if (this.sceneCache.raster == null && this.manual) {
       background.placeImageXY(
           new RectangleImage(this.cellSize.x - 2, this.cellSize.y - 2, "solid",
               new Color(255, 92, 0)),
@@ -313,138 +222,389 @@ class Maze extends World {
           this.pointer.posn.y * this.cellSize.y + this.cellSize.y / 2);
     }
     // shows "YOU WIN!" when you completed it on manual
-    if (this.pointer == this.findVertex(new Posn(this.dimension.x - 1, this.dimension.y - 1))) {
+    if (this.cellIndex(this.pointer) == this.grid.size() - 1) {
       background.placeImageXY(new TextImage("YOU WIN!", 50, FontStyle.BOLD, Color.green), 500, 300);
     }
+
+    if (this.metrics != null) {
+      this.metrics.recordFrame(System.nanoTime() - start, this.sceneCache.newEdges,
+          this.sceneCache.newCells);
+    }
+    if (recording && event.shouldCommit()) {
+      event.edges = this.sceneCache.newEdges;
+      event.cells = this.sceneCache.newCells;
+      event.raster = this.sceneCache.raster != null;
+      event.commit();
+    }
     return background;
   }
 
   // does something to the game based on the key pressed
   public void onKeyEvent(String key) {
     if (key.equals("r")) { // resets the board
-      this.allVertices = new ArrayList<ArrayList<Vertex>>();
-      this.allEdges = new ArrayList<Edge>();
-      this.usedEdges = new ArrayList<Edge>();
-      this.alreadySeen = new ArrayList<Vertex>();
-      this.answer = new ArrayList<Vertex>();
-      this.drawnBoxes = new ArrayList<Vertex>();
-      this.manual = false;
-      this.showAnswer = false;
-      this.createBoard();
-      this.pointer = this.findVertex(new Posn(0, 0));
-      this.current = this.findVertex(new Posn(0, 0));
-      this.currentUsedEdge = new ArrayList<Edge>();
-      this.currentUsedEdgeIndex = 0;
-      this.setVertexEdges();
-      this.findVertex(new Posn(0, 0)).changeColor(Color.green);
-      this.findVertex(new Posn(this.dimension.x - 1, this.dimension.y - 1))
-          .changeColor(Color.magenta);
-      this.kruskals();
-      // sets the answer to the dfs search in case they do manual
-      this.searchHelp(new Stack<Vertex>());
+      this.regenerate(EdgeWeights.NO_BIAS);
     }
     else if (key.equals("b")) { // breadth first search
       this.alreadySeen = this.bfs();
+      this.alreadySeenIndex = 0;
     }
     else if (key.equals("d")) { // depth first search
       this.alreadySeen = this.dfs();
+      this.alreadySeenIndex = 0;
+    }
+    else if (key.equals("s")) { // A* search
+      this.alreadySeen = this.aStar();
+      this.alreadySeenIndex = 0;
+    }
+    else if (key.equals("w")) { // two way (bidirectional) breadth first search
+      this.alreadySeen = this.bidirectional();
+      this.alreadySeenIndex = 0;
     }
     else if (key.equals("m")) { // turns on manual so you can use arrow keys
       this.manual = true;
+      this.ensureAnswer();
     }
     else if (key.equals("a")) { // toggles the answer
+      this.ensureAnswer();
       this.showAnswer = !this.showAnswer;
     }
-    else if (this.manual && key.equals("up") && this.pointer.posn.y > 0) {
-      Edge connector = this.findEdge(this.pointer.outEdges, // up arrow
-          this.findVertex(new Posn(this.pointer.posn.x, this.pointer.posn.y - 1)), this.pointer);
-      if (this.usedEdges.contains(connector)) {
-        this.pointer = this.findVertex(new Posn(this.pointer.posn.x, this.pointer.posn.y - 1));
-      }
+    else if (this.manual && key.equals("up")) { // up arrow
+      this.movePointer(MazeGrid.NORTH);
     }
-    else if (this.manual && key.equals("down") && this.pointer.posn.y < this.dimension.y - 1) {
-      Edge connector = this.findEdge(this.pointer.outEdges, this.pointer, // down arrow
-          this.findVertex(new Posn(this.pointer.posn.x, this.pointer.posn.y + 1)));
-      if (this.usedEdges.contains(connector)) {
-        this.pointer = this.findVertex(new Posn(this.pointer.posn.x, this.pointer.posn.y + 1));
-      }
+    else if (this.manual && key.equals("down")) { // down arrow
+      this.movePointer(MazeGrid.SOUTH);
     }
-    else if (this.manual && key.equals("left") && this.pointer.posn.x > 0) {
-      Edge connector = this.findEdge(this.pointer.outEdges, // left arrow
-          this.findVertex(new Posn(this.pointer.posn.x - 1, this.pointer.posn.y)), this.pointer);
-      if (this.usedEdges.contains(connector)) {
-        this.pointer = this.findVertex(new Posn(this.pointer.posn.x - 1, this.pointer.posn.y));
-      }
+    else if (this.manual && key.equals("left")) { // left arrow
+      this.movePointer(MazeGrid.WEST);
     }
-    else if (this.manual && key.equals("right") && this.pointer.posn.x < this.dimension.x - 1) {
-      Edge connector = this.findEdge(this.pointer.outEdges, this.pointer, // right arrow
-          this.findVertex(new Posn(this.pointer.posn.x + 1, this.pointer.posn.y)));
-      if (this.usedEdges.contains(connector)) {
-        this.pointer = this.findVertex(new Posn(this.pointer.posn.x + 1, this.pointer.posn.y));
-      }
+    else if (this.manual && key.equals("right")) { // right arrow
+      this.movePointer(MazeGrid.EAST);
     }
     else if (key.equals("x")) { // bias in x
-      this.allVertices = new ArrayList<ArrayList<Vertex>>();
-      this.allEdges = new ArrayList<Edge>();
-      this.usedEdges = new ArrayList<Edge>();
-      this.alreadySeen = new ArrayList<Vertex>();
-      this.answer = new ArrayList<Vertex>();
-      this.drawnBoxes = new ArrayList<Vertex>();
-      this.manual = false;
-      this.showAnswer = false;
-      this.createBoard();
-      this.pointer = this.findVertex(new Posn(0, 0));
-      this.current = this.findVertex(new Posn(0, 0));
-      this.currentUsedEdge = new ArrayList<Edge>();
-      this.currentUsedEdgeIndex = 0;
-      this.setVertexEdgesX();
-      this.findVertex(new Posn(0, 0)).changeColor(Color.green);
-      this.findVertex(new Posn(this.dimension.x - 1, this.dimension.y - 1))
-          .changeColor(Color.magenta);
-      this.kruskals();
-      this.searchHelp(new Stack<Vertex>());
+      this.regenerate(EdgeWeights.BIAS_X);
     }
     else if (key.equals("y")) { // bias in y
-      this.allVertices = new ArrayList<ArrayList<Vertex>>();
-      this.allEdges = new ArrayList<Edge>();
-      this.usedEdges = new ArrayList<Edge>();
-      this.alreadySeen = new ArrayList<Vertex>();
-      this.answer = new ArrayList<Vertex>();
-      this.drawnBoxes = new ArrayList<Vertex>();
-      this.manual = false;
-      this.showAnswer = false;
-      this.createBoard();
-      this.pointer = this.findVertex(new Posn(0, 0));
-      this.current = this.findVertex(new Posn(0, 0));
-      this.currentUsedEdge = new ArrayList<Edge>();
-      this.currentUsedEdgeIndex = 0;
-      this.setVertexEdgesY();
-      this.findVertex(new Posn(0, 0)).changeColor(Color.green);
-      this.findVertex(new Posn(this.dimension.x - 1, this.dimension.y - 1))
-          .changeColor(Color.magenta);
-      this.kruskals();
-      this.searchHelp(new Stack<Vertex>());
+      this.regenerate(EdgeWeights.BIAS_Y);
+    }
+    else if (key.equals("=")) { // twice as many steps each tick
+      this.stepsPerTick = (int) Math.min(2L * this.stepsPerTick, Integer.MAX_VALUE);
+    }
+    else if (key.equals("-")) { // half as many steps each tick
+      this.stepsPerTick = Math.max(this.stepsPerTick / 2, 1);
+    }
+    else if (key.equals("t")) { // toggles fitting as many steps as there's time for
+      this.tickBudget = this.tickBudget == 0 ? TICK_BUDGET : 0;
+    }
+    else if (key.equals("p")) { // toggles making the next mazes in the background
+      this.togglePrefetch();
+    }
+    else if (key.equals("g")) { // makes a new board with the next generator
+      this.seed = this.seeds.nextLong();
+      this.rebuild(EdgeWeights.NO_BIAS);
+      this.generator = this.nextGenerator();
+      this.generateWith(this.generator, this.seed, EdgeWeights.NO_BIAS);
+      this.prefetchAll();
     }
     else {
       return;
     }
   }
 
-  // does something every tick
-  public void onTick() {
-    if (this.currentUsedEdgeIndex < this.usedEdges.size()) {
-      this.currentUsedEdge.add(this.usedEdges.get(this.currentUsedEdgeIndex));
-      this.currentUsedEdgeIndex += 1;
+  // EFFECT: makes a new maze of the same size with the next seed and the given bias,
+  // swapping in the one made in the background if prefetching is on, otherwise
+  // reusing the grid, lists and buffers of the last maze if they're all still there,
+  // so only the weights and the walls are written again
+  void regenerate(int bias) {
+    PrefetchedMaze next = this.takePrefetched(bias);
+    if (next != null) {
+      this.adopt(next);
+      this.prefetch(bias);
+      return;
+    }
+    this.seed = this.seeds.nextLong();
+    if (!this.canReuse()) {
+      this.rebuild(bias);
+      this.kruskals();
+      this.prefetchAll();
+      return;
+    }
+    this.startOver();
+    this.setVertexEdges(new EdgeWeights(this.seed, bias));
+    this.kruskals();
+    this.answer.clear();
+    this.answerFound = false;
+    // the lists and usedPassages were filled again in place, so the picture can't tell
+    // they changed
+    if (this.sceneCache != null) {
+      this.sceneCache.forget();
+    }
+  }
+
+  // EFFECT: makes a new board with new lists and weighs its walls with this seed and the
+  // given bias, leaving every wall up for a generator to knock down
+  void rebuild(int bias) {
+    this.alreadySeen = new ArrayList<Vertex>();
+    this.alreadySeenIndex = 0;
+    this.answer = new ArrayList<Vertex>();
+    this.answerFound = false;
+    this.drawnBoxes = new ArrayList<Vertex>();
+    this.manual = false;
+    this.showAnswer = false;
+    this.createBoard();
+    this.pointer = this.findVertex(new Posn(0, 0));
+    this.current = this.findVertex(new Posn(0, 0));
+    this.currentUsedEdgeIndex = 0;
+    this.setVertexEdges(new EdgeWeights(this.seed, bias));
+  }
+
+  // EFFECT: empties the lists of what has been animated and drawn in place and puts the
+  // search and the manual pointer back at the top left
+  void startOver() {
+    this.alreadySeen.clear();
+    this.alreadySeenIndex = 0;
+    this.drawnBoxes.clear();
+    this.manual = false;
+    this.showAnswer = false;
+    this.pointer = this.vertexAt(0);
+    this.current = this.vertexAt(0);
+    this.currentUsedEdgeIndex = 0;
+  }
+
+  // EFFECT: starts making the next maze of every bias in a background thread, or stops
+  // and forgets them if it's already making them
+  void togglePrefetch() {
+    if (this.prefetcher != null) {
+      this.prefetcher.shutdownNow();
+      this.prefetcher = null;
+      this.prefetched = null;
+    }
+    else {
+      this.prefetcher = Executors.newSingleThreadExecutor(task -> {
+        Thread thread = new Thread(task, "maze-prefetch");
+        thread.setDaemon(true);
+        return thread;
+      });
+      this.prefetched = new ArrayList<Future<PrefetchedMaze>>();
+      this.prefetchAll();
     }
+  }
 
-    if (this.alreadySeen.size() < 1) {
+  // EFFECT: starts making the next maze of every bias for this board, forgetting the
+  // ones made for the board before, if prefetching is on
+  void prefetchAll() {
+    if (this.prefetcher == null) {
       return;
     }
+    for (Future<PrefetchedMaze> old : this.prefetched) {
+      old.cancel(true);
+    }
+    this.prefetched.clear();
+    for (int bias = EdgeWeights.NO_BIAS; bias <= EdgeWeights.BIAS_Y; bias += 1) {
+      this.prefetched.add(null);
+      this.prefetch(bias);
+    }
+  }
+
+  // EFFECT: starts making the next maze of the given bias with the next seed
+  void prefetch(int bias) {
+    int width = this.grid.width;
+    int height = this.grid.height;
+    long seed = this.seeds.nextLong();
+    this.prefetched.set(bias,
+        this.prefetcher.submit(() -> new PrefetchedMaze(width, height, seed, bias)));
+  }
+
+  // returns the next maze of the given bias, waiting for it if it isn't done yet, or
+  // null if prefetching is off or the board has to be made again
+  PrefetchedMaze takePrefetched(int bias) {
+    if (this.prefetcher == null || !this.canReuse()) {
+      return null;
+    }
+    try {
+      return this.prefetched.get(bias).get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+    catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  // EFFECT: shows the maze made in the background instead of this one, by pointing the
+  // weights, grid, usedPassages and answer at the ones it made, so the maze is never half
+  // changed between one frame or tick and the next
+  void adopt(PrefetchedMaze next) {
+    this.seed = next.seed;
+    this.startOver();
+    this.buffers().kruskal.weights = next.weights;
+    this.unweighed = null;
+    this.grid = next.grid;
+    this.usedPassages = next.usedPassages;
+    this.usedCount = next.usedPassages.length;
+    this.answer = next.answer;
+    this.answerFound = true;
+    // drawnBoxes was emptied in place
+    if (this.sceneCache != null) {
+      this.sceneCache.forget();
+    }
+  }
+
+  // EFFECT: records how long weighing the walls took since start
+  void recordEdges(MazeEdgesEvent event, long start) {
+    if (this.metrics != null) {
+      this.metrics.recordEdges(System.nanoTime() - start);
+    }
+    if (event.shouldCommit()) {
+      event.edges = 2 * this.grid.size() - this.grid.width - this.grid.height;
+      event.commit();
+    }
+  }
+
+  // Is the grid still there, at the board's size, to make a new maze in? A grid whose
+  // passage bits are in a file, like a MappedMazeGrid, is never written to
+  boolean canReuse() {
+    return this.grid != null && this.grid.passages != null
+        && this.grid.width == this.dimension.x
+        && this.grid.height == this.dimension.y;
+  }
+
+  // EFFECT: sets this.answer to the path from the top left to the bottom right, in
+  // place and with the kept buffers, if there is a path
+  void findAnswer() {
+    MazeBuffers buffers = this.buffers();
+    if (buffers.solver.search(this.grid, buffers.worklist)) {
+      this.answer.clear();
+      for (int cell = this.grid.size() - 1; cell != 0; cell = buffers.solver.cameFrom[cell]) {
+        this.answer.add(this.vertexAt(cell));
+      }
+      this.answer.add(this.vertexAt(0));
+      Collections.reverse(this.answer);
+    }
+  }
+
+  // returns the path from the top left to the bottom right of the maze showing
+  // EFFECT: finds it the first time it's needed, and never again for the same maze
+  ArrayList<Vertex> ensureAnswer() {
+    if (!this.answerFound) {
+      this.findAnswer();
+      this.answerFound = true;
+    }
+    return this.answer;
+  }
+
+  // returns the distance fields, diameter, dead ends, junctions and corridors of the
+  // maze showing, for how hard it is
+  MazeStats stats() {
+    return new MazeStats(this.grid);
+  }
+
+  // returns the buffers for kruskals and findAnswer, made again if the board changed size
+  MazeBuffers buffers() {
+    if (this.buffers == null || !this.buffers.fits(this.grid.size())) {
+      this.buffers = new MazeBuffers(this.grid.size());
+    }
+    return this.buffers;
+  }
+
+  // returns the generator after the current one, going back to the first after the last
+  MazeGenerator nextGenerator() {
+    MazeGenerator[] generators = MazeGenerator.all();
+    if (this.generator == null) {
+      return generators[0];
+    }
+    for (int i = 0; i < generators.length - 1; i += 1) {
+      if (generators[i].name().equals(this.generator.name())) {
+        return generators[i + 1];
+      }
+    }
+    return generators[0];
+  }
+
+  // EFFECT: knocks down the walls with the given generator instead of kruskals and
+  // changes usedPassages to the open passages
+  void generateWith(MazeGenerator generator, long seed, int bias) {
+    generator.generate(this.grid, seed, bias);
+    this.findUsedPassages();
+  }
+
+  // EFFECT: changes usedPassages to the open passages in the grid, lowest first, going
+  // through the passage bits a word at a time
+  void findUsedPassages() {
+    int count = 0;
+    for (int i = 0; i < this.grid.passageWords(); i += 1) {
+      count += Long.bitCount(this.grid.passageWord(i));
+    }
+    this.usedPassages = new int[count];
+    this.usedCount = 0;
+    for (int i = 0; i < this.grid.passageWords(); i += 1) {
+      for (long word = this.grid.passageWord(i); word != 0; word &= word - 1) {
+        this.usedPassages[this.usedCount] = 64 * i + Long.numberOfTrailingZeros(word);
+        this.usedCount += 1;
+      }
+    }
+  }
+
+  // returns the passages to knock down, in order
+  // EFFECT: finds them in the grid the first time they're needed for a maze that was
+  // read instead of made
+  int[] ensureUsedPassages() {
+    if (this.usedPassages == null) {
+      this.findUsedPassages();
+    }
+    return this.usedPassages;
+  }
+
+  // EFFECT: moves the manual pointer in the given direction if there is no wall
+  void movePointer(int direction) {
+    int cell = this.cellIndex(this.pointer);
+    if (this.grid.isOpen(cell, direction)) {
+      this.pointer = this.vertexAt(this.grid.neighbor(cell, direction));
+    }
+  }
+
+  // does something every tick, stepsPerTick steps or as many as fit in tickBudget
+  public void onTick() {
+    if (this.tickBudget > 0) {
+      long start = System.nanoTime();
+      boolean more = true;
+      while (more && System.nanoTime() - start < this.tickBudget) {
+        // a step is much quicker than reading the clock, so it's read every few steps
+        for (int i = 0; more && i < STEPS_PER_CLOCK; i += 1) {
+          more = this.step();
+        }
+      }
+    }
     else {
-      Vertex temp = this.alreadySeen.remove(0);
+      int steps = 0;
+      while (steps < this.stepsPerTick && this.step()) {
+        steps += 1;
+      }
+    }
+  }
+
+  // returns whether there was anything left to animate
+  // EFFECT: knocks down the next wall and draws the next seen Vertex, if there are any
+  boolean step() {
+    boolean moved = false;
+    this.ensureUsedPassages();
+    if (this.currentUsedEdgeIndex < this.usedCount) {
+      this.currentUsedEdgeIndex += 1;
+      moved = true;
+    }
+
+    if (this.alreadySeenIndex < this.alreadySeen.size()) {
+      Vertex temp = this.alreadySeen.get(this.alreadySeenIndex);
+      this.alreadySeenIndex += 1;
       this.drawnBoxes.add(temp);
       this.current = temp;
+      moved = true;
     }
+    return moved;
   }
 
   // returns the bfs whole path taken
@@ -452,17 +612,10 @@ class Maze extends World {
     return this.searchHelp(new Queue<Vertex>());
   }
 
-  // EFFECT: create a new board with Vertices
-  // ArrayList<ArrayList<Vertex>> holds the row of columns
-  // ArrayList<Vertex> holds the list of Vertices in each column
+  // EFFECT: create a new board with every wall up, the Vertices are views of its cells
+  // that vertexAt makes when they're needed
   void createBoard() {
-    for (int x = 0; x < this.dimension.x; x += 1) {
-      ArrayList<Vertex> column = new ArrayList<Vertex>();
-      for (int y = 0; y < this.dimension.y; y += 1) {
-        column.add(new Vertex(new Posn(x, y), Color.gray));
-      }
-      this.allVertices.add(column);
-    }
+    this.grid = new MazeGrid(this.dimension.x, this.dimension.y);
   }
 
   // returns the dfs whole path taken
@@ -470,192 +623,232 @@ class Maze extends World {
     return this.searchHelp(new Stack<Vertex>());
   }
 
-  // gets the edge given two vertices
+  // returns the A* whole path taken
+  ArrayList<Vertex> aStar() {
+    GridSolver solver = new GridSolver();
+    return this.showSearch(solver, solver.aStar(this.grid, new LongHeap()));
+  }
+
+  // returns the whole path taken by the bfs from both ends
+  ArrayList<Vertex> bidirectional() {
+    GridSolver solver = new GridSolver();
+    return this.showSearch(solver, solver.bidirectional(this.grid, new IntQueue(),
+        new IntQueue()));
+  }
+
+  // returns the Vertices the solver saw, in the order it saw them
+  // EFFECT: sets this.answer to the Vertices of the path it found, if it found one and
+  // the answer wasn't already found
+  ArrayList<Vertex> showSearch(GridSolver solver, int[] path) {
+    if (path.length > 0 && !this.answerFound) {
+      ArrayList<Vertex> answer = new ArrayList<Vertex>();
+      for (int cell : path) {
+        answer.add(this.vertexAt(cell));
+      }
+      this.answer = answer;
+      this.answerFound = true;
+    }
+    ArrayList<Vertex> seen = new ArrayList<Vertex>();
+    for (int i = 0; i < solver.seenCount; i += 1) {
+      seen.add(this.vertexAt(solver.order[i]));
+    }
+    return seen;
+  }
+
+  // gets the edge given two vertices, a view of the wall between them with its weight,
+  // or null if they aren't next to each other
   // the first Vertex is always from and v2 is always to
-  Edge findEdge(ArrayList<Edge> edges, Vertex v1, Vertex v2) {
-    for (Edge edge : edges) {
-      if (edge.from == v1 && edge.to == v2) {
-        return edge;
+  Edge findEdge(Vertex v1, Vertex v2) {
+    int from = this.cellIndex(v1);
+    for (int direction = 0; direction < 4; direction += 1) {
+      if (this.grid.hasNeighbor(from, direction)
+          && this.grid.neighbor(from, direction) == this.cellIndex(v2)) {
+        return new Edge(v1, v2, this.weights()[this.grid.passage(from, direction)]);
       }
     }
     return null;
   }
 
-  // returns the representative of the vertex during kruskals
-  Vertex findRepresentative(HashMap<Vertex, Vertex> representatives, Vertex v) {
-    Vertex child = v;
-    Vertex representative = representatives.get(v);
-    while (child != representative) {
-      child = representative;
-      representative = representatives.get(representative);
+  // returns the weight of every passage of the maze showing
+  // EFFECT: weighs them into the buffers the first time they're needed for a maze that
+  // was read instead of made
+  int[] weights() {
+    if (this.unweighed != null) {
+      this.setVertexEdges(this.unweighed);
     }
-    return child;
+    return this.buffers().kruskal.weights;
+  }
+
+  // returns the index of the given Vertex's cell, counting across each row
+  int cellIndex(Vertex v) {
+    return v.posn.y * this.dimension.x + v.posn.x;
   }
 
   // returns the Vertex at the given Posn
   Vertex findVertex(Posn posn) {
-    return this.allVertices.get(posn.x).get(posn.y);
+    if (posn.x < 0 || posn.x >= this.dimension.x || posn.y < 0 || posn.y >= this.dimension.y) {
+      throw new IndexOutOfBoundsException("There is no Vertex at " + posn.x + ", " + posn.y);
+    }
+    return this.vertexAt(this.grid.cell(posn.x, posn.y));
+  }
+
+  // returns the Vertex that is the view of the given cell
+  Vertex vertexAt(int cell) {
+    return new Vertex(this.grid, cell);
   }
 
-  // EFFECT: changes usedEdges to have the edges used in Kruskals
+  // EFFECT: changes usedPassages to have the passages used in Kruskals
+  // and knocks down their walls in the grid
   void kruskals() {
-    HashMap<Vertex, Vertex> representatives = new HashMap<Vertex, Vertex>();
-    ArrayList<Edge> edgesInTree = new ArrayList<Edge>();
-    Collections.sort(this.allEdges); // contains the sorted list of all edges
-
-    // initializes every node's representative to itself
-    for (ArrayList<Vertex> column : this.allVertices) {
-      for (Vertex v : column) {
-        representatives.put(v, v);
-      }
+    // only counted and timed if something records it, the plain UnionFind is quicker
+    KruskalsEvent event = new KruskalsEvent();
+    boolean recording = MazeMetrics.recording(this.metrics, event);
+    long start = 0;
+    if (recording) {
+      event.begin();
+      start = System.nanoTime();
     }
-
-    // there needs to be n-1 Edges in the tree added to connect all the n Vertices
-    while (edgesInTree.size() < representatives.size() - 1 && this.allEdges.size() > 0) {
-      Edge firstEdge = this.allEdges.remove(0);
-      if (this.findRepresentative(representatives, firstEdge.from) == this
-          .findRepresentative(representatives, firstEdge.to)) {
-        continue;
-      }
-      else {
-        // record this edge in edgesInTree
-        edgesInTree.add(firstEdge);
-        this.union(representatives, this.findRepresentative(representatives, firstEdge.from),
-            this.findRepresentative(representatives, firstEdge.to));
-      }
+    int cells = this.grid.size();
+    this.grid.clear();
+    MazeBuffers buffers = this.buffers();
+    // every cell starts out as its own representative
+    CountingUnionFind counted = recording ? buffers.countingSets() : null;
+    UnionFind representatives = recording ? counted : buffers.sets;
+    representatives.reset();
+    // puts the passages in order from lightest to heaviest, the walls on the edge of the
+    // grid weigh GridKruskal.LEFT_OUT so they come after all of them
+    GridKruskal kruskal = buffers.kruskal;
+    long sortStart = recording ? System.nanoTime() : 0;
+    kruskal.sort();
+    long sortNanos = recording ? System.nanoTime() - sortStart : 0;
+
+    // there needs to be n-1 passages in the tree added to connect all the n Vertices
+    int unions = kruskal.join(this.grid, representatives);
+    kruskal.open(this.grid);
+    this.usedPassages = kruskal.tree;
+    this.usedCount = kruskal.treeSize;
+
+    if (this.metrics != null) {
+      this.metrics.recordKruskals(System.nanoTime() - start, sortNanos, unions,
+          counted.findSteps, counted.deepestFind);
+    }
+    if (recording && event.shouldCommit()) {
+      event.cells = cells;
+      event.sortNanos = sortNanos;
+      event.unions = unions;
+      event.findSteps = counted.findSteps;
+      event.deepestFind = counted.deepestFind;
+      event.commit();
     }
-    this.usedEdges = edgesInTree;
   }
 
-  // EFFECTS: sets this.answer to the path
-  void reconstruct(HashMap<Vertex, Vertex> cameFrom, Vertex next) {
+  // EFFECTS: sets this.answer to the path from the top left to the given cell
+  void reconstruct(int[] cameFrom, int cell) {
     ArrayList<Vertex> path = new ArrayList<Vertex>();
-    path.add(next);
-    while (!path.contains(this.findVertex(new Posn(0, 0)))) {
-      next = cameFrom.get(next);
-      path.add(next);
+    path.add(this.vertexAt(cell));
+    while (cell != 0) {
+      cell = cameFrom[cell];
+      path.add(this.vertexAt(cell));
     }
     Collections.reverse(path);
     this.answer = path;
   }
 
-  // helps set the correct path for the right search and returns the whole path
-  // taken
+  // helps set the correct path for the right search, if it wasn't already found, and
+  // returns the whole path taken
   ArrayList<Vertex> searchHelp(ICollection<Vertex> worklist) {
-    Vertex target = this.findVertex(new Posn(this.dimension.x - 1, this.dimension.y - 1));
-    ArrayList<Vertex> seen = new ArrayList<Vertex>();
-    // the cameFromEdge is where the key is destination Vertex
-    // and the value is the vertex where it's coming from
-    HashMap<Vertex, Vertex> cameFrom = new HashMap<Vertex, Vertex>();
+    MazeSearchEvent event = new MazeSearchEvent();
+    boolean recording = MazeMetrics.recording(this.metrics, event);
+    if (recording) {
+      event.begin();
+    }
+    int waiting = 1; // the number of Vertices on the worklist
+    int largestWorklist = 1;
+    int target = this.grid.size() - 1;
+    ArrayList<Vertex> seen = new ArrayList<Vertex>(); // in the order they were seen
+    BitSet visited = new BitSet(this.grid.size()); // the cells that are in seen
+    // cameFrom is indexed by the destination cell
+    // and holds the cell where it's coming from
+    int[] cameFrom = new int[this.grid.size()];
     // initialize the worklist to contain the starting Vertex
-    worklist.add(this.findVertex(new Posn(0, 0)));
+    worklist.add(this.vertexAt(0));
 
     while (!worklist.isEmpty()) {
       Vertex next = worklist.remove();
-      if (seen.contains(next)) {
+      waiting -= 1;
+      int cell = this.cellIndex(next);
+      if (visited.get(cell)) {
         continue;
       }
-      else if (next == target) {
+      else if (cell == target) {
+        visited.set(cell);
         seen.add(next);
-        this.reconstruct(cameFrom, next);
+        if (!this.answerFound) {
+          this.reconstruct(cameFrom, cell);
+          this.answerFound = true;
+        }
         break;
       }
       else {
+        visited.set(cell);
         seen.add(next);
-        for (Edge e : next.outEdges) {
-          if (this.usedEdges.contains(e)) {
-            if (e.from == next && !seen.contains(e.to)) { // the to is the vertex
-              worklist.add(e.to);
-              cameFrom.put(e.to, next);
-            }
-            else if (e.to == next && !seen.contains(e.from)) {
-              worklist.add(e.from);
-              cameFrom.put(e.from, next);
+        for (int direction = 0; direction < 4; direction += 1) {
+          if (this.grid.isOpen(cell, direction)) {
+            int neighbor = this.grid.neighbor(cell, direction);
+            if (!visited.get(neighbor)) {
+              worklist.add(this.vertexAt(neighbor));
+              cameFrom[neighbor] = cell;
+              waiting += 1;
+              largestWorklist = Math.max(largestWorklist, waiting);
             }
           }
         }
       }
     }
+
+    if (this.metrics != null) {
+      this.metrics.recordSearch(seen.size(), largestWorklist);
+    }
+    if (recording && event.shouldCommit()) {
+      event.expanded = seen.size();
+      event.largestWorklist = largestWorklist;
+      event.pathLength = this.answer.size();
+      event.commit();
+    }
     return seen;
   }
 
-  // EFFECT: sets each Vertex's edges and also adds all of these edges to the
-  // global list of Edges to be used for kruskals
+  // EFFECT: weighs every wall in the grid to be used for kruskals
   void setVertexEdges() {
-    for (int i = 0; i < this.allVertices.size(); i += 1) {
-      for (int j = 0; j < this.allVertices.get(i).size(); j += 1) {
-        Vertex v = this.findVertex(new Posn(i, j));
-        if (v.posn.x < this.dimension.x - 1) {
-          Vertex right = this.findVertex(new Posn(v.posn.x + 1, v.posn.y));
-          Edge edge = new Edge(v, right);
-          v.outEdges.add(edge); // adds the edge left Vertex
-          right.outEdges.add(edge); // adds the edge to the right Vertex
-          this.allEdges.add(edge);
-        }
-        if (v.posn.y < this.dimension.y - 1) {
-          Vertex down = this.findVertex(new Posn(v.posn.x, v.posn.y + 1));
-          Edge edge = new Edge(v, down);
-          v.outEdges.add(edge); // adds the edge to the top Vertex
-          down.outEdges.add(edge); // adds the bottom Vertex
-          this.allEdges.add(edge);
-        }
-      }
-    }
+    this.setVertexEdges(new EdgeWeights(this.seed, EdgeWeights.NO_BIAS));
   }
 
-  // EFFECT: sets each Vertex's edges and also adds all of these edges to the
-  // global list of Edges to be used for kruskals
+  // EFFECT: weighs every wall in the grid to be used for kruskals
   // biases in X direction
   void setVertexEdgesX() {
-    for (int i = 0; i < this.allVertices.size(); i += 1) {
-      for (int j = 0; j < this.allVertices.get(i).size(); j += 1) {
-        Vertex v = this.findVertex(new Posn(i, j));
-        if (v.posn.x < this.dimension.x - 1) {
-          Vertex right = this.findVertex(new Posn(v.posn.x + 1, v.posn.y));
-          Edge edge = new Edge(v, right);
-          v.outEdges.add(edge); // adds the edge left Vertex
-          right.outEdges.add(edge); // adds the edge to the right Vertex
-          this.allEdges.add(edge);
-        }
-        if (v.posn.y < this.dimension.y - 1) {
-          Vertex down = this.findVertex(new Posn(v.posn.x, v.posn.y + 1));
-          Edge edge = new Edge(v, down, new Random().nextInt(100) + 100);
-          v.outEdges.add(edge); // adds the edge to the top Vertex
-          down.outEdges.add(edge); // adds the bottom Vertex
-          this.allEdges.add(edge);
-        }
-      }
-    }
+    this.setVertexEdges(new EdgeWeights(this.seed, EdgeWeights.BIAS_X));
   }
 
-  // EFFECT: sets each Vertex's edges and also adds all of these edges to the
-  // global list of Edges to be used for kruskals
+  // EFFECT: weighs every wall in the grid to be used for kruskals
   // biases in Y direction
   void setVertexEdgesY() {
-    for (int i = 0; i < this.allVertices.size(); i += 1) {
-      for (int j = 0; j < this.allVertices.get(i).size(); j += 1) {
-        Vertex v = this.findVertex(new Posn(i, j));
-        if (v.posn.x < this.dimension.x - 1) {
-          Vertex right = this.findVertex(new Posn(v.posn.x + 1, v.posn.y));
-          Edge edge = new Edge(v, right, new Random().nextInt(100) + 100);
-          v.outEdges.add(edge); // adds the edge left Vertex
-          right.outEdges.add(edge); // adds the edge to the right Vertex
-          this.allEdges.add(edge);
-        }
-        if (v.posn.y < this.dimension.y - 1) {
-          Vertex down = this.findVertex(new Posn(v.posn.x, v.posn.y + 1));
-          Edge edge = new Edge(v, down);
-          v.outEdges.add(edge); // adds the edge to the top Vertex
-          down.outEdges.add(edge); // adds the bottom Vertex
-          this.allEdges.add(edge);
-        }
-      }
-    }
+    this.setVertexEdges(new EdgeWeights(this.seed, EdgeWeights.BIAS_Y));
   }
 
-  // sets the fromRep's representative to toRep
-  void union(HashMap<Vertex, Vertex> representatives, Vertex fromRep, Vertex toRep) {
-    representatives.put(fromRep, toRep);
+  // EFFECT: weighs every wall in the grid to be used for kruskals, each passage with the
+  // given weights and each wall on the edge of the grid with GridKruskal.LEFT_OUT, into
+  // the buffers instead of an Edge for each one
+  void setVertexEdges(EdgeWeights weights) {
+    this.unweighed = null;
+    MazeEdgesEvent event = new MazeEdgesEvent();
+    if (!MazeMetrics.recording(this.metrics, event)) {
+      this.buffers().kruskal.weigh(this.grid, weights);
+      return;
+    }
+    event.begin();
+    long start = System.nanoTime();
+    this.buffers().kruskal.weigh(this.grid, weights);
+    this.recordEdges(event, start);
   }
 }
 
@@ -672,45 +865,143 @@ interface ICollection<T> {
   T remove();
 }
 
-// represents a Collection for depth-first search
+// represents a Collection for depth-first search, the top of the stack is the
+// end of a growable array so adding and removing never shift the contents
 class Stack<T> implements ICollection<T> {
-  ArrayList<T> contents;
+  Object[] contents;
+  int size; // the number of items, contents[size - 1] is the top
 
   Stack() {
-    this.contents = new ArrayList<T>();
+    this.contents = new Object[16];
+    this.size = 0;
   }
 
   public boolean isEmpty() {
-    return this.contents.isEmpty();
+    return this.size == 0;
   }
 
+  @SuppressWarnings("unchecked")
   public T remove() {
-    return this.contents.remove(0);
+    if (this.size == 0) {
+      throw new IllegalStateException("Can't remove from an empty collection!");
+    }
+    this.size -= 1;
+    T item = (T) this.contents[this.size];
+    this.contents[this.size] = null;
+    return item;
   }
 
   public void add(T item) {
-    this.contents.add(0, item);
+    if (this.size == this.contents.length) {
+      this.contents = Arrays.copyOf(this.contents, this.size * 2);
+    }
+    this.contents[this.size] = item;
+    this.size += 1;
   }
 }
 
-// represents a Collection for breadth-first search
+// represents a Collection for breadth-first search, the items wrap around a
+// growable ring buffer so adding and removing never shift the contents
 class Queue<T> implements ICollection<T> {
-  ArrayList<T> contents;
+  Object[] contents;
+  int head; // the index of the first item
+  int size; // the number of items
 
   Queue() {
-    this.contents = new ArrayList<T>();
+    this.contents = new Object[16];
+    this.head = 0;
+    this.size = 0;
   }
 
   public boolean isEmpty() {
-    return this.contents.isEmpty();
+    return this.size == 0;
   }
 
+  @SuppressWarnings("unchecked")
   public T remove() {
-    return this.contents.remove(0);
+    if (this.size == 0) {
+      throw new IllegalStateException("Can't remove from an empty collection!");
+    }
+    T item = (T) this.contents[this.head];
+    this.contents[this.head] = null;
+    this.head = (this.head + 1) % this.contents.length;
+    this.size -= 1;
+    return item;
   }
 
   public void add(T item) {
-    this.contents.add(item);
+    if (this.size == this.contents.length) {
+      // unwraps the items into a buffer twice as big
+      Object[] bigger = new Object[this.size * 2];
+      int firstPart = this.contents.length - this.head;
+      System.arraycopy(this.contents, this.head, bigger, 0, firstPart);
+      System.arraycopy(this.contents, 0, bigger, firstPart, this.head);
+      this.contents = bigger;
+      this.head = 0;
+    }
+    this.contents[(this.head + this.size) % this.contents.length] = item;
+    this.size += 1;
+  }
+}
+
+// represents the buffers that kruskals and findAnswer use for a board of one size,
+// kept so that making a new maze of that size doesn't allocate them again
+class MazeBuffers {
+  UnionFind sets; // for every cell
+  CountingUnionFind counted; // for every cell while kruskals is recorded, null until then
+  GridKruskal kruskal; // the weight of every passage, their order and the tree
+  GridSolver solver;
+  IntStack worklist;
+
+  // constructor for MazeBuffers
+  MazeBuffers(int cells) {
+    this.sets = new UnionFind(cells);
+    this.counted = null;
+    this.kruskal = new GridKruskal(cells);
+    this.solver = new GridSolver();
+    this.worklist = new IntStack();
+  }
+
+  // Are these buffers the right size for the given board?
+  boolean fits(int cells) {
+    return this.sets.parent.length == cells;
+  }
+
+  // returns the sets that count their finds, made the first time they're needed
+  CountingUnionFind countingSets() {
+    if (this.counted == null) {
+      this.counted = new CountingUnionFind(this.sets.parent.length);
+    }
+    return this.counted;
+  }
+}
+
+// represents the next maze of a board, made in a background thread with its own grid,
+// weights and buffers so nothing the Maze is showing changes until it's adopted
+class PrefetchedMaze {
+  long seed;
+  int bias;
+  MazeGrid grid; // the walls of the new maze
+  int[] weights; // the new weight of each passage, like the Maze's buffers have them
+  int[] usedPassages; // the passages kruskals would knock down, in its order
+  ArrayList<Vertex> answer; // the path from the top left to the bottom right
+
+  // constructor for PrefetchedMaze, does what kruskals and findAnswer would do for a
+  // board of the given size with the given seed and bias
+  PrefetchedMaze(int width, int height, long seed, int bias) {
+    this.seed = seed;
+    this.bias = bias;
+    this.grid = new MazeGrid(width, height);
+    GridKruskal kruskal = new GridKruskal(this.grid.size());
+    kruskal.generate(this.grid, new EdgeWeights(seed, bias), new UnionFind(this.grid.size()));
+    this.weights = kruskal.weights;
+    this.usedPassages = kruskal.tree;
+
+    int[] path = new GridSolver().solve(this.grid, new IntStack());
+    this.answer = new ArrayList<Vertex>(path.length);
+    for (int cell : path) {
+      this.answer.add(new Vertex(this.grid, cell));
+    }
   }
 }
 
@@ -719,7 +1010,7 @@ class Queue<T> implements ICollection<T> {
  * Maze:
  *  onKeyEvent(String)
  *  onTick()
- *  findEdge(ArrayList<Edge>, Vertex, Vertex)
+ *  findEdge(Vertex, Vertex)
  */
 class ExamplesMaze {
   // 2x2
@@ -733,10 +1024,6 @@ class ExamplesMaze {
   Edge edgeZero1To11;
   Edge edgeOne0To11;
 
-  ArrayList<Vertex> columnZero;
-  ArrayList<Vertex> columnOne;
-  ArrayList<ArrayList<Vertex>> allVertices2x2;
-
   Maze maze2x2;
 
   /*
@@ -776,11 +1063,6 @@ class ExamplesMaze {
 
   Edge edge21To22; // 21
 
-  ArrayList<Vertex> column0;
-  ArrayList<Vertex> column1;
-  ArrayList<Vertex> column2;
-  ArrayList<ArrayList<Vertex>> allVertices3x3;
-
   Maze maze3x3;
   Maze maze3x3v2;
 
@@ -796,23 +1078,10 @@ class ExamplesMaze {
     this.edgeZero1To11 = new Edge(this.vertexZero1, this.vertexOne1, 30);
     this.edgeOne0To11 = new Edge(this.vertexOne0, this.vertexOne1, 40);
 
-    this.vertexZero0.outEdges.add(this.edgeZero0To10);
-    this.vertexZero0.outEdges.add(this.edgeZero0To01);
-
-    this.vertexOne0.outEdges.add(this.edgeZero0To10);
-    this.vertexOne0.outEdges.add(this.edgeOne0To11);
-
-    this.vertexZero1.outEdges.add(this.edgeZero0To01);
-    this.vertexZero1.outEdges.add(this.edgeZero1To11);
-
-    this.vertexOne1.outEdges.add(this.edgeZero1To11);
-    this.vertexOne1.outEdges.add(this.edgeOne0To11);
-
-    this.columnZero = new ArrayList<Vertex>(Arrays.asList(this.vertexZero0, this.vertexZero1));
-    this.columnOne = new ArrayList<Vertex>(Arrays.asList(this.vertexOne0, this.vertexOne1));
-    this.allVertices2x2 = new ArrayList<ArrayList<Vertex>>(
-        Arrays.asList(this.columnZero, this.columnOne));
-    this.maze2x2 = new Maze(this.allVertices2x2, new Random());
+    this.maze2x2 = new Maze(new Posn(2, 2), new Random(0));
+    this.maze2x2.createBoard();
+    this.maze2x2.pointer = this.maze2x2.vertexAt(0);
+    this.maze2x2.current = this.maze2x2.vertexAt(0);
 
     // 3x3
     this.vertex00 = new Vertex(new Posn(0, 0), Color.green);
@@ -847,30 +1116,10 @@ class ExamplesMaze {
 
     this.edge21To22 = new Edge(this.vertex21, this.vertex22, 74);
 
-    // adding Edges to Vertex
-    this.vertex00.outEdges.addAll(Arrays.asList(this.edge00To10, this.edge00To01));
-    this.vertex01.outEdges.addAll(Arrays.asList(this.edge00To01, this.edge01To11, this.edge01To02));
-    this.vertex02.outEdges.addAll(Arrays.asList(this.edge01To02, this.edge02To12));
-
-    this.vertex10.outEdges.addAll(Arrays.asList(this.edge00To10, this.edge10To20, this.edge10To11));
-    this.vertex11.outEdges
-        .addAll(Arrays.asList(this.edge01To11, this.edge10To11, this.edge11To21, this.edge11To12));
-    this.vertex12.outEdges.addAll(Arrays.asList(this.edge02To12, this.edge11To12, this.edge12To22));
-
-    this.vertex20.outEdges.addAll(Arrays.asList(this.edge10To20, this.edge20To21));
-    this.vertex21.outEdges.addAll(Arrays.asList(this.edge11To21, this.edge20To21, this.edge21To22));
-    this.vertex22.outEdges.addAll(Arrays.asList(this.edge12To22, this.edge21To22));
-
-    this.column0 = new ArrayList<Vertex>(
-        Arrays.asList(this.vertex00, this.vertex01, this.vertex02));
-    this.column1 = new ArrayList<Vertex>(
-        Arrays.asList(this.vertex10, this.vertex11, this.vertex12));
-    this.column2 = new ArrayList<Vertex>(
-        Arrays.asList(this.vertex20, this.vertex21, this.vertex22));
-    this.allVertices3x3 = new ArrayList<ArrayList<Vertex>>(
-        Arrays.asList(this.column0, this.column1, this.column2));
-
-    this.maze3x3 = new Maze(this.allVertices3x3, new Random());
+    this.maze3x3 = new Maze(new Posn(3, 3), new Random(0));
+    this.maze3x3.createBoard();
+    this.maze3x3.pointer = this.maze3x3.vertexAt(0);
+    this.maze3x3.current = this.maze3x3.vertexAt(0);
   }
 
   // Vertex
@@ -921,87 +1170,26 @@ class ExamplesMaze {
     t.checkConstructorException(
         new IllegalArgumentException("Maze has to be bigger than 1 dimension!"), "Maze",
         new Posn(1, 1));
-    // allVertices constructors
-    ArrayList<ArrayList<Vertex>> list00 = new ArrayList<ArrayList<Vertex>>();
-    ArrayList<ArrayList<Vertex>> list11 = new ArrayList<ArrayList<Vertex>>(
-        Arrays.asList(new ArrayList<Vertex>(Arrays.asList(this.vertex00))));
-    t.checkConstructorException(
-        new IllegalArgumentException("Maze has to be bigger than 1 dimension!"), "Maze", list00);
-    t.checkConstructorException(
-        new IllegalArgumentException("Maze has to be bigger than 1 dimension!"), "Maze", list11);
+    // the Vertices are views of the grid and kruskals knocks down n-1 walls
+    Maze maze = new Maze(new Posn(3, 2));
+    t.checkExpect(maze.findVertex(new Posn(0, 0)), new Vertex(new Posn(0, 0), Color.green));
+    t.checkExpect(maze.findVertex(new Posn(2, 1)), new Vertex(new Posn(2, 1), Color.magenta));
+    t.checkExpect(maze.findVertex(new Posn(1, 1)), new Vertex(new Posn(1, 1), Color.gray));
+    t.checkExpect(maze.usedCount, 5);
   }
 
   // tests for makeScene(){
   void testMakeScene(Tester t) {
     this.initData();
-    WorldScene background = new WorldScene(1000, 600);
     this.maze2x2.setVertexEdges();
-    this.maze2x2.findVertex(new Posn(0, 0)).changeColor(Color.green);
-    this.maze2x2.findVertex(new Posn(this.maze2x2.dimension.x - 1, this.maze2x2.dimension.y - 1))
-        .changeColor(Color.magenta);
     this.maze2x2.kruskals();
     // sets the answer to the dfs search in case they do manual
     this.maze2x2.searchHelp(new Stack<Vertex>());
+    WorldScene scene = this.maze2x2.makeScene();
+    WorldScene background = new WorldScene(1000, 600);
 
-    // places the gray background
-    background.placeImageXY(new RectangleImage(1000, 600, "solid", Color.gray), 500, 300);
-    // places the green box on top left
-    background.placeImageXY(
-        new RectangleImage(this.maze2x2.cellSize.x, this.maze2x2.cellSize.y, "solid", Color.green),
-        this.maze2x2.cellSize.x / 2, this.maze2x2.cellSize.y / 2);
-    // places the magenta box on the bottom right
-    background.placeImageXY(
-        new RectangleImage(this.maze2x2.cellSize.x, this.maze2x2.cellSize.y, "solid",
-            Color.magenta),
-        (this.maze2x2.dimension.x - 1) * this.maze2x2.cellSize.x + this.maze2x2.cellSize.x / 2,
-        (this.maze2x2.dimension.y - 1) * this.maze2x2.cellSize.y + this.maze2x2.cellSize.y / 2);
-
-    // creates the horizontal lines to the grid
-    for (int y = 0; y <= 600; y += this.maze2x2.cellSize.y) {
-      WorldImage line = new RectangleImage(1000, 2, "solid", Color.black);
-      background.placeImageXY(line, 500, y);
-    }
-
-    // creates the vertical lines to the grid
-    for (int x = 0; x < 1000; x += this.maze2x2.cellSize.x) {
-      WorldImage line = new RectangleImage(2, 600, "solid", Color.black);
-      background.placeImageXY(line, x, 300);
-    }
-
-    // draws each wall being knocked down (COMMENT THIS OUT
-    // FOR THE FOR LOOP UNDERNEATH TO START WITH WALLS KNOCKED DOWN)
-    for (Edge e : this.maze2x2.currentUsedEdge) {
-      WorldImage horizontal = new RectangleImage(this.maze2x2.cellSize.x - 2, 2, "solid",
-          Color.gray);
-      WorldImage vertical = new RectangleImage(2, this.maze2x2.cellSize.y - 2, "solid", Color.gray);
-      if (e.from.posn.x < e.to.posn.x) {
-        background.placeImageXY(vertical, e.to.posn.x * this.maze2x2.cellSize.x,
-            e.from.posn.y * this.maze2x2.cellSize.y + this.maze2x2.cellSize.y / 2);
-      }
-      if (e.from.posn.x > e.to.posn.x) {
-        background.placeImageXY(vertical, e.from.posn.x * this.maze2x2.cellSize.x,
-            e.from.posn.y * this.maze2x2.cellSize.y + this.maze2x2.cellSize.y / 2);
-      }
-      if (e.from.posn.y < e.to.posn.y) {
-        background.placeImageXY(horizontal,
-            e.from.posn.x * this.maze2x2.cellSize.x + this.maze2x2.cellSize.x / 2,
-            e.to.posn.y * this.maze2x2.cellSize.y);
-      }
-      if (e.from.posn.y > e.to.posn.y) {
-        background.placeImageXY(horizontal,
-            e.from.posn.x * this.maze2x2.cellSize.x + this.maze2x2.cellSize.x / 2,
-            e.from.posn.y * this.maze2x2.cellSize.y);
-      }
-    }
-
-    // loops through drawnBoxes and add it onto background
-    for (Vertex v : this.maze2x2.drawnBoxes) {
-      background.placeImageXY(
-          new RectangleImage(this.maze2x2.cellSize.x - 2, this.maze2x2.cellSize.y - 2, "solid",
-              this.maze2x2.lightBlue),
-          v.posn.x * this.maze2x2.cellSize.x + this.maze2x2.cellSize.x / 2,
-          v.posn.y * this.maze2x2.cellSize.y + this.maze2x2.cellSize.y / 2);
-    }
+    // places the picture of the maze from the cache
+    background.placeImageXY(this.maze2x2.sceneCache.layer, 500, 300);
 
     // draws the Vertex the search loop is currently on
     background.placeImageXY(
@@ -1010,17 +1198,6 @@ class ExamplesMaze {
         this.maze2x2.current.posn.x * this.maze2x2.cellSize.x + this.maze2x2.cellSize.x / 2,
         this.maze2x2.current.posn.y * this.maze2x2.cellSize.y + this.maze2x2.cellSize.y / 2);
 
-    // toggles the solution
-    if (this.maze2x2.showAnswer) {
-      for (Vertex v : this.maze2x2.answer) {
-        background.placeImageXY(
-            new RectangleImage(this.maze2x2.cellSize.x - 2, this.maze2x2.cellSize.y - 2, "solid",
-                Color.BLUE),
-            v.posn.x * this.maze2x2.cellSize.x + this.maze2x2.cellSize.x / 2,
-            v.posn.y * this.maze2x2.cellSize.y + this.maze2x2.cellSize.y / 2);
-      }
-    }
-
     // if manual is turned on it draws the manual position
     if (this.maze2x2.manual) {
       background.placeImageXY(
@@ -1031,36 +1208,102 @@ class ExamplesMaze {
     }
 
     // shows "YOU WIN!" when you completed it on manual
-    if (this.maze2x2.pointer == this.maze2x2
-        .findVertex(new Posn(this.maze2x2.dimension.x - 1, this.maze2x2.dimension.y - 1))) {
+    if (this.maze2x2.cellIndex(this.maze2x2.pointer) == this.maze2x2.grid.size() - 1) {
       background.placeImageXY(new TextImage("YOU WIN!", 50, FontStyle.BOLD, Color.green), 500, 300);
     }
 
-    t.checkExpect(this.maze2x2.makeScene(), background);
+    t.checkExpect(scene, background);
+    // the cells are 500x300 and no wall has been knocked down yet
+    ComputedPixelImage layer = this.maze2x2.sceneCache.layer;
+    t.checkExpect(layer.getPixel(250, 150), Color.green);
+    t.checkExpect(layer.getPixel(750, 450), Color.magenta);
+    t.checkExpect(layer.getPixel(500, 150), Color.black);
+    t.checkExpect(layer.getPixel(250, 300), Color.black);
+    t.checkExpect(layer.getPixel(250, 0), Color.black);
   }
 
-  // tests for onKeyEvent(String)
+  // SceneCache
+  // tests for update(Maze)
+  void testSceneCache(Tester t) {
+    Maze maze = new Maze(new Posn(2, 2));
+    SceneCache cache = new SceneCache();
+    ComputedPixelImage layer = cache.update(maze);
+    t.checkExpect(cache.paintedPassages, maze.usedPassages);
+    t.checkExpect(cache.edgeCount, 0);
+
+    // a knocked down wall is painted gray
+    maze.onTick();
+    cache.update(maze);
+    t.checkExpect(cache.edgeCount, 1);
+    int passage = maze.usedPassages[0];
+    int x = maze.grid.cellX(maze.grid.passageCell(passage));
+    int y = maze.grid.cellY(maze.grid.passageCell(passage));
+    if (maze.grid.passageDirection(passage) == MazeGrid.EAST) {
+      t.checkExpect(layer.getPixel((x + 1) * 500, y * 300 + 150), Color.gray);
+    }
+    else {
+      t.checkExpect(layer.getPixel(x * 500 + 250, (y + 1) * 300), Color.gray);
+    }
+
+    // a visited cell is painted light blue
+    maze.alreadySeen = maze.bfs();
+    maze.onTick();
+    cache.update(maze);
+    t.checkExpect(cache.boxCount, 1);
+    t.checkExpect(layer.getPixel(250, 150), maze.lightBlue);
+    t.checkExpect(layer.getPixel(0, 0), Color.black);
+
+    // the answer is painted over everything, and hiding it starts the picture over
+    maze.showAnswer = true;
+    cache.update(maze);
+    t.checkExpect(cache.paintedAnswer, maze.answer);
+    t.checkExpect(layer.getPixel(750, 450), Color.BLUE);
+    t.checkExpect(layer.getPixel(250, 150), Color.BLUE);
+    maze.showAnswer = false;
+    cache.update(maze);
+    t.checkExpect(cache.paintedAnswer, null);
+    t.checkExpect(layer.getPixel(750, 450), Color.magenta);
+    t.checkExpect(layer.getPixel(250, 150), maze.lightBlue);
+    t.checkExpect(cache.edgeCount, 2);
+
+    // new knocked down walls start the picture over, and so does showing fewer of them
+    maze.usedPassages = Arrays.copyOf(maze.usedPassages, maze.usedCount);
+    cache.update(maze);
+    t.checkExpect(cache.edgeCount, 2);
+    t.checkExpect(cache.paintedPassages == maze.usedPassages, true);
+    maze.currentUsedEdgeIndex = 0;
+    cache.update(maze);
+    t.checkExpect(cache.edgeCount, 0);
+  }
+
+  // tests for place(int, int, int, int, Color)
+  void testPlace(Tester t) {
+    SceneCache cache = new SceneCache();
+    cache.place(10, 10, 0, 0, Color.red);
+    t.checkExpect(cache.layer.getPixel(4, 4), Color.red);
+    t.checkExpect(cache.layer.getPixel(5, 5).equals(Color.red), false);
+    cache.place(4, 2, 999, 599, Color.blue);
+    t.checkExpect(cache.layer.getPixel(999, 599), Color.blue);
+    // nothing is left to paint
+    cache.place(0, 10, 50, 50, Color.red);
+    cache.place(10, 10, 2000, 50, Color.red);
+    t.checkExpect(cache.layer.getPixel(50, 50).equals(Color.red), false);
+  }
+
+  // tests for onKeyEvent(String)
   void testOnKeyEvent(Tester t) {
     this.initData();
     this.maze2x2.setVertexEdges();
-    this.maze2x2.findVertex(new Posn(0, 0)).changeColor(Color.green);
-    this.maze2x2.findVertex(new Posn(this.maze2x2.dimension.x - 1, this.maze2x2.dimension.y - 1))
-        .changeColor(Color.magenta);
     this.maze2x2.kruskals();
     this.maze2x2.searchHelp(new Stack<Vertex>());
 
-    this.maze2x2.allVertices = new ArrayList<ArrayList<Vertex>>(); // r
-    this.maze2x2.allEdges = new ArrayList<Edge>();
-    this.maze2x2.usedEdges = new ArrayList<Edge>();
+    this.maze2x2.usedCount = 0; // r
+    this.maze2x2.grid.clear();
     this.maze2x2.answer = new ArrayList<Vertex>();
-    t.checkExpect(this.maze2x2.allVertices.size(), 0);
-    t.checkExpect(this.maze2x2.allEdges.size(), 0);
-    t.checkExpect(this.maze2x2.usedEdges.size(), 0);
     t.checkExpect(this.maze2x2.answer.size(), 0);
     this.maze2x2.onKeyEvent("r");
-    t.checkExpect(this.maze2x2.allVertices.size(), 2);
-    t.checkExpect(this.maze2x2.allEdges.size(), 1);
-    t.checkExpect(this.maze2x2.usedEdges.size(), 3);
+    t.checkExpect(this.maze2x2.usedCount, 3);
+    t.checkExpect(Long.bitCount(this.maze2x2.grid.passages[0]), 3);
 
     t.checkExpect(this.maze2x2.showAnswer, false); // a
     this.maze2x2.onKeyEvent("a");
@@ -1071,6 +1314,11 @@ class ExamplesMaze {
     this.maze2x2.onKeyEvent("m");
     t.checkExpect(this.maze2x2.manual, true);
 
+    // 00 opens onto 10 and 01, and 10 onto 11
+    this.maze2x2.grid.clear();
+    this.maze2x2.grid.open(0, MazeGrid.EAST);
+    this.maze2x2.grid.open(0, MazeGrid.SOUTH);
+    this.maze2x2.grid.open(1, MazeGrid.SOUTH);
     t.checkExpect(this.maze2x2.pointer, this.maze2x2.findVertex(new Posn(0, 0)));
     this.maze2x2.onKeyEvent("right");
     t.checkExpect(this.maze2x2.pointer, this.maze2x2.findVertex(new Posn(1, 0)));
@@ -1088,32 +1336,46 @@ class ExamplesMaze {
     this.maze2x2.alreadySeen = new ArrayList<Vertex>();
     this.maze2x2.onKeyEvent("d");
     t.checkExpect(this.maze2x2.alreadySeen.size(), 4);
-
-    this.maze2x2.allVertices = new ArrayList<ArrayList<Vertex>>(); // x
-    this.maze2x2.allEdges = new ArrayList<Edge>();
-    this.maze2x2.usedEdges = new ArrayList<Edge>();
+    t.checkExpect(this.maze2x2.alreadySeenIndex, 0);
+
+    this.maze2x2.alreadySeen = new ArrayList<Vertex>(); // s and w
+    this.maze2x2.onKeyEvent("s");
+    t.checkExpect(this.maze2x2.alreadySeen.get(0), this.maze2x2.vertexAt(0));
+    t.checkExpect(this.maze2x2.answer.size(), 3);
+    this.maze2x2.onKeyEvent("w");
+    t.checkExpect(this.maze2x2.alreadySeen.get(1), this.maze2x2.vertexAt(3));
+    t.checkExpect(this.maze2x2.answer.size(), 3);
+
+    t.checkExpect(this.maze2x2.stepsPerTick, 1); // = and -
+    this.maze2x2.onKeyEvent("=");
+    this.maze2x2.onKeyEvent("=");
+    t.checkExpect(this.maze2x2.stepsPerTick, 4);
+    this.maze2x2.onKeyEvent("-");
+    this.maze2x2.onKeyEvent("-");
+    this.maze2x2.onKeyEvent("-");
+    t.checkExpect(this.maze2x2.stepsPerTick, 1);
+
+    t.checkExpect(this.maze2x2.tickBudget, 0L); // t
+    this.maze2x2.onKeyEvent("t");
+    t.checkExpect(this.maze2x2.tickBudget, Maze.TICK_BUDGET);
+    this.maze2x2.onKeyEvent("t");
+    t.checkExpect(this.maze2x2.tickBudget, 0L);
+
+    this.maze2x2.usedCount = 0; // x
+    this.maze2x2.grid.clear();
     this.maze2x2.answer = new ArrayList<Vertex>();
-    t.checkExpect(this.maze2x2.allVertices.size(), 0);
-    t.checkExpect(this.maze2x2.allEdges.size(), 0);
-    t.checkExpect(this.maze2x2.usedEdges.size(), 0);
     t.checkExpect(this.maze2x2.answer.size(), 0);
     this.maze2x2.onKeyEvent("x");
-    t.checkExpect(this.maze2x2.allVertices.size(), 2);
-    t.checkExpect(this.maze2x2.allEdges.size(), 1);
-    t.checkExpect(this.maze2x2.usedEdges.size(), 3);
+    t.checkExpect(this.maze2x2.usedCount, 3);
+    t.checkExpect(Long.bitCount(this.maze2x2.grid.passages[0]), 3);
 
-    this.maze2x2.allVertices = new ArrayList<ArrayList<Vertex>>(); // y
-    this.maze2x2.allEdges = new ArrayList<Edge>();
-    this.maze2x2.usedEdges = new ArrayList<Edge>();
+    this.maze2x2.usedCount = 0; // y
+    this.maze2x2.grid.clear();
     this.maze2x2.answer = new ArrayList<Vertex>();
-    t.checkExpect(this.maze2x2.allVertices.size(), 0);
-    t.checkExpect(this.maze2x2.allEdges.size(), 0);
-    t.checkExpect(this.maze2x2.usedEdges.size(), 0);
     t.checkExpect(this.maze2x2.answer.size(), 0);
     this.maze2x2.onKeyEvent("y");
-    t.checkExpect(this.maze2x2.allVertices.size(), 2);
-    t.checkExpect(this.maze2x2.allEdges.size(), 1);
-    t.checkExpect(this.maze2x2.usedEdges.size(), 3);
+    t.checkExpect(this.maze2x2.usedCount, 3);
+    t.checkExpect(Long.bitCount(this.maze2x2.grid.passages[0]), 3);
 
   }
 
@@ -1130,12 +1392,56 @@ class ExamplesMaze {
     t.checkExpect(this.maze2x2.currentUsedEdgeIndex, 2);
     t.checkExpect(this.maze2x2.drawnBoxes, new ArrayList<Vertex>());
     t.checkExpect(this.maze2x2.current, this.vertexZero0);
+
+    // the seen Vertices are drawn in order without taking them out of alreadySeen
+    this.maze2x2.alreadySeen = new ArrayList<Vertex>(
+        Arrays.asList(this.vertexZero0, this.vertexOne0, this.vertexOne1));
+    this.maze2x2.onTick();
+    t.checkExpect(this.maze2x2.currentUsedEdgeIndex, 3);
+    t.checkExpect(this.maze2x2.alreadySeenIndex, 1);
+    t.checkExpect(this.maze2x2.alreadySeen.size(), 3);
+    t.checkExpect(this.maze2x2.current, this.vertexZero0);
+
+    // more steps each tick, stopping when there is nothing left
+    this.maze2x2.stepsPerTick = 5;
+    this.maze2x2.onTick();
+    t.checkExpect(this.maze2x2.currentUsedEdgeIndex, 3);
+    t.checkExpect(this.maze2x2.drawnBoxes, this.maze2x2.alreadySeen);
+    t.checkExpect(this.maze2x2.current, this.vertexOne1);
+
+    // a tick with a time budget does everything it can fit
+    Maze maze = new Maze(new Posn(20, 20));
+    maze.alreadySeen = maze.bfs();
+    maze.tickBudget = 1000000000L;
+    maze.onTick();
+    t.checkExpect(maze.currentUsedEdgeIndex, maze.usedCount);
+    t.checkExpect(maze.drawnBoxes, maze.alreadySeen);
+  }
+
+  // tests for step()
+  void testStep(Tester t) {
+    this.initData();
+    this.maze2x2.usedPassages = new int[] { 0 };
+    this.maze2x2.usedCount = 1;
+    this.maze2x2.alreadySeen = new ArrayList<Vertex>(
+        Arrays.asList(this.vertexZero0, this.vertexOne0));
+    t.checkExpect(this.maze2x2.step(), true);
+    t.checkExpect(this.maze2x2.currentUsedEdgeIndex, 1);
+    t.checkExpect(this.maze2x2.current, this.vertexZero0);
+    // no walls are left but a Vertex is
+    t.checkExpect(this.maze2x2.step(), true);
+    t.checkExpect(this.maze2x2.currentUsedEdgeIndex, 1);
+    t.checkExpect(this.maze2x2.current, this.vertexOne0);
+    t.checkExpect(this.maze2x2.step(), false);
+    t.checkExpect(this.maze2x2.drawnBoxes, this.maze2x2.alreadySeen);
   }
 
   // tests for bfs(Vertex, Vertex)
   void testBfs(Tester t) {
     this.initData();
-    this.maze2x2.setVertexEdges();
+    // 00 south, 01 east and 00 east are the lightest walls
+    this.maze2x2.buffers().kruskal.weights = new int[] { 2, 0, EdgeWeights.WEIGHTS, 3, 1,
+        EdgeWeights.WEIGHTS, EdgeWeights.WEIGHTS, EdgeWeights.WEIGHTS };
     this.maze2x2.kruskals();
     t.checkExpect(this.maze2x2.answer, new ArrayList<Vertex>());
     this.maze2x2.bfs();
@@ -1146,16 +1452,18 @@ class ExamplesMaze {
   // tests for createBoard
   void testCreateBoard(Tester t) {
     this.initData();
-    Maze twox2 = new Maze(new Posn(2, 2), new Random());
-    t.checkExpect(twox2.allVertices, new ArrayList<ArrayList<Vertex>>());
+    Maze twox2 = new Maze(new Posn(2, 2), new Random(0));
+    t.checkExpect(twox2.grid, null);
     twox2.createBoard();
-    t.checkExpect(twox2.allVertices.size(), 2);
+    t.checkExpect(twox2.grid, new MazeGrid(2, 2));
   }
 
   // tests for dfs(Vertex, Vertex)
   void testDfs(Tester t) {
     this.initData();
-    this.maze2x2.setVertexEdges();
+    // 00 south, 01 east and 00 east are the lightest walls
+    this.maze2x2.buffers().kruskal.weights = new int[] { 2, 0, EdgeWeights.WEIGHTS, 3, 1,
+        EdgeWeights.WEIGHTS, EdgeWeights.WEIGHTS, EdgeWeights.WEIGHTS };
     this.maze2x2.kruskals();
     t.checkExpect(this.maze2x2.answer, new ArrayList<Vertex>());
     this.maze2x2.dfs();
@@ -1164,29 +1472,38 @@ class ExamplesMaze {
                                             this.vertexZero1, this.vertexOne1)));
   }
 
-  // tests for findEdge(ArrayList<Edge>, Vertex, Vertex)
+  // tests for findEdge(Vertex, Vertex)
   void testFindEdge(Tester t) {
     this.initData();
     this.maze2x2.setVertexEdges();
-    this.maze2x2.kruskals();
-    // sets the answer to the dfs search in case they do manual
-    this.maze2x2.searchHelp(new Stack<Vertex>());
-    t.checkExpect(this.maze2x2.findEdge(this.maze2x2.findVertex(new Posn(0, 0)).outEdges,
-        this.vertexZero0, this.vertexOne0), this.edgeZero0To10);
+    this.maze2x2.buffers().kruskal.weights[0] = 10;
+    t.checkExpect(this.maze2x2.findEdge(this.vertexZero0, this.vertexOne0), this.edgeZero0To10);
+    t.checkExpect(this.maze2x2.findEdge(this.vertexOne0, this.vertexZero0),
+        new Edge(this.vertexOne0, this.vertexZero0, 10));
+    t.checkExpect(this.maze2x2.findEdge(this.vertexZero0, this.vertexOne1), null);
   }
 
-  // tests for findRepresentative(HashMap<Vertex, Vertex>, Vertex)
-  void testFindRepresentative(Tester t) {
+  // tests for cellIndex(Vertex)
+  void testCellIndex(Tester t) {
     this.initData();
-    // 00 | 01 <- 10 <- 11
-    HashMap<Vertex, Vertex> hash1 = new HashMap<Vertex, Vertex>();
-    hash1.put(this.vertexZero0, this.vertexZero0);
-    hash1.put(this.vertexZero1, this.vertexZero1);
-    hash1.put(this.vertexOne0, this.vertexZero1);
-    hash1.put(this.vertexOne1, this.vertexOne0);
-    t.checkExpect(this.maze2x2.findRepresentative(hash1, vertexZero0), this.vertexZero0);
-    t.checkExpect(this.maze2x2.findRepresentative(hash1, vertexOne0), this.vertexZero1);
-    t.checkExpect(this.maze2x2.findRepresentative(hash1, vertexOne1), this.vertexZero1);
+    t.checkExpect(this.maze2x2.cellIndex(this.vertexZero0), 0);
+    t.checkExpect(this.maze2x2.cellIndex(this.vertexOne0), 1);
+    t.checkExpect(this.maze2x2.cellIndex(this.vertexZero1), 2);
+    t.checkExpect(this.maze3x3.cellIndex(this.vertex12), 7);
+    t.checkExpect(this.maze3x3.cellIndex(this.vertex22), 8);
+  }
+
+  // tests for find(int)
+  void testFind(Tester t) {
+    // 0 | 2 <- 1 <- 3
+    UnionFind sets = new UnionFind(4);
+    sets.parent[1] = 2;
+    sets.parent[3] = 1;
+    t.checkExpect(sets.find(0), 0);
+    t.checkExpect(sets.find(1), 2);
+    t.checkExpect(sets.find(3), 2);
+    // 3 now points at its grandparent
+    t.checkExpect(sets.parent[3], 2);
   }
 
   // tests for findVertex(Posn)
@@ -1195,35 +1512,195 @@ class ExamplesMaze {
     t.checkExpect(this.maze3x3.findVertex(new Posn(0, 0)), this.vertex00);
     t.checkExpect(this.maze3x3.findVertex(new Posn(1, 1)), this.vertex11);
     t.checkExpect(this.maze3x3.findVertex(new Posn(2, 2)), this.vertex22);
+    t.checkException(new IndexOutOfBoundsException("There is no Vertex at 3, 0"),
+        this.maze3x3, "findVertex", new Posn(3, 0));
   }
 
   // tests for kruskals()
   void testKruskals(Tester t) {
     this.initData();
     this.maze2x2.setVertexEdges();
-    this.maze2x2.findVertex(new Posn(0, 0)).changeColor(Color.green);
-    this.maze2x2.findVertex(new Posn(this.maze2x2.dimension.x - 1, this.maze2x2.dimension.y - 1))
-        .changeColor(Color.magenta);
     this.maze3x3.setVertexEdges();
-    this.maze3x3.findVertex(new Posn(0, 0)).changeColor(Color.green);
-    this.maze3x3.findVertex(new Posn(this.maze3x3.dimension.x - 1, this.maze3x3.dimension.y - 1))
-        .changeColor(Color.magenta);
-    t.checkExpect(this.maze2x2.usedEdges.size(), 0);
+    t.checkExpect(this.maze2x2.usedCount, 0);
     this.maze2x2.kruskals();
-    t.checkExpect(this.maze2x2.usedEdges.size(), 3);
-    t.checkExpect(this.maze3x3.usedEdges.size(), 0);
+    t.checkExpect(this.maze2x2.usedCount, 3);
+    t.checkExpect(this.maze3x3.usedCount, 0);
     this.maze3x3.kruskals();
-    t.checkExpect(this.maze3x3.usedEdges.size(), 8);
+    t.checkExpect(this.maze3x3.usedCount, 8);
+    t.checkExpect(Long.bitCount(this.maze3x3.grid.passages[0]), 8);
+  }
+
+  // tests for kruskals() on passages with known weights
+  void testKruskalsOrder(Tester t) {
+    this.initData();
+    // the weights of the 2x2 Edges, by passage
+    int[] weights = this.maze2x2.buffers().kruskal.weights;
+    weights[0] = this.edgeZero0To10.weight;
+    weights[1] = this.edgeZero0To01.weight;
+    weights[3] = this.edgeOne0To11.weight;
+    weights[4] = this.edgeZero1To11.weight;
+    this.maze2x2.kruskals();
+    t.checkExpect(Arrays.copyOf(this.maze2x2.usedPassages, this.maze2x2.usedCount),
+        new int[] { 0, 4, 3 });
+    // kruskals doesn't change the weights it looked at
+    t.checkExpect(weights[1], 50);
+    t.checkExpect(this.maze2x2.grid.isOpen(0, MazeGrid.SOUTH), false);
+  }
+
+  // GridKruskal
+  // tests for weigh(MazeGrid, EdgeWeights), sort(), join(MazeGrid, UnionFind), open(MazeGrid)
+  // and generate(MazeGrid, EdgeWeights, UnionFind)
+  void testGridKruskal(Tester t) {
+    MazeGrid grid = new MazeGrid(3, 3);
+    EdgeWeights weights = new EdgeWeights(3, EdgeWeights.NO_BIAS);
+    // the middle row only, so its south passages and the wall on its right are left out
+    GridKruskal row = new GridKruskal(3, 6);
+    t.checkExpect(row.passage(0), 6);
+    row.weigh(grid, weights);
+    t.checkExpect(row.weights, new int[] { weights.weight(6), GridKruskal.LEFT_OUT,
+        weights.weight(8), GridKruskal.LEFT_OUT, GridKruskal.LEFT_OUT, GridKruskal.LEFT_OUT });
+    row.sort();
+    UnionFind sets = new UnionFind(9);
+    t.checkExpect(row.join(grid, sets), 2);
+    t.checkExpect(row.tree, new int[] { 6, 8 });
+    t.checkExpect(sets.find(3) == sets.find(5), true);
+    t.checkExpect(grid.isOpen(3, MazeGrid.EAST), false);
+    row.open(grid);
+    t.checkExpect(grid.isOpen(3, MazeGrid.EAST), true);
+    t.checkExpect(grid.isOpen(4, MazeGrid.EAST), true);
+    t.checkExpect(grid.isOpen(3, MazeGrid.SOUTH), false);
+    // the whole grid starts over and is the same maze a Maze makes with the seed
+    GridKruskal whole = new GridKruskal(9);
+    whole.generate(grid, weights, sets);
+    t.checkExpect(whole.treeSize, 8);
+    t.checkExpect(grid.isPerfect(), true);
+    t.checkExpect(grid.passages, new Maze(new Posn(3, 3), 3).grid.passages);
+    t.checkConstructorException(new IllegalArgumentException("Kruskal's needs at least 1 cell!"),
+        "GridKruskal", 2, 2);
   }
 
-  // tests for reconstruct(HashMap<Vertex, Edge>, Vertex)
+  // Stack and Queue
+  // tests for add(T), remove() and isEmpty() on a Stack
+  void testStack(Tester t) {
+    Stack<Integer> stack = new Stack<Integer>();
+    t.checkExpect(stack.isEmpty(), true);
+    for (int i = 0; i < 40; i += 1) {
+      stack.add(i);
+    }
+    t.checkExpect(stack.isEmpty(), false);
+    t.checkExpect(stack.remove(), 39);
+    t.checkExpect(stack.remove(), 38);
+    stack.add(100);
+    t.checkExpect(stack.remove(), 100);
+    t.checkExpect(stack.size, 38);
+    t.checkException(new IllegalStateException("Can't remove from an empty collection!"),
+        new Stack<Vertex>(), "remove");
+  }
+
+  // tests for add(T), remove() and isEmpty() on a Queue
+  void testQueue(Tester t) {
+    Queue<Integer> queue = new Queue<Integer>();
+    t.checkExpect(queue.isEmpty(), true);
+    // wraps the head around before growing
+    for (int i = 0; i < 10; i += 1) {
+      queue.add(i);
+      queue.remove();
+    }
+    for (int i = 0; i < 40; i += 1) {
+      queue.add(i);
+    }
+    t.checkExpect(queue.contents.length, 64);
+    for (int i = 0; i < 40; i += 1) {
+      t.checkExpect(queue.remove(), i);
+    }
+    t.checkExpect(queue.isEmpty(), true);
+    t.checkException(new IllegalStateException("Can't remove from an empty collection!"),
+        queue, "remove");
+  }
+
+  // tests for add(int), remove(), isEmpty() and clear() on an IntStack
+  void testIntStack(Tester t) {
+    IntStack stack = new IntStack();
+    t.checkExpect(stack.isEmpty(), true);
+    for (int i = 0; i < 40; i += 1) {
+      stack.add(i);
+    }
+    t.checkExpect(stack.remove(), 39);
+    t.checkExpect(stack.peek(), 38);
+    t.checkExpect(stack.remove(), 38);
+    t.checkExpect(stack.isEmpty(), false);
+    stack.clear();
+    t.checkExpect(stack.isEmpty(), true);
+    t.checkException(new IllegalStateException("Can't remove from an empty collection!"),
+        stack, "remove");
+  }
+
+  // tests for add(int), remove(), isEmpty() and clear() on an IntQueue
+  void testIntQueue(Tester t) {
+    IntQueue queue = new IntQueue();
+    for (int i = 0; i < 10; i += 1) {
+      queue.add(i);
+      queue.remove();
+    }
+    for (int i = 0; i < 40; i += 1) {
+      queue.add(i);
+    }
+    t.checkExpect(queue.contents.length, 64);
+    for (int i = 0; i < 40; i += 1) {
+      t.checkExpect(queue.remove(), i);
+    }
+    t.checkExpect(queue.isEmpty(), true);
+    queue.add(7);
+    queue.clear();
+    t.checkExpect(queue.isEmpty(), true);
+    t.checkException(new IllegalStateException("Can't remove from an empty collection!"),
+        queue, "remove");
+  }
+
+  // BucketOrder
+  // tests for the BucketOrder constructor
+  void testBucketOrder(Tester t) {
+    BucketOrder sorted = new BucketOrder(new int[] { 3, 1, 199, 1, 0, 3 });
+    t.checkExpect(sorted.order, new int[] { 4, 1, 3, 0, 5, 2 });
+    t.checkExpect(sorted.start.length, 201);
+    t.checkExpect(sorted.start[1], 1);
+    t.checkExpect(sorted.start[3], 3);
+    t.checkExpect(sorted.start[200], 6);
+    t.checkExpect(new BucketOrder(new int[0]).order, new int[0]);
+    t.checkConstructorException(new IllegalArgumentException("Weights can't be negative!"),
+        "BucketOrder", new int[] { 2, -1 });
+  }
+
+  // tests for sort(int[])
+  void testBucketOrderSort(Tester t) {
+    BucketOrder sorted = new BucketOrder(new int[] { 3, 1, 199, 1, 0, 3 });
+    int[] start = sorted.start;
+    int[] order = sorted.order;
+    // the same number of lighter weights reuses both arrays
+    sorted.sort(new int[] { 2, 0, 2, 1, 0, 5 });
+    t.checkExpect(sorted.start == start, true);
+    t.checkExpect(sorted.order == order, true);
+    t.checkExpect(sorted.order, new int[] { 1, 4, 3, 0, 2, 5 });
+    t.checkExpect(sorted.start[0], 0);
+    t.checkExpect(sorted.start[1], 2);
+    t.checkExpect(sorted.start[2], 3);
+    t.checkExpect(sorted.start[3], 5);
+    t.checkExpect(sorted.start[200], 6);
+    // heavier weights or a different number of them need new arrays
+    sorted.sort(new int[] { 300, 2 });
+    t.checkExpect(sorted.start.length, 302);
+    t.checkExpect(sorted.order, new int[] { 1, 0 });
+    t.checkException(new IllegalArgumentException("Weights can't be negative!"), sorted,
+        "sort", new int[] { -3 });
+  }
+
+  // tests for reconstruct(int[], int)
   void testReconstruct(Tester t) {
     this.initData();
-    HashMap<Vertex, Vertex> hash1 = new HashMap<Vertex, Vertex>();
-    hash1.put(this.vertexOne0, this.vertexZero0);
-    hash1.put(this.vertexOne1, this.vertexOne0);
+    // 10 came from 00 and 11 came from 10
+    int[] cameFrom = new int[] { 0, 0, 0, 1 };
     t.checkExpect(this.maze2x2.answer.size(), 0);
-    this.maze2x2.reconstruct(hash1, this.vertexOne1);
+    this.maze2x2.reconstruct(cameFrom, 3);
     t.checkExpect(this.maze2x2.answer,
         new ArrayList<Vertex>(Arrays.asList(this.vertexZero0, this.vertexOne0, this.vertexOne1)));
   }
@@ -1244,57 +1721,2019 @@ class ExamplesMaze {
   }
   */
 
+  // tests for searchHelp(ICollection<Vertex>) on a grid with known passages
+  void testSearchHelpGrid(Tester t) {
+    this.initData();
+    // 00 - 10
+    // |     |
+    // 01   11
+    this.maze2x2.grid.open(0, MazeGrid.EAST);
+    this.maze2x2.grid.open(0, MazeGrid.SOUTH);
+    this.maze2x2.grid.open(1, MazeGrid.SOUTH);
+    t.checkExpect(this.maze2x2.searchHelp(new Queue<Vertex>()), new ArrayList<Vertex>(
+        Arrays.asList(this.vertexZero0, this.vertexOne0, this.vertexZero1, this.vertexOne1)));
+    t.checkExpect(this.maze2x2.answer,
+        new ArrayList<Vertex>(Arrays.asList(this.vertexZero0, this.vertexOne0, this.vertexOne1)));
+    t.checkExpect(this.maze2x2.searchHelp(new Stack<Vertex>()), new ArrayList<Vertex>(
+        Arrays.asList(this.vertexZero0, this.vertexZero1, this.vertexOne0, this.vertexOne1)));
+    t.checkExpect(this.maze2x2.answer,
+        new ArrayList<Vertex>(Arrays.asList(this.vertexZero0, this.vertexOne0, this.vertexOne1)));
+  }
+
   // tests for setVertexEdges()
   void testSetVertexEdges(Tester t) {
     this.initData();
-    t.checkExpect(this.maze2x2.findVertex(new Posn(0, 0)).outEdges.size(), 2);
-    t.checkExpect(this.maze2x2.findVertex(new Posn(0, 0)).outEdges.size(), 2);
-    t.checkExpect(this.maze2x2.findVertex(new Posn(0, 1)).outEdges.size(), 2);
-    t.checkExpect(this.maze2x2.findVertex(new Posn(1, 0)).outEdges.size(), 2);
-    t.checkExpect(this.maze2x2.findVertex(new Posn(1, 1)).outEdges.size(), 2);
-    t.checkExpect(this.maze2x2.allEdges.size(), 0);
+    int[] weights = this.maze2x2.buffers().kruskal.weights;
+    t.checkExpect(weights.length, 8);
     this.maze2x2.setVertexEdges();
-    t.checkExpect(this.maze2x2.allEdges.size(), 4);
+    EdgeWeights expected = new EdgeWeights(this.maze2x2.seed, EdgeWeights.NO_BIAS);
+    // 00 east, 00 south, 10 south and 01 east are passages, the rest are on the edge
+    t.checkExpect(weights, new int[] { expected.weight(0), expected.weight(1),
+        GridKruskal.LEFT_OUT, expected.weight(3), expected.weight(4), GridKruskal.LEFT_OUT,
+        GridKruskal.LEFT_OUT, GridKruskal.LEFT_OUT });
   }
 
-  // tests for setVertexEdges()
+  // tests for setVertexEdgesX()
   void testSetVertexEdgesX(Tester t) {
     this.initData();
-    t.checkExpect(this.maze2x2.findVertex(new Posn(0, 0)).outEdges.size(), 2);
-    t.checkExpect(this.maze2x2.findVertex(new Posn(0, 0)).outEdges.size(), 2);
-    t.checkExpect(this.maze2x2.findVertex(new Posn(0, 1)).outEdges.size(), 2);
-    t.checkExpect(this.maze2x2.findVertex(new Posn(1, 0)).outEdges.size(), 2);
-    t.checkExpect(this.maze2x2.findVertex(new Posn(1, 1)).outEdges.size(), 2);
-    t.checkExpect(this.maze2x2.allEdges.size(), 0);
+    int[] weights = this.maze2x2.buffers().kruskal.weights;
+    t.checkExpect(weights.length, 8);
     this.maze2x2.setVertexEdgesX();
-    t.checkExpect(this.maze2x2.allEdges.size(), 4);
+    EdgeWeights expected = new EdgeWeights(this.maze2x2.seed, EdgeWeights.BIAS_X);
+    // 00 east, 00 south, 10 south and 01 east are passages, the rest are on the edge
+    t.checkExpect(weights, new int[] { expected.weight(0), expected.weight(1),
+        GridKruskal.LEFT_OUT, expected.weight(3), expected.weight(4), GridKruskal.LEFT_OUT,
+        GridKruskal.LEFT_OUT, GridKruskal.LEFT_OUT });
   }
 
-  // tests for setVertexEdges()
+  // tests for setVertexEdgesY()
   void testSetVertexEdgesY(Tester t) {
     this.initData();
-    t.checkExpect(this.maze2x2.findVertex(new Posn(0, 0)).outEdges.size(), 2);
-    t.checkExpect(this.maze2x2.findVertex(new Posn(0, 0)).outEdges.size(), 2);
-    t.checkExpect(this.maze2x2.findVertex(new Posn(0, 1)).outEdges.size(), 2);
-    t.checkExpect(this.maze2x2.findVertex(new Posn(1, 0)).outEdges.size(), 2);
-    t.checkExpect(this.maze2x2.findVertex(new Posn(1, 1)).outEdges.size(), 2);
-    t.checkExpect(this.maze2x2.allEdges.size(), 0);
+    int[] weights = this.maze2x2.buffers().kruskal.weights;
+    t.checkExpect(weights.length, 8);
     this.maze2x2.setVertexEdgesY();
-    t.checkExpect(this.maze2x2.allEdges.size(), 4);
+    EdgeWeights expected = new EdgeWeights(this.maze2x2.seed, EdgeWeights.BIAS_Y);
+    // 00 east, 00 south, 10 south and 01 east are passages, the rest are on the edge
+    t.checkExpect(weights, new int[] { expected.weight(0), expected.weight(1),
+        GridKruskal.LEFT_OUT, expected.weight(3), expected.weight(4), GridKruskal.LEFT_OUT,
+        GridKruskal.LEFT_OUT, GridKruskal.LEFT_OUT });
   }
 
-  // tests for union(HashMap<Vertex, Vertex>, Vertex, Vertex)
+  // tests for setVertexEdges(EdgeWeights)
+  void testSetVertexEdgesWeights(Tester t) {
+    this.initData();
+    EdgeWeights weights = new EdgeWeights(9, EdgeWeights.BIAS_X);
+    this.maze2x2.setVertexEdges(weights);
+    int[] passageWeights = this.maze2x2.buffers().kruskal.weights;
+    t.checkExpect(passageWeights[3], weights.weight(3));
+    t.checkExpect(passageWeights[1] >= 100, true);
+    t.checkExpect(passageWeights[4] < 100, true);
+    t.checkExpect(passageWeights[7], GridKruskal.LEFT_OUT);
+  }
+
+  // tests for the seed of a Maze
+  void testSeed(Tester t) {
+    Maze maze = new Maze(new Posn(20, 10), 42);
+    Maze again = new Maze(new Posn(20, 10), 42);
+    t.checkExpect(maze.seed, 42L);
+    t.checkExpect(maze.grid.passages, again.grid.passages);
+    t.checkExpect(maze.ensureAnswer().size(), again.ensureAnswer().size());
+    t.checkExpect(Arrays.equals(new Maze(new Posn(20, 10), 43).grid.passages,
+        maze.grid.passages), false);
+    // every key that makes a new maze takes the next seed, the same way each time
+    maze.onKeyEvent("r");
+    again.onKeyEvent("r");
+    t.checkExpect(maze.seed == 42, false);
+    t.checkExpect(maze.grid.passages, again.grid.passages);
+    maze.onKeyEvent("y");
+    again.onKeyEvent("y");
+    t.checkExpect(maze.grid.passages, again.grid.passages);
+    maze.onKeyEvent("g");
+    again.onKeyEvent("g");
+    t.checkExpect(maze.grid.passages, again.grid.passages);
+    // the examples constructor takes its seed from the Random
+    t.checkExpect(new Maze(new Posn(2, 2), new Random(7)).seed, new Random(7).nextLong());
+  }
+
+  // tests for union(int, int)
   void testUnion(Tester t) {
+    UnionFind sets = new UnionFind(4);
+    t.checkExpect(sets.union(0, 1), true);
+    t.checkExpect(sets.find(1), 0);
+    t.checkExpect(sets.rank[0], (byte) 1);
+    t.checkExpect(sets.union(1, 0), false);
+    // the single cell goes under the taller tree
+    t.checkExpect(sets.union(2, 1), true);
+    t.checkExpect(sets.find(2), 0);
+    t.checkExpect(sets.rank[0], (byte) 1);
+    t.checkExpect(sets.union(3, 2), true);
+    t.checkExpect(sets.find(3), 0);
+    sets.reset();
+    t.checkExpect(sets.find(3), 3);
+    t.checkExpect(sets.rank[0], (byte) 0);
+  }
+
+  // tests for CountingUnionFind
+  void testCountingUnionFind(Tester t) {
+    CountingUnionFind sets = new CountingUnionFind(4);
+    t.checkExpect(sets.union(0, 1), true);
+    t.checkExpect(sets.find(1), 0);
+    t.checkExpect(sets.union(1, 0), false);
+    t.checkExpect(sets.union(2, 1), true);
+    t.checkExpect(sets.find(2), 0);
+    t.checkExpect(sets.union(3, 2), true);
+    t.checkExpect(sets.find(3), 0);
+    // six finds went up one step
+    t.checkExpect(sets.findSteps, 6L);
+    t.checkExpect(sets.deepestFind, 1);
+    sets.reset();
+    t.checkExpect(sets.find(3), 3);
+    t.checkExpect(sets.findSteps, 0L);
+    t.checkExpect(sets.deepestFind, 0);
+  }
+
+  // tests for vertexAt(int)
+  void testVertexAt(Tester t) {
+    this.initData();
+    t.checkExpect(this.maze2x2.vertexAt(0), this.vertexZero0);
+    t.checkExpect(this.maze2x2.vertexAt(1), this.vertexOne0);
+    t.checkExpect(this.maze3x3.vertexAt(5), this.vertex21);
+  }
+
+  // tests for movePointer(int)
+  void testMovePointer(Tester t) {
+    this.initData();
+    this.maze2x2.grid.open(0, MazeGrid.EAST);
+    this.maze2x2.movePointer(MazeGrid.SOUTH);
+    t.checkExpect(this.maze2x2.pointer, this.vertexZero0);
+    this.maze2x2.movePointer(MazeGrid.NORTH);
+    t.checkExpect(this.maze2x2.pointer, this.vertexZero0);
+    this.maze2x2.movePointer(MazeGrid.EAST);
+    t.checkExpect(this.maze2x2.pointer, this.vertexOne0);
+    this.maze2x2.movePointer(MazeGrid.WEST);
+    t.checkExpect(this.maze2x2.pointer, this.vertexZero0);
+  }
+
+  // MazeGrid
+  // tests MazeGrid constructor creation
+  void testMazeGridCreation(Tester t) {
+    t.checkConstructorException(
+        new IllegalArgumentException("Maze has to be bigger than 1 dimension!"), "MazeGrid", 1, 5);
+    t.checkConstructorException(
+        new IllegalArgumentException("Maze is too big!"), "MazeGrid", 100000, 100000);
+    t.checkExpect(new MazeGrid(2, 2).passages.length, 1);
+    t.checkExpect(new MazeGrid(8, 5).passages.length, 2);
+    t.checkExpect(new MazeGrid(8, 5).passageWords(), 2);
+    t.checkExpect(new MazeGrid(8, 5, false).passages, null);
+  }
+
+  // tests for cell(int, int), cellX(int) and cellY(int)
+  void testCell(Tester t) {
+    MazeGrid grid = new MazeGrid(3, 2);
+    t.checkExpect(grid.size(), 6);
+    t.checkExpect(grid.cell(0, 0), 0);
+    t.checkExpect(grid.cell(2, 1), 5);
+    t.checkExpect(grid.cellX(4), 1);
+    t.checkExpect(grid.cellY(4), 1);
+  }
+
+  // tests for hasNeighbor(int, int) and neighbor(int, int)
+  void testNeighbor(Tester t) {
+    MazeGrid grid = new MazeGrid(3, 2);
+    t.checkExpect(grid.hasNeighbor(0, MazeGrid.NORTH), false);
+    t.checkExpect(grid.hasNeighbor(0, MazeGrid.WEST), false);
+    t.checkExpect(grid.hasNeighbor(2, MazeGrid.EAST), false);
+    t.checkExpect(grid.hasNeighbor(4, MazeGrid.SOUTH), false);
+    t.checkExpect(grid.hasNeighbor(1, MazeGrid.SOUTH), true);
+    t.checkExpect(grid.neighbor(1, MazeGrid.EAST), 2);
+    t.checkExpect(grid.neighbor(1, MazeGrid.SOUTH), 4);
+    t.checkExpect(grid.neighbor(4, MazeGrid.WEST), 3);
+    t.checkExpect(grid.neighbor(4, MazeGrid.NORTH), 1);
+  }
+
+  // tests for passage(int, int) and the passage getters
+  void testPassage(Tester t) {
+    MazeGrid grid = new MazeGrid(3, 2);
+    t.checkExpect(grid.passage(1, MazeGrid.EAST), 2);
+    t.checkExpect(grid.passage(2, MazeGrid.WEST), 2);
+    t.checkExpect(grid.passage(1, MazeGrid.SOUTH), 3);
+    t.checkExpect(grid.passage(4, MazeGrid.NORTH), 3);
+    t.checkExpect(grid.passageCell(3), 1);
+    t.checkExpect(grid.passageDirection(3), MazeGrid.SOUTH);
+    t.checkExpect(grid.passageNeighbor(3), 4);
+    t.checkExpect(grid.isPassage(3), true);
+    t.checkExpect(grid.isPassage(4), false);
+    t.checkExpect(grid.isPassage(7), false);
+    t.checkExpect(grid.isPassage(12), false);
+  }
+
+  // tests for open(int, int), isOpen(int, int) and clear()
+  void testOpen(Tester t) {
+    MazeGrid grid = new MazeGrid(40, 2);
+    t.checkExpect(grid.isOpen(1, MazeGrid.SOUTH), false);
+    grid.open(41, MazeGrid.NORTH);
+    t.checkExpect(grid.isOpen(1, MazeGrid.SOUTH), true);
+    t.checkExpect(grid.isOpen(41, MazeGrid.NORTH), true);
+    t.checkExpect(grid.isOpen(41, MazeGrid.EAST), false);
+    grid.open(39, MazeGrid.SOUTH);
+    t.checkExpect(grid.isPassageOpen(79), true);
+    t.checkExpect(grid.passages[1], 1L << 15);
+    t.checkExpect(grid.isOpen(39, MazeGrid.EAST), false);
+    grid.clear();
+    t.checkExpect(grid.isOpen(1, MazeGrid.SOUTH), false);
+    t.checkExpect(grid.isOpen(39, MazeGrid.SOUTH), false);
+  }
+
+  // tests for isPerfect()
+  void testIsPerfect(Tester t) {
+    MazeGrid grid = new MazeGrid(2, 2);
+    t.checkExpect(grid.isPerfect(), false);
+    grid.open(0, MazeGrid.EAST);
+    grid.open(0, MazeGrid.SOUTH);
+    t.checkExpect(grid.isPerfect(), false);
+    grid.open(1, MazeGrid.SOUTH);
+    t.checkExpect(grid.isPerfect(), true);
+    grid.open(2, MazeGrid.EAST);
+    t.checkExpect(grid.isPerfect(), false);
+  }
+
+  // EdgeWeights
+  // tests for weight(int)
+  void testWeight(Tester t) {
+    EdgeWeights none = new EdgeWeights(42, EdgeWeights.NO_BIAS);
+    EdgeWeights biasX = new EdgeWeights(42, EdgeWeights.BIAS_X);
+    EdgeWeights biasY = new EdgeWeights(42, EdgeWeights.BIAS_Y);
+    boolean inRange = true;
+    for (int p = 0; p < 1000; p += 2) {
+      inRange = inRange && none.weight(p) >= 0 && none.weight(p) < 100
+          && none.weight(p + 1) >= 0 && none.weight(p + 1) < 100
+          && biasX.weight(p) == none.weight(p) && biasX.weight(p + 1) == none.weight(p + 1) + 100
+          && biasY.weight(p) == none.weight(p) + 100 && biasY.weight(p + 1) == none.weight(p + 1);
+    }
+    t.checkExpect(inRange, true);
+    t.checkExpect(none.weight(17), new EdgeWeights(42, EdgeWeights.NO_BIAS).weight(17));
+    t.checkExpect(none.hash(17) == new EdgeWeights(43, EdgeWeights.NO_BIAS).hash(17), false);
+    t.checkConstructorException(
+        new IllegalArgumentException("Bias has to be NO_BIAS, BIAS_X or BIAS_Y!"), "EdgeWeights",
+        1L, 3);
+  }
+
+  // ParallelKruskal
+  // tests for generate(MazeGrid, EdgeWeights)
+  void testParallelKruskal(Tester t) {
+    EdgeWeights weights = new EdgeWeights(7, EdgeWeights.NO_BIAS);
+    MazeGrid oneThread = new MazeGrid(150, 200);
+    MazeGrid fourThreads = new MazeGrid(150, 200);
+    new ParallelKruskal(new ForkJoinPool(1)).generate(oneThread, weights);
+    new ParallelKruskal(new ForkJoinPool(4)).generate(fourThreads, weights);
+    t.checkExpect(oneThread.isPerfect(), true);
+    t.checkExpect(fourThreads.passages, oneThread.passages);
+    // the same maze as plain Kruskal's, whatever the strips or the bias
+    MazeGrid plain = new MazeGrid(150, 200);
+    new KruskalGenerator().generate(plain, 7, EdgeWeights.NO_BIAS);
+    t.checkExpect(oneThread.passages, plain.passages);
+    MazeGrid biased = new MazeGrid(33, 130);
+    MazeGrid plainBiased = new MazeGrid(33, 130);
+    new ParallelKruskal().generate(biased, 9, EdgeWeights.BIAS_Y);
+    new KruskalGenerator().generate(plainBiased, 9, EdgeWeights.BIAS_Y);
+    t.checkExpect(biased.passages, plainBiased.passages);
+    // the bottom rows of the strips are as open as any other row, not a wall with one gap
+    MazeGrid square = new MazeGrid(200, 200);
+    new ParallelKruskal().generate(square, new EdgeWeights(7, EdgeWeights.NO_BIAS));
+    for (int y = ParallelKruskal.STRIP_HEIGHT - 1; y < 199; y += ParallelKruskal.STRIP_HEIGHT) {
+      int open = 0;
+      for (int x = 0; x < 200; x += 1) {
+        if (square.isOpen(square.cell(x, y), MazeGrid.SOUTH)) {
+          open += 1;
+        }
+      }
+      t.checkExpect(open > 50, true);
+    }
+    // a maze shorter than a strip is plain Kruskal's
+    MazeGrid small = new MazeGrid(5, 3);
+    new ParallelKruskal().generate(small, new EdgeWeights(7, EdgeWeights.BIAS_X));
+    t.checkExpect(small.isPerfect(), true);
+    // heights that aren't a number of strips, and every bias
+    for (int i = 0; i < 12; i += 1) {
+      MazeGrid strips = new MazeGrid(3 + 7 * i, 65 + 23 * i);
+      MazeGrid whole = new MazeGrid(3 + 7 * i, 65 + 23 * i);
+      new ParallelKruskal(new ForkJoinPool(3)).generate(strips, 100 + i, i % 3);
+      new KruskalGenerator().generate(whole, 100 + i, i % 3);
+      t.checkExpect(strips.passages, whole.passages);
+    }
+  }
+
+  // tests for run() and open() of a KruskalStrip, and join(ArrayList<KruskalStrip>)
+  void testKruskalStrip(Tester t) {
+    MazeGrid grid = new MazeGrid(100, 128);
+    EdgeWeights weights = new EdgeWeights(3, EdgeWeights.NO_BIAS);
+    UnionFind sets = new UnionFind(grid.size());
+    ArrayList<KruskalStrip> strips = new ArrayList<KruskalStrip>();
+    strips.add(new KruskalStrip(grid, weights, sets, 0, 64));
+    strips.add(new KruskalStrip(grid, weights, sets, 64, 128));
+    for (KruskalStrip strip : strips) {
+      strip.run();
+    }
+    // only the paths between key cells and the 100 passages down go to the last pass,
+    // in passage order, a lot fewer than the strip tree's 6399 passages
+    KruskalStrip upper = strips.get(0);
+    t.checkExpect(upper.kruskal.treeSize, 6399);
+    t.checkExpect(upper.count < upper.keyCount + 100, true);
+    t.checkExpect(upper.count < 1500, true);
+    t.checkExpect(upper.keys[0], -1); // the top row of the first strip isn't next to one
+    t.checkExpect(upper.keys[63 * 100] >= 0, true);
+    boolean ordered = true;
+    for (int i = 1; i < upper.count; i += 1) {
+      ordered = ordered && upper.passages[i - 1] < upper.passages[i];
+    }
+    t.checkExpect(ordered, true);
+    t.checkExpect(upper.passages[upper.count - 1], grid.passage(63 * 100 + 99, MazeGrid.SOUTH));
+    // the last strip has nothing down to a next strip
+    t.checkExpect(strips.get(1).passages[0] >= 2 * 64 * 100, true);
+    boolean[] kept = ParallelKruskal.join(strips);
+    t.checkExpect(kept.length, upper.count + strips.get(1).count);
+    t.checkExpect(strips.get(1).firstPassage, upper.count);
+    t.checkExpect(strips.get(1).firstKey, upper.keyCount);
+    for (KruskalStrip strip : strips) {
+      strip.kept = kept;
+      strip.open();
+    }
+    MazeGrid whole = new MazeGrid(100, 128);
+    new KruskalGenerator().generate(whole, 3, EdgeWeights.NO_BIAS);
+    t.checkExpect(grid.passages, whole.passages);
+  }
+
+  // tests for nextGenerator()
+  void testNextGenerator(Tester t) {
     this.initData();
-    // 00 | 01 <- 10 <- 11
-    HashMap<Vertex, Vertex> hash1 = new HashMap<Vertex, Vertex>();
-    hash1.put(this.vertexZero0, this.vertexZero0);
-    hash1.put(this.vertexZero1, this.vertexZero1);
-    hash1.put(this.vertexOne0, this.vertexZero1);
-    hash1.put(this.vertexOne1, this.vertexOne0);
-    t.checkExpect(this.maze2x2.findRepresentative(hash1, this.vertexZero0), this.vertexZero0);
-    this.maze2x2.union(hash1, this.vertexZero0, this.vertexOne1);
-    t.checkExpect(this.maze2x2.findRepresentative(hash1, this.vertexZero0), this.vertexZero1);
+    t.checkExpect(this.maze2x2.nextGenerator().name(), "kruskal");
+    this.maze2x2.generator = new PrimGenerator();
+    t.checkExpect(this.maze2x2.nextGenerator().name(), "wilson");
+    this.maze2x2.generator = new EllerMazeGenerator();
+    t.checkExpect(this.maze2x2.nextGenerator().name(), "kruskal");
+  }
+
+  // tests for generateWith(MazeGenerator, long, int)
+  void testGenerateWith(Tester t) {
+    Maze maze = new Maze(new Posn(6, 4), new Random(0));
+    maze.createBoard();
+    maze.setVertexEdges();
+    maze.generateWith(new BacktrackerGenerator(), 5, EdgeWeights.NO_BIAS);
+    t.checkExpect(maze.usedCount, 23);
+    t.checkExpect(maze.grid.isPerfect(), true);
+    maze.searchHelp(new Queue<Vertex>());
+    t.checkExpect(maze.answer.get(maze.answer.size() - 1), maze.vertexAt(23));
+  }
+
+  // MazeGenerator
+  // tests for generate(MazeGrid, long, int) on every generator
+  void testGenerators(Tester t) {
+    for (MazeGenerator generator : MazeGenerator.all()) {
+      for (int bias = EdgeWeights.NO_BIAS; bias <= EdgeWeights.BIAS_Y; bias += 1) {
+        MazeGrid grid = new MazeGrid(67, 45);
+        generator.generate(grid, 9, bias);
+        t.checkExpect(grid.isPerfect(), true, generator.name());
+        MazeGrid again = new MazeGrid(67, 45);
+        generator.generate(again, 9, bias);
+        t.checkExpect(again.passages, grid.passages, generator.name());
+      }
+    }
+  }
+
+  // tests for byName(String)
+  void testByName(Tester t) {
+    t.checkExpect(MazeGenerator.byName("wilson").name(), "wilson");
+    t.checkExpect(MazeGenerator.byName("parallel-kruskal").name(), "parallel-kruskal");
+    t.checkException(new IllegalArgumentException("There is no generator called maze!"),
+        this, "byNameHelp", "maze");
+  }
+
+  // calls MazeGenerator.byName, for checkException
+  MazeGenerator byNameHelp(String name) {
+    return MazeGenerator.byName(name);
+  }
+
+  // tests for pickDirection(SplittableRandom, int[], int, int)
+  void testPickDirection(Tester t) {
+    SplittableRandom random = new SplittableRandom(1);
+    int[] options = new int[] { MazeGrid.EAST, MazeGrid.SOUTH };
+    int across = 0;
+    for (int i = 0; i < 4000; i += 1) {
+      if (MazeGenerator.pickDirection(random, options, 2, EdgeWeights.BIAS_X) == MazeGrid.EAST) {
+        across += 1;
+      }
+    }
+    t.checkRange(across, 2800, 3200);
+    t.checkExpect(MazeGenerator.pickDirection(random, options, 1, EdgeWeights.BIAS_Y),
+        MazeGrid.EAST);
+  }
+
+  // tests for generateTimed(MazeGrid, long, int)
+  void testGenerateTimed(Tester t) {
+    GenerationReport report = new SidewinderGenerator().generateTimed(new MazeGrid(30, 20), 1,
+        EdgeWeights.NO_BIAS);
+    t.checkExpect(report.generator, "sidewinder");
+    t.checkExpect(report.cells, 600);
+    t.checkExpect(report.cellsPerSecond() > 0, true);
+    t.checkExpect(new GenerationReport("prim", 1000, 2000000).toString(),
+        "prim: 1000 cells in 2.00 ms (0.50 M cells/s)");
+  }
+
+  // LongHeap
+  // tests for add(long), remove() and isEmpty()
+  void testLongHeap(Tester t) {
+    LongHeap heap = new LongHeap();
+    SplittableRandom random = new SplittableRandom(3);
+    for (int i = 0; i < 100; i += 1) {
+      heap.add(random.nextInt(50));
+    }
+    boolean sorted = true;
+    long last = heap.remove();
+    while (!heap.isEmpty()) {
+      long next = heap.remove();
+      sorted = sorted && last <= next;
+      last = next;
+    }
+    t.checkExpect(sorted, true);
+    heap.add(4);
+    heap.clear();
+    t.checkExpect(heap.isEmpty(), true);
+    t.checkException(new IllegalStateException("Can't remove from an empty collection!"),
+        heap, "remove");
+  }
+
+  // EllerGenerator
+  // tests for generate(int, long, int, IRowSink) into a GridRowSink
+  void testEllerGenerator(Tester t) {
+    MazeGrid grid = new MazeGrid(37, 50);
+    new EllerGenerator(37).generate(50, 3, EdgeWeights.NO_BIAS, new GridRowSink(grid));
+    t.checkExpect(grid.isPerfect(), true);
+    MazeGrid again = new MazeGrid(37, 50);
+    new EllerGenerator(37).generate(50, 3, EdgeWeights.NO_BIAS, new GridRowSink(again));
+    t.checkExpect(again.passages, grid.passages);
+    MazeGrid biased = new MazeGrid(70, 2);
+    new EllerGenerator(70).generate(2, 3, EdgeWeights.BIAS_Y, new GridRowSink(biased));
+    t.checkExpect(biased.isPerfect(), true);
+    t.checkConstructorException(
+        new IllegalArgumentException("Maze has to be bigger than 1 dimension!"),
+        "EllerGenerator", 1);
+  }
+
+  // tests for generate(int, long, int, IRowSink) into a StreamRowSink
+  void testStreamRowSink(Tester t) {
+    MazeGrid grid = new MazeGrid(13, 9);
+    new EllerGenerator(13).generate(9, 11, EdgeWeights.BIAS_X, new GridRowSink(grid));
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    new EllerGenerator(13).generate(9, 11, EdgeWeights.BIAS_X, new StreamRowSink(out, 13));
+    byte[] bytes = out.toByteArray();
+    t.checkExpect(bytes.length, (2 * 13 * 9 + 7) / 8);
+    boolean same = true;
+    for (int p = 0; p < 2 * grid.size(); p += 1) {
+      same = same && grid.isPassageOpen(p) == ((bytes[p >>> 3] & (1 << (p & 7))) != 0);
+    }
+    t.checkExpect(same, true);
+    // only the current row is ever handed out
+    int[] rows = new int[1];
+    new EllerGenerator(13).generate(9, 11, EdgeWeights.NO_BIAS, (y, east, south) -> {
+      rows[0] += 1;
+    });
+    t.checkExpect(rows[0], 9);
+  }
+
+  // GridSolver
+  // tests for solve(MazeGrid, IIntCollection)
+  void testGridSolver(Tester t) {
+    MazeGrid grid = new MazeGrid(2, 2);
+    grid.open(0, MazeGrid.SOUTH);
+    grid.open(2, MazeGrid.EAST);
+    grid.open(0, MazeGrid.EAST);
+    GridSolver solver = new GridSolver();
+    t.checkExpect(solver.solve(grid, new IntQueue()), new int[] { 0, 2, 3 });
+    t.checkExpect(solver.seenCount, 4);
+    t.checkExpect(solver.solve(grid, new IntStack()), new int[] { 0, 2, 3 });
+    t.checkExpect(solver.seenCount, 3);
+    grid.clear();
+    t.checkExpect(solver.solve(grid, new IntQueue()), new int[0]);
+    t.checkExpect(solver.search(grid, new IntQueue()), false);
+    grid.open(0, MazeGrid.EAST);
+    grid.open(1, MazeGrid.SOUTH);
+    t.checkExpect(solver.search(grid, new IntStack()), true);
+    t.checkExpect(solver.cameFrom[3], 1);
+    // matches searchHelp on a bigger maze
+    Maze maze = new Maze(new Posn(30, 20));
+    int[] path = solver.solve(maze.grid, new IntStack());
+    t.checkExpect(path.length, maze.ensureAnswer().size());
+    t.checkExpect(maze.vertexAt(path[path.length / 2]), maze.answer.get(path.length / 2));
+  }
+
+  // MazeBatch
+  // a 3x3 maze whose path goes 0, 3, 4, 5, 8 with dead ends at 2 and 7
+  MazeGrid forkedGrid() {
+    MazeGrid grid = new MazeGrid(3, 3);
+    grid.open(0, MazeGrid.EAST);
+    grid.open(1, MazeGrid.EAST);
+    grid.open(0, MazeGrid.SOUTH);
+    grid.open(3, MazeGrid.SOUTH);
+    grid.open(3, MazeGrid.EAST);
+    grid.open(4, MazeGrid.EAST);
+    grid.open(5, MazeGrid.SOUTH);
+    grid.open(6, MazeGrid.EAST);
+    return grid;
+  }
+
+  // tests for aStar(MazeGrid, LongHeap)
+  void testAStar(Tester t) {
+    GridSolver solver = new GridSolver();
+    t.checkExpect(solver.aStar(this.forkedGrid(), new LongHeap()), new int[] { 0, 3, 4, 5, 8 });
+    // it never looks at 1 or 2, which go away from the bottom right
+    t.checkExpect(solver.seen(), new int[] { 0, 3, 6, 7, 4, 5, 8 });
+    t.checkExpect(solver.steps[8], 4);
+    MazeGrid closed = new MazeGrid(3, 3);
+    t.checkExpect(solver.aStar(closed, new LongHeap()), new int[0]);
+    t.checkExpect(solver.seenCount, 1);
+    // finds the same (only) path as searchHelp, looking at fewer cells
+    Maze maze = new Maze(new Posn(60, 40));
+    int[] path = solver.aStar(maze.grid, new LongHeap());
+    t.checkExpect(path.length, maze.ensureAnswer().size());
+    t.checkExpect(maze.vertexAt(path[path.length / 2]), maze.answer.get(path.length / 2));
+    int aStarSeen = solver.seenCount;
+    solver.solve(maze.grid, new IntQueue());
+    t.checkExpect(aStarSeen <= solver.seenCount, true);
+  }
+
+  // tests for priority(MazeGrid, int, int)
+  void testPriority(Tester t) {
+    GridSolver solver = new GridSolver();
+    MazeGrid grid = new MazeGrid(3, 3);
+    t.checkExpect(solver.priority(grid, 0, 0), (4L << 32) | 8);
+    t.checkExpect(solver.priority(grid, 8, 4), 4L << 32);
+    t.checkExpect(solver.priority(grid, 5, 3), (4L << 32) | 3);
+    // on a tie the cell further along comes out first
+    t.checkExpect(solver.priority(grid, 4, 2) < solver.priority(grid, 3, 1), true);
+    t.checkExpect(solver.priority(grid, 6, 2) < solver.priority(grid, 4, 2), true);
+  }
+
+  // tests for bidirectional(MazeGrid, IntQueue, IntQueue)
+  void testBidirectional(Tester t) {
+    GridSolver solver = new GridSolver();
+    t.checkExpect(solver.bidirectional(this.forkedGrid(), new IntQueue(), new IntQueue()),
+        new int[] { 0, 3, 4, 5, 8 });
+    // the two searches take turns and meet at 4, which both of them see, so 6 and 7
+    // are never seen
+    t.checkExpect(solver.seen(), new int[] { 0, 8, 1, 3, 5, 2, 4, 4 });
+    MazeGrid corner = new MazeGrid(2, 2);
+    corner.open(0, MazeGrid.EAST);
+    corner.open(1, MazeGrid.SOUTH);
+    t.checkExpect(solver.bidirectional(corner, new IntQueue(), new IntQueue()),
+        new int[] { 0, 1, 3 });
+    // every cell is seen before they meet, and the meeting cell is seen again
+    MazeGrid both = new MazeGrid(2, 2);
+    both.open(0, MazeGrid.EAST);
+    both.open(0, MazeGrid.SOUTH);
+    both.open(2, MazeGrid.EAST);
+    t.checkExpect(solver.bidirectional(both, new IntQueue(), new IntQueue()),
+        new int[] { 0, 2, 3 });
+    t.checkExpect(solver.seen(), new int[] { 0, 3, 1, 2, 2 });
+    t.checkExpect(solver.bidirectional(new MazeGrid(3, 3), new IntQueue(), new IntQueue()),
+        new int[0]);
+    Maze maze = new Maze(new Posn(60, 40));
+    int[] path = solver.bidirectional(maze.grid, new IntQueue(), new IntQueue());
+    t.checkExpect(path.length, maze.ensureAnswer().size());
+    t.checkExpect(maze.vertexAt(path[path.length / 2]), maze.answer.get(path.length / 2));
+  }
+
+  // ParallelBfs
+  // tests for distances(MazeGrid, int)
+  void testParallelBfsDistances(Tester t) {
+    ParallelBfs bfs = new ParallelBfs(new ForkJoinPool(4), 1);
+    t.checkExpect(bfs.distances(this.forkedGrid(), 0),
+        new int[] { 0, 1, 2, 1, 2, 3, 2, 3, 4 });
+    t.checkExpect(bfs.levels, 5);
+    t.checkExpect(bfs.distances(this.forkedGrid(), 4),
+        new int[] { 2, 3, 4, 1, 0, 1, 2, 3, 2 });
+    // a closed grid only reaches the start
+    t.checkExpect(bfs.distances(new MazeGrid(2, 2), 3), new int[] { -1, -1, -1, 0 });
+    // an open grid has loops, so cells are reached from more than one chunk
+    MazeGrid open = new MazeGrid(5, 4);
+    for (int p = 0; p < 2 * open.size(); p += 1) {
+      open.openPassage(p);
+    }
+    int[] distance = bfs.distances(open, 0);
+    t.checkExpect(distance[open.cell(4, 3)], 7);
+    t.checkExpect(distance[open.cell(2, 1)], 3);
+    // the same distances as the TreeIndex depths whatever the chunks and threads
+    MazeGrid grid = new Maze(new Posn(120, 80)).grid;
+    t.checkExpect(new ParallelBfs(new ForkJoinPool(1), 3).distances(grid, 0),
+        new TreeIndex(grid).depth);
+    t.checkExpect(new ParallelBfs().distances(grid, 0), new TreeIndex(grid).depth);
+    t.checkConstructorException(
+        new IllegalArgumentException("Chunks have to have at least 1 cell!"), "ParallelBfs",
+        new ForkJoinPool(1), 0);
+  }
+
+  // tests for chunkSize(int)
+  void testChunkSize(Tester t) {
+    ParallelBfs four = new ParallelBfs(new ForkJoinPool(4), ParallelBfs.CHUNK);
+    // a level is only split past 64 cells, then into 16 chunks
+    t.checkExpect(four.chunkSize(1), 64);
+    t.checkExpect(four.chunkSize(64), 64);
+    t.checkExpect(four.chunkSize(454), 64);
+    t.checkExpect(four.chunkSize(1024), 64);
+    t.checkExpect(four.chunkSize(5000), 313);
+    t.checkExpect(new ParallelBfs(new ForkJoinPool(4), 1).chunkSize(454), 29);
+    // one worker expands every level itself
+    t.checkExpect(new ParallelBfs(new ForkJoinPool(1), 1).chunkSize(454), 454);
+    // wide levels of a grid with loops come out the same split as on one thread
+    MazeGrid open = new MazeGrid(300, 200);
+    for (int p = 0; p < 2 * open.size(); p += 1) {
+      if (open.isPassage(p) && p % 7 != 0) {
+        open.openPassage(p);
+      }
+    }
+    t.checkExpect(four.distances(open, 0),
+        new ParallelBfs(new ForkJoinPool(1), ParallelBfs.CHUNK).distances(open, 0));
+  }
+
+  // tests for solve(MazeGrid) and path(MazeGrid, int)
+  void testParallelBfsSolve(Tester t) {
+    ParallelBfs bfs = new ParallelBfs(new ForkJoinPool(4), 2);
+    t.checkExpect(bfs.solve(this.forkedGrid()), new int[] { 0, 3, 4, 5, 8 });
+    t.checkExpect(bfs.path(this.forkedGrid(), 7), new int[] { 0, 3, 6, 7 });
+    t.checkExpect(bfs.solve(new MazeGrid(3, 3)), new int[0]);
+    MazeGrid open = new MazeGrid(3, 2);
+    for (int p = 0; p < 2 * open.size(); p += 1) {
+      open.openPassage(p);
+    }
+    // with loops it goes back west before north
+    t.checkExpect(bfs.solve(open), new int[] { 0, 3, 4, 5 });
+    // finds the same path as searchHelp with a Queue
+    Maze maze = new Maze(new Posn(90, 60));
+    int[] path = bfs.solve(maze.grid);
+    t.checkExpect(path, new GridSolver().solve(maze.grid, new IntQueue()));
+    ArrayList<Vertex> cells = new ArrayList<Vertex>();
+    for (int cell : path) {
+      cells.add(maze.vertexAt(cell));
+    }
+    t.checkExpect(cells, maze.ensureAnswer());
+  }
+
+  // tests for aStar(), bidirectional() and showSearch(GridSolver, int[])
+  void testShowSearch(Tester t) {
+    Maze maze = new Maze(new Posn(3, 3));
+    maze.grid = this.forkedGrid();
+    maze.answer = new ArrayList<Vertex>();
+    ArrayList<Vertex> seen = maze.aStar();
+    t.checkExpect(seen.size(), 7);
+    t.checkExpect(seen.get(1), maze.vertexAt(3));
+    t.checkExpect(maze.answer, new ArrayList<Vertex>(Arrays.asList(maze.vertexAt(0),
+        maze.vertexAt(3), maze.vertexAt(4), maze.vertexAt(5), maze.vertexAt(8))));
+    // an answer that was already found is kept
+    ArrayList<Vertex> answer = maze.answer;
+    maze.aStar();
+    t.checkExpect(maze.answer == answer, true);
+    maze.answer = new ArrayList<Vertex>();
+    maze.answerFound = false;
+    seen = maze.bidirectional();
+    t.checkExpect(seen.get(1), maze.vertexAt(8));
+    t.checkExpect(maze.answer.size(), 5);
+    // no path leaves the answer alone
+    maze.grid = new MazeGrid(3, 3);
+    seen = maze.aStar();
+    t.checkExpect(seen, new ArrayList<Vertex>(Arrays.asList(maze.vertexAt(0))));
+    t.checkExpect(maze.answer.size(), 5);
+  }
+
+  // tests for the TreeIndex constructor
+  void testTreeIndexCreation(Tester t) {
+    TreeIndex index = new TreeIndex(this.forkedGrid());
+    t.checkExpect(index.parent, new int[] { 0, 0, 1, 0, 3, 4, 3, 6, 5 });
+    t.checkExpect(index.depth, new int[] { 0, 1, 2, 1, 2, 3, 2, 3, 4 });
+    // jumps of 1, 1, 3, 1
+    t.checkExpect(index.jump[3], 0);
+    t.checkExpect(index.jump[4], 3);
+    t.checkExpect(index.jump[5], 0);
+    t.checkExpect(index.jump[8], 5);
+    MazeGrid loop = this.forkedGrid();
+    loop.open(1, MazeGrid.SOUTH);
+    t.checkConstructorException(new IllegalArgumentException("The maze has a loop!"),
+        "TreeIndex", loop);
+    MazeGrid square = new MazeGrid(2, 2);
+    square.open(0, MazeGrid.EAST);
+    square.open(0, MazeGrid.SOUTH);
+    square.open(1, MazeGrid.SOUTH);
+    square.open(2, MazeGrid.EAST);
+    t.checkConstructorException(new IllegalArgumentException("The maze has a loop!"),
+        "TreeIndex", square);
+    t.checkConstructorException(new IllegalArgumentException("The maze isn't connected!"),
+        "TreeIndex", new MazeGrid(3, 3));
+  }
+
+  // tests for ancestor(int, int) and lowestCommonAncestor(int, int)
+  void testLowestCommonAncestor(Tester t) {
+    TreeIndex index = new TreeIndex(this.forkedGrid());
+    t.checkExpect(index.ancestor(8, 1), 3);
+    t.checkExpect(index.ancestor(8, 4), 8);
+    t.checkExpect(index.ancestor(7, 0), 0);
+    t.checkExpect(index.lowestCommonAncestor(2, 8), 0);
+    t.checkExpect(index.lowestCommonAncestor(7, 8), 3);
+    t.checkExpect(index.lowestCommonAncestor(8, 4), 4);
+    t.checkExpect(index.lowestCommonAncestor(6, 6), 6);
+  }
+
+  // tests for distance(int, int) and path(int, int)
+  void testTreePath(Tester t) {
+    TreeIndex index = new TreeIndex(this.forkedGrid());
+    t.checkExpect(index.distance(2, 8), 6);
+    t.checkExpect(index.path(2, 8), new int[] { 2, 1, 0, 3, 4, 5, 8 });
+    t.checkExpect(index.path(7, 8), new int[] { 7, 6, 3, 4, 5, 8 });
+    t.checkExpect(index.path(8, 7), new int[] { 8, 5, 4, 3, 6, 7 });
+    t.checkExpect(index.path(0, 8), new int[] { 0, 3, 4, 5, 8 });
+    t.checkExpect(index.path(5, 5), new int[] { 5 });
+    t.checkExpect(index.distance(5, 5), 0);
+    // matches searching the maze, between any two cells
+    MazeGrid grid = new MazeGrid(60, 40);
+    new KruskalGenerator().generate(grid, 3, EdgeWeights.NO_BIAS);
+    index = new TreeIndex(grid);
+    GridSolver solver = new GridSolver();
+    t.checkExpect(index.path(0, grid.size() - 1), solver.solve(grid, new IntQueue()));
+    Random random = new Random(5);
+    for (int i = 0; i < 20; i += 1) {
+      int from = random.nextInt(grid.size());
+      int to = random.nextInt(grid.size());
+      int[] path = index.path(from, to);
+      t.checkExpect(path.length, index.distance(from, to) + 1);
+      t.checkExpect(path[0], from);
+      t.checkExpect(path[path.length - 1], to);
+      boolean open = true;
+      for (int j = 1; j < path.length; j += 1) {
+        open = open && grid.isPassageOpen(this.passageBetween(grid, path[j - 1], path[j]));
+      }
+      t.checkExpect(open, true);
+    }
+  }
+
+  // returns the passage between two cells next to each other
+  int passageBetween(MazeGrid grid, int from, int to) {
+    return grid.passage(Math.min(from, to), Math.abs(to - from) == 1 ? MazeGrid.EAST
+        : MazeGrid.SOUTH);
+  }
+
+  // tests for regenerate(int)
+  void testRegenerate(Tester t) {
+    Maze maze = new Maze(new Posn(20, 10), 5);
+    int[] weights = maze.buffers().kruskal.weights;
+    int[] usedPassages = maze.usedPassages;
+    MazeGrid grid = maze.grid;
+    maze.onKeyEvent("b");
+    maze.onKeyEvent("m");
+    maze.onKeyEvent("a");
+    maze.onKeyEvent("right");
+    maze.onTick();
+    ArrayList<Vertex> answer = maze.answer;
+    maze.onKeyEvent("r");
+    // the same grid, weights and lists, emptied or filled again in place
+    t.checkExpect(maze.buffers().kruskal.weights == weights, true);
+    t.checkExpect(maze.usedPassages == usedPassages, true);
+    t.checkExpect(maze.answer == answer, true);
+    t.checkExpect(maze.grid == grid, true);
+    t.checkExpect(maze.usedCount, 199);
+    t.checkExpect(maze.grid.isPerfect(), true);
+    t.checkExpect(maze.alreadySeen.size(), 0);
+    t.checkExpect(maze.alreadySeenIndex, 0);
+    t.checkExpect(maze.drawnBoxes.size(), 0);
+    t.checkExpect(maze.currentUsedEdgeIndex, 0);
+    t.checkExpect(maze.manual, false);
+    t.checkExpect(maze.showAnswer, false);
+    t.checkExpect(maze.pointer, maze.vertexAt(0));
+    t.checkExpect(maze.current, maze.vertexAt(0));
+    // the answer isn't found until something needs it
+    t.checkExpect(maze.answerFound, false);
+    t.checkExpect(maze.answer.size(), 0);
+    t.checkExpect(maze.ensureAnswer().get(maze.answer.size() - 1), maze.vertexAt(199));
+
+    // the same maze as building everything again with the same seed
+    Maze rebuilt = new Maze(new Posn(20, 10), 5);
+    rebuilt.grid = null;
+    rebuilt.onKeyEvent("r");
+    t.checkExpect(rebuilt.grid == null, false);
+    t.checkExpect(rebuilt.grid.passages, maze.grid.passages);
+    t.checkExpect(rebuilt.ensureAnswer().size(), maze.answer.size());
+    maze.regenerate(EdgeWeights.BIAS_X);
+    rebuilt.regenerate(EdgeWeights.BIAS_X);
+    t.checkExpect(rebuilt.grid.passages, maze.grid.passages);
+    // every south wall is heavier than every east wall
+    t.checkExpect(maze.findEdge(maze.vertexAt(0), maze.vertexAt(20)).weight >= 100, true);
+    t.checkExpect(maze.findEdge(maze.vertexAt(0), maze.vertexAt(1)).weight < 100, true);
+  }
+
+  // tests for rebuild(int)
+  void testRebuild(Tester t) {
+    Maze maze = new Maze(new Posn(20, 10), 5);
+    MazeGrid grid = maze.grid;
+    maze.onKeyEvent("b");
+    maze.onKeyEvent("m");
+    maze.onKeyEvent("right");
+    maze.rebuild(EdgeWeights.BIAS_Y);
+    // a new board with every wall up, weighed with the seed and bias
+    t.checkExpect(maze.grid == grid, false);
+    t.checkExpect(maze.grid.isPassageOpen(0), false);
+    t.checkExpect(maze.buffers().kruskal.weights[0],
+        new EdgeWeights(maze.seed, EdgeWeights.BIAS_Y).weight(0));
+    t.checkExpect(maze.alreadySeen.size(), 0);
+    t.checkExpect(maze.answerFound, false);
+    t.checkExpect(maze.manual, false);
+    t.checkExpect(maze.currentUsedEdgeIndex, 0);
+    t.checkExpect(maze.pointer, maze.vertexAt(0));
+    t.checkExpect(maze.current, maze.vertexAt(0));
+  }
+
+  // tests for canReuse()
+  void testCanReuse(Tester t) {
+    Maze maze = new Maze(new Posn(4, 3), 1);
+    t.checkExpect(maze.canReuse(), true);
+    maze.grid = null;
+    t.checkExpect(maze.canReuse(), false);
+    maze = new Maze(new Posn(4, 3), 1);
+    maze.grid = new MazeGrid(3, 4);
+    t.checkExpect(maze.canReuse(), false);
+    maze.grid = new MappedMazeGrid(4, 3, LongBuffer.allocate(1));
+    t.checkExpect(maze.canReuse(), false);
+  }
+
+  // tests for regenerate(int) on a maze read from a file that can't be written
+  void testRegenerateReadOnly(Tester t) throws Exception {
+    Maze made = new Maze(new Posn(9, 6), 12);
+    Path path = Files.createTempFile("maze", ".maze");
+    MazeFile.write(path, made.grid, 12, EdgeWeights.NO_BIAS, null);
+    MappedMazeGrid mapped = (MappedMazeGrid) MazeFile.read(path).grid;
+    MazeGrid readOnly = new MappedMazeGrid(9, 6, mapped.words.asReadOnlyBuffer());
+    Maze maze = new Maze(new MazeFile(readOnly, 12, EdgeWeights.NO_BIAS, null, 0));
+    long[] first = made.grid.passages.clone();
+    maze.onKeyEvent("r");
+    made.onKeyEvent("r");
+    // a new board is made instead of knocking down walls in the file's
+    t.checkExpect(maze.grid == readOnly, false);
+    t.checkExpect(maze.grid.passages, made.grid.passages);
+    t.checkExpect(maze.usedCount, 53);
+    maze.onKeyEvent("x");
+    made.onKeyEvent("x");
+    t.checkExpect(maze.grid.passages, made.grid.passages);
+    // and the file still has the first maze
+    t.checkExpect(readOnly.passageWord(0), first[0]);
+    t.checkExpect(MazeFile.read(path).grid.passageWord(1), first[1]);
+    Files.delete(path);
+  }
+
+  // tests for findAnswer() and buffers()
+  void testFindAnswer(Tester t) {
+    Maze maze = new Maze(new Posn(3, 3), 1);
+    maze.grid = this.forkedGrid();
+    ArrayList<Vertex> answer = maze.answer;
+    maze.findAnswer();
+    t.checkExpect(maze.answer == answer, true);
+    t.checkExpect(maze.answer, new ArrayList<Vertex>(Arrays.asList(maze.vertexAt(0),
+        maze.vertexAt(3), maze.vertexAt(4), maze.vertexAt(5), maze.vertexAt(8))));
+    // no path leaves the answer alone
+    maze.grid = new MazeGrid(3, 3);
+    maze.findAnswer();
+    t.checkExpect(maze.answer.size(), 5);
+    MazeBuffers buffers = maze.buffers();
+    t.checkExpect(maze.buffers() == buffers, true);
+    t.checkExpect(buffers.fits(9), true);
+    t.checkExpect(buffers.fits(12), false);
+    t.checkExpect(buffers.kruskal.weights.length, 18);
+    t.checkExpect(buffers.kruskal.tree.length, 8);
+    maze.grid = new MazeGrid(4, 3);
+    t.checkExpect(maze.buffers() == buffers, false);
+  }
+
+  // tests for ensureAnswer() and answerFound
+  void testEnsureAnswer(Tester t) {
+    // making the maze doesn't solve it
+    Maze maze = new Maze(new Posn(20, 10), 5);
+    t.checkExpect(maze.answerFound, false);
+    t.checkExpect(maze.answer.size(), 0);
+    ArrayList<Vertex> answer = maze.ensureAnswer();
+    t.checkExpect(maze.answerFound, true);
+    t.checkExpect(answer.get(0), maze.vertexAt(0));
+    t.checkExpect(answer.get(answer.size() - 1), maze.vertexAt(199));
+    // it's only found once, the searches show their cells and keep it
+    maze.grid = new MazeGrid(20, 10);
+    t.checkExpect(maze.ensureAnswer() == answer, true);
+    maze = new Maze(new Posn(20, 10), 5);
+    answer = maze.ensureAnswer();
+    maze.onKeyEvent("b");
+    maze.onKeyEvent("d");
+    maze.onKeyEvent("w");
+    t.checkExpect(maze.answer == answer, true);
+    t.checkExpect(maze.alreadySeen.size() > 0, true);
+    // a search that gets there first finds it
+    maze = new Maze(new Posn(20, 10), 5);
+    maze.onKeyEvent("b");
+    t.checkExpect(maze.answerFound, true);
+    t.checkExpect(maze.answer.size(), answer.size());
+    // "a", "m" and showing the answer need it
+    maze = new Maze(new Posn(20, 10), 5);
+    maze.onKeyEvent("a");
+    t.checkExpect(maze.answer.size(), answer.size());
+    maze = new Maze(new Posn(20, 10), 5);
+    maze.onKeyEvent("m");
+    t.checkExpect(maze.answerFound, true);
+    maze = new Maze(new Posn(20, 10), 5);
+    maze.showAnswer = true;
+    maze.makeScene();
+    t.checkExpect(maze.answer.size(), answer.size());
+    t.checkExpect(maze.sceneCache.paintedAnswer == maze.answer, true);
+    // a new maze forgets it
+    maze.onKeyEvent("r");
+    t.checkExpect(maze.answerFound, false);
+    maze.onKeyEvent("g");
+    t.checkExpect(maze.answerFound, false);
+  }
+
+  // tests for forget()
+  void testForget(Tester t) {
+    Maze maze = new Maze(new Posn(2, 2));
+    SceneCache cache = new SceneCache();
+    cache.update(maze);
+    maze.onTick();
+    cache.update(maze);
+    t.checkExpect(cache.edgeCount, 1);
+    cache.forget();
+    t.checkExpect(cache.paintedPassages, null);
+    cache.update(maze);
+    t.checkExpect(cache.paintedPassages, maze.usedPassages);
+    t.checkExpect(cache.edgeCount, 1);
+  }
+
+  // PrefetchedMaze
+  // tests for the PrefetchedMaze constructor
+  void testPrefetchedMaze(Tester t) {
+    Maze maze = new Maze(new Posn(12, 8), 5);
+    int[] weights = maze.buffers().kruskal.weights.clone();
+    int[] usedPassages = maze.usedPassages.clone();
+    PrefetchedMaze next = new PrefetchedMaze(12, 8, 77, EdgeWeights.BIAS_X);
+    // the maze showing isn't changed
+    t.checkExpect(maze.buffers().kruskal.weights, weights);
+    t.checkExpect(maze.usedPassages, usedPassages);
+    t.checkExpect(next.seed, 77L);
+    t.checkExpect(next.bias, EdgeWeights.BIAS_X);
+    t.checkExpect(next.grid.isPerfect(), true);
+    // the same as weighing the walls and running kruskals and findAnswer
+    maze.setVertexEdges(new EdgeWeights(77, EdgeWeights.BIAS_X));
+    maze.kruskals();
+    maze.findAnswer();
+    t.checkExpect(next.weights, maze.buffers().kruskal.weights);
+    t.checkExpect(next.grid.passages, maze.grid.passages);
+    t.checkExpect(next.usedPassages, Arrays.copyOf(maze.usedPassages, maze.usedCount));
+    t.checkExpect(next.answer, maze.answer);
+  }
+
+  // tests for togglePrefetch(), prefetchAll(), prefetch(int), takePrefetched(int) and
+  // adopt(PrefetchedMaze)
+  void testPrefetch(Tester t) throws Exception {
+    Maze maze = new Maze(new Posn(20, 10), 5);
+    t.checkExpect(maze.takePrefetched(EdgeWeights.NO_BIAS), null);
+    maze.onKeyEvent("p");
+    t.checkExpect(maze.prefetcher == null, false);
+    t.checkExpect(maze.prefetched.size(), 3);
+    PrefetchedMaze next = maze.prefetched.get(EdgeWeights.BIAS_X).get();
+    Future<PrefetchedMaze> nextY = maze.prefetched.get(EdgeWeights.BIAS_Y);
+    maze.onKeyEvent("b");
+    maze.onTick();
+    maze.makeScene();
+    maze.onKeyEvent("x");
+    // the grid and lists made in the background are swapped in
+    t.checkExpect(maze.seed, next.seed);
+    t.checkExpect(maze.grid == next.grid, true);
+    t.checkExpect(maze.usedPassages == next.usedPassages, true);
+    t.checkExpect(maze.usedCount, 199);
+    t.checkExpect(maze.answer == next.answer, true);
+    t.checkExpect(maze.buffers().kruskal.weights == next.weights, true);
+    t.checkExpect(maze.alreadySeen.size(), 0);
+    t.checkExpect(maze.drawnBoxes.size(), 0);
+    t.checkExpect(maze.currentUsedEdgeIndex, 0);
+    t.checkExpect(maze.current, maze.vertexAt(0));
+    t.checkExpect(maze.sceneCache.paintedPassages, null);
+    // and the next one of that bias is started, leaving the others alone
+    t.checkExpect(maze.prefetched.get(EdgeWeights.BIAS_X).get() == next, false);
+    t.checkExpect(maze.prefetched.get(EdgeWeights.BIAS_Y) == nextY, true);
+    // the weights are the new maze's, so kruskals makes it again
+    long[] passages = maze.grid.passages.clone();
+    maze.kruskals();
+    t.checkExpect(maze.grid.passages, passages);
+
+    // the same keys give the same mazes
+    Maze again = new Maze(new Posn(20, 10), 5);
+    again.onKeyEvent("p");
+    again.onKeyEvent("x");
+    again.onKeyEvent("r");
+    maze.onKeyEvent("r");
+    t.checkExpect(again.grid.passages, maze.grid.passages);
+    again.onKeyEvent("p");
+
+    // a new board starts them over for it
+    Future<PrefetchedMaze> before = maze.prefetched.get(EdgeWeights.NO_BIAS);
+    maze.onKeyEvent("g");
+    t.checkExpect(maze.prefetched.get(EdgeWeights.NO_BIAS) == before, false);
+    t.checkExpect(maze.prefetched.get(EdgeWeights.NO_BIAS).get().grid.size(), 200);
+    maze.onKeyEvent("r");
+    t.checkExpect(maze.grid.isPerfect(), true);
+    t.checkExpect(maze.answer.get(maze.answer.size() - 1), maze.vertexAt(199));
+    // a board that can't be reused is built again and prefetched for
+    maze.grid = null;
+    t.checkExpect(maze.takePrefetched(EdgeWeights.NO_BIAS), null);
+    before = maze.prefetched.get(EdgeWeights.NO_BIAS);
+    maze.onKeyEvent("y");
+    t.checkExpect(maze.usedCount, 199);
+    t.checkExpect(maze.prefetched.get(EdgeWeights.NO_BIAS) == before, false);
+    maze.onKeyEvent("p");
+    t.checkExpect(maze.prefetcher, null);
+    t.checkExpect(maze.prefetched, null);
+    maze.onKeyEvent("r");
+    t.checkExpect(maze.grid.isPerfect(), true);
+  }
+
+  // tests for recording(MazeMetrics, Event) with a flight recording that leaves the Maze
+  // events off, and then turns one of them on
+  void testRecordingEventsOff(Tester t) {
+    try (Recording recording = new Recording()) {
+      recording.start();
+      t.checkExpect(FlightRecorder.isInitialized(), true);
+      t.checkExpect(MazeMetrics.recording(null, new KruskalsEvent()), false);
+      t.checkExpect(MazeMetrics.recording(null, new MazeFrameEvent()), false);
+      Maze maze = new Maze(new Posn(10, 10), 1);
+      maze.onKeyEvent("r");
+      maze.onKeyEvent("b");
+      // kruskals kept the plain UnionFind
+      t.checkExpect(maze.buffers().counted, null);
+      recording.enable(KruskalsEvent.class);
+      t.checkExpect(MazeMetrics.recording(null, new KruskalsEvent()), true);
+      t.checkExpect(MazeMetrics.recording(null, new MazeSearchEvent()), false);
+      maze.onKeyEvent("r");
+      t.checkExpect(maze.buffers().counted == null, false);
+    }
+  }
+
+  // tests for recording into a Maze's MazeMetrics
+  void testMazeMetrics(Tester t) {
+    Maze maze = new Maze(new Posn(10, 10), 1);
+    t.checkExpect(maze.metrics, null);
+    // with nothing recording kruskals never counts its finds
+    t.checkExpect(MazeMetrics.recording(null, new KruskalsEvent()), false);
+    t.checkExpect(maze.buffers().counted, null);
+    MazeMetrics metrics = new MazeMetrics();
+    t.checkExpect(MazeMetrics.recording(metrics, new KruskalsEvent()), true);
+    maze.metrics = metrics;
+    maze.onKeyEvent("r");
+    t.checkExpect(maze.buffers().counted == null, false);
+    t.checkExpect(metrics.mazes, 1L);
+    t.checkExpect(metrics.unions >= 99, true);
+    t.checkExpect(metrics.unions <= 180, true);
+    t.checkExpect(metrics.edgeNanos > 0, true);
+    t.checkExpect(metrics.kruskalNanos >= metrics.sortNanos, true);
+    t.checkExpect(metrics.deepestFind <= metrics.findSteps, true);
+
+    maze.onKeyEvent("b");
+    t.checkExpect(metrics.searches, 1L);
+    t.checkExpect(metrics.expanded, maze.alreadySeen.size());
+    // a depth first search of the forked maze has 1, 4 and 6 waiting at once
+    maze = new Maze(new Posn(3, 3), 1);
+    maze.metrics = metrics;
+    maze.grid = this.forkedGrid();
+    maze.searchHelp(new Stack<Vertex>());
+    t.checkExpect(metrics.searches, 2L);
+    t.checkExpect(metrics.expanded, 7);
+    t.checkExpect(metrics.largestWorklist, 3);
+
+    maze = new Maze(new Posn(10, 10), 1);
+    maze.metrics = metrics;
+    maze.makeScene();
+    t.checkExpect(metrics.frames, 1L);
+    t.checkExpect(metrics.frameEdges, 0);
+    maze.alreadySeen = maze.bfs();
+    maze.onTick();
+    maze.onTick();
+    maze.onTick();
+    maze.makeScene();
+    t.checkExpect(metrics.frames, 2L);
+    t.checkExpect(metrics.frameEdges, 3);
+    t.checkExpect(metrics.frameCells, 3);
+    maze.onKeyEvent("a");
+    maze.makeScene();
+    t.checkExpect(metrics.frameEdges, 0);
+    t.checkExpect(metrics.frameCells, maze.answer.size());
+    t.checkExpect(metrics.slowestFrameNanos >= metrics.frameNanos, true);
+    t.checkExpect(metrics.totalFrameNanos >= metrics.slowestFrameNanos, true);
+  }
+
+  // tests for snapshot(), report() and fromProperty()
+  void testMetricsSnapshot(Tester t) {
+    MazeMetrics metrics = new MazeMetrics();
+    metrics.recordKruskals(2000000, 500000, 120, 30, 4);
+    metrics.recordEdges(1000000);
+    metrics.recordSearch(50, 7);
+    metrics.recordFrame(3000000, 2, 5);
+    metrics.recordFrame(1000000, 1, 1);
+    MazeMetrics snapshot = metrics.snapshot();
+    metrics.recordSearch(60, 8);
+    t.checkExpect(snapshot.searches, 1L);
+    t.checkExpect(snapshot.expanded, 50);
+    t.checkExpect(snapshot.unions, 120L);
+    t.checkExpect(snapshot.frames, 2L);
+    t.checkExpect(snapshot.slowestFrameNanos, 3000000L);
+    t.checkExpect(snapshot.totalFrameNanos, 4000000L);
+    t.checkExpect(snapshot.frameCells, 1);
+    t.checkExpect(snapshot.report(), "1 mazes (edges 1.00 ms, kruskals 2.00 ms, sort 0.50 ms, "
+        + "120 unions, 30 find steps, deepest find 4), 1 searches (50 expanded, largest "
+        + "worklist 7), 2 frames (last 1.00 ms, slowest 3.00 ms, average 2.00 ms, 1 walls, "
+        + "1 cells)");
+    t.checkExpect(MazeMetrics.fromProperty(), null);
+    System.setProperty(MazeMetrics.PROPERTY, "true");
+    t.checkExpect(MazeMetrics.fromProperty() == null, false);
+    t.checkExpect(new Maze(new Posn(2, 2)).metrics == null, false);
+    System.clearProperty(MazeMetrics.PROPERTY);
+  }
+
+  // tests for parse(String[]) and parseBias(String)
+  void testBatchParse(Tester t) {
+    MazeBatch batch = MazeBatch.parse(new String[] { "--size", "30x20", "--bias", "y", "--seed",
+        "-4", "--count", "50", "--threads", "3", "--generator", "eller" });
+    t.checkExpect(batch.width, 30);
+    t.checkExpect(batch.height, 20);
+    t.checkExpect(batch.bias, EdgeWeights.BIAS_Y);
+    t.checkExpect(batch.seed, -4L);
+    t.checkExpect(batch.count, 50);
+    t.checkExpect(batch.threads, 3);
+    t.checkExpect(batch.generator, "eller");
+    t.checkExpect(batch.outDir, null);
+    t.checkExpect(MazeBatch.parse(new String[0]).count, 1000);
+    t.checkException(new IllegalArgumentException("--count has to be a number!"), this,
+        "parseHelp", (Object) new String[] { "--count", "lots" });
+    t.checkException(new IllegalArgumentException("--seed needs a value!"), this, "parseHelp",
+        (Object) new String[] { "--seed" });
+    t.checkException(new IllegalArgumentException("There is no option called --color!"), this,
+        "parseHelp", (Object) new String[] { "--color", "red" });
+    t.checkException(new IllegalArgumentException("Bias has to be none, x or y!"), this,
+        "parseHelp", (Object) new String[] { "--bias", "z" });
+    t.checkException(new IllegalArgumentException("There has to be at least 1 thread!"), this,
+        "parseHelp", (Object) new String[] { "--threads", "0" });
+    t.checkException(new IllegalArgumentException("Maze is too big!"), this, "parseHelp",
+        (Object) new String[] { "--size", "100000x100000" });
+    t.checkException(new IllegalArgumentException("Maze has to be bigger than 1 dimension!"),
+        this, "parseHelp", (Object) new String[] { "--size", "1x50" });
+  }
+
+  // calls MazeBatch.parse, for checkException
+  MazeBatch parseHelp(String[] args) {
+    return MazeBatch.parse(args);
+  }
+
+  // tests for run() and report(long)
+  void testBatchRun(Tester t) throws Exception {
+    MazeBatch alone = new MazeBatch(15, 10, EdgeWeights.BIAS_X, 3, 20, 1, "kruskal", null);
+    alone.run();
+    MazeBatch together = new MazeBatch(15, 10, EdgeWeights.BIAS_X, 3, 20, 3, "kruskal", null);
+    together.run();
+    t.checkExpect(together.pathCells.get(), alone.pathCells.get());
+    t.checkExpect(together.next.get() >= 20, true);
+    t.checkExpect(alone.report(2000000000L).startsWith("20 15x10 mazes by kruskal in 2.00 s "
+        + "(10.0 mazes/s, "), true);
+    // every maze is written as a MazeFile with its solution
+    Path dir = Files.createTempDirectory("mazes");
+    new MazeBatch(9, 7, EdgeWeights.NO_BIAS, 5, 3, 2, "prim", dir).run();
+    MazeFile file = MazeFile.read(dir.resolve("maze-2.maze"));
+    MazeGrid grid = new MazeGrid(9, 7);
+    new PrimGenerator().generate(grid, 7, EdgeWeights.NO_BIAS);
+    t.checkExpect(file.seed, 7L);
+    t.checkExpect(file.grid.passageWord(0), grid.passages[0]);
+    t.checkExpect(file.grid.passageWord(1), grid.passages[1]);
+    t.checkExpect(file.solution(), new GridSolver().solve(grid, new IntQueue()));
+    for (int i = 0; i < 3; i += 1) {
+      Files.delete(dir.resolve("maze-" + i + ".maze"));
+    }
+    Files.delete(dir);
+  }
+
+  // MazeFile
+  // tests for write(Path, MazeGrid, long, int, int[]) and read(Path)
+  void testMazeFile(Tester t) throws Exception {
+    MazeGrid grid = new MazeGrid(70, 3);
+    new WilsonGenerator().generate(grid, -8, EdgeWeights.BIAS_Y);
+    int[] solution = new GridSolver().solve(grid, new IntStack());
+    Path path = Files.createTempFile("maze", ".maze");
+    MazeFile.write(path, grid, -8, EdgeWeights.BIAS_Y, solution);
+    t.checkExpect(Files.size(path), 40L + 8 * 7 + (solution.length - 1 + 3) / 4);
+    MazeFile file = MazeFile.read(path);
+    t.checkExpect(file.grid.width, 70);
+    t.checkExpect(file.grid.height, 3);
+    t.checkExpect(file.seed, -8L);
+    t.checkExpect(file.bias, EdgeWeights.BIAS_Y);
+    boolean same = true;
+    for (int p = 0; p < 2 * grid.size(); p += 1) {
+      same = same && file.grid.isPassageOpen(p) == grid.isPassageOpen(p);
+    }
+    t.checkExpect(same, true);
+    t.checkExpect(file.grid.isPerfect(), true);
+    t.checkExpect(file.hasSolution(), true);
+    t.checkExpect(file.solution(), solution);
+
+    // a corrupt solution
+    byte[] corrupt = Files.readAllBytes(path);
+    corrupt[40 + 8 * 7] |= MazeGrid.NORTH; // off the top of the grid
+    Files.write(path, corrupt);
+    t.checkException(new IllegalArgumentException("Step 0 of the path goes through a wall!"),
+        MazeFile.read(path), "solution");
+
+    // a file that can't be written is still read
+    MazeFile.write(path, grid, -8, EdgeWeights.BIAS_Y, solution);
+    path.toFile().setReadOnly();
+    t.checkExpect(MazeFile.read(path).solution(), solution);
+    path.toFile().setWritable(true);
+
+    // without a solution
+    MazeFile.write(path, grid, 1, EdgeWeights.NO_BIAS, null);
+    MazeFile noSolution = MazeFile.read(path);
+    t.checkExpect(noSolution.hasSolution(), false);
+    t.checkException(new IllegalStateException("This maze file has no solution!"), noSolution,
+        "solution");
+
+    // files that aren't maze files
+    Files.write(path, new byte[] { 1, 2, 3 });
+    t.checkException(new IllegalArgumentException("Not a maze file!"), this, "readHelp", path);
+    byte[] bytes = new byte[40];
+    bytes[0] = 'M';
+    bytes[1] = 'A';
+    bytes[2] = 'Z';
+    bytes[3] = 'E';
+    bytes[4] = 9;
+    Files.write(path, bytes);
+    t.checkException(new IllegalArgumentException("Maze file version 9 isn't supported!"), this,
+        "readHelp", path);
+    bytes[4] = 1;
+    bytes[8] = 100;
+    bytes[12] = 100;
+    Files.write(path, bytes);
+    t.checkException(new IllegalArgumentException("Maze file is too short!"), this, "readHelp",
+        path);
+    bytes[24] = 3;
+    Files.write(path, bytes);
+    t.checkException(new IllegalArgumentException("Maze file bias 3 isn't supported!"), this,
+        "readHelp", path);
+    Files.delete(path);
+  }
+
+  // calls MazeFile.read, for checkException
+  MazeFile readHelp(Path path) throws Exception {
+    return MazeFile.read(path);
+  }
+
+  // tests for direction(MazeGrid, int, int)
+  void testDirection(Tester t) {
+    MazeGrid grid = new MazeGrid(4, 3);
+    t.checkExpect(MazeFile.direction(grid, 5, 6), MazeGrid.EAST);
+    t.checkExpect(MazeFile.direction(grid, 5, 9), MazeGrid.SOUTH);
+    t.checkExpect(MazeFile.direction(grid, 5, 4), MazeGrid.WEST);
+    t.checkExpect(MazeFile.direction(grid, 5, 1), MazeGrid.NORTH);
+    t.checkException(new IllegalArgumentException("Cells 5 and 7 aren't next to each other!"),
+        this, "directionHelp", grid, 5, 7);
+  }
+
+  // calls MazeFile.direction, for checkException
+  int directionHelp(MazeGrid grid, int from, int to) {
+    return MazeFile.direction(grid, from, to);
+  }
+
+  // tests for encode(MazeGrid, long, int, int[]), size(MazeGrid, int[]) and
+  // readSteps(MazeGrid, ByteBuffer, int, int)
+  void testMazeFileEncode(Tester t) throws Exception {
+    MazeGrid grid = new MazeGrid(11, 6);
+    new PrimGenerator().generate(grid, 2, EdgeWeights.BIAS_X);
+    int[] solution = new GridSolver().solve(grid, new IntQueue());
+    Path path = Files.createTempFile("maze", ".maze");
+    MazeFile.write(path, grid, 2, EdgeWeights.BIAS_X, solution);
+    byte[] bytes = MazeFile.encode(grid, 2, EdgeWeights.BIAS_X, solution);
+    t.checkExpect(bytes, Files.readAllBytes(path));
+    t.checkExpect((long) bytes.length, MazeFile.size(grid, solution));
+    t.checkExpect(MazeFile.size(grid, null), 40L + 8 * 3);
+    Files.delete(path);
+    // a path that doesn't start at the top left
+    ByteBuffer directions = ByteBuffer.allocate(2);
+    MazeFile.putSteps(directions, this.forkedGrid(), new int[] { 7, 6, 3, 4, 5, 8 });
+    t.checkExpect(directions.get(0), (byte) (MazeGrid.WEST | MazeGrid.NORTH << 2
+        | MazeGrid.EAST << 4 | MazeGrid.EAST << 6));
+    t.checkExpect(MazeFile.readSteps(this.forkedGrid(), directions, 7, 5),
+        new int[] { 7, 6, 3, 4, 5, 8 });
+    // steps that go through a wall, or off the grid
+    t.checkException(new IllegalArgumentException("Step 4 of the path goes through a wall!"),
+        this, "readStepsHelp", this.forkedGrid(), directions, 4, 5);
+    t.checkException(new IllegalArgumentException("Step 0 of the path goes through a wall!"),
+        this, "readStepsHelp", this.forkedGrid(), directions, 0, 5);
+  }
+
+  // calls MazeFile.readSteps, for checkException
+  int[] readStepsHelp(MazeGrid grid, ByteBuffer directions, int start, int steps) {
+    return MazeFile.readSteps(grid, directions, start, steps);
+  }
+
+  // MappedMazeGrid
+  // tests for isPassageOpen(int), openPassage(int), clear() and passageWord(int)
+  void testMappedMazeGrid(Tester t) throws Exception {
+    MappedMazeGrid grid = new MappedMazeGrid(8, 5, LongBuffer.allocate(2));
+    grid.open(9, MazeGrid.SOUTH);
+    grid.open(39, MazeGrid.WEST);
+    t.checkExpect(grid.isOpen(17, MazeGrid.NORTH), true);
+    t.checkExpect(grid.isOpen(38, MazeGrid.EAST), true);
+    t.checkExpect(grid.passageWord(0), 1L << 19);
+    t.checkExpect(grid.passageWord(1), 1L << (76 - 64));
+    grid.clear();
+    t.checkExpect(grid.isOpen(9, MazeGrid.SOUTH), false);
+    t.checkConstructorException(
+        new IllegalArgumentException("There aren't enough passage bits for the maze!"),
+        "MappedMazeGrid", 8, 5, LongBuffer.allocate(1));
+    // knocking down walls in a grid that was read doesn't change its file
+    Path path = Files.createTempFile("maze", ".maze");
+    MazeFile.write(path, new MazeGrid(8, 5), 0, EdgeWeights.NO_BIAS, null);
+    new KruskalGenerator().generate(MazeFile.read(path).grid, 3, EdgeWeights.NO_BIAS);
+    t.checkExpect(MazeFile.read(path).grid.passageWord(0), 0L);
+    Files.delete(path);
+  }
+
+  // tests for the Maze(MazeFile) constructor, ensureUsedPassages() and weights()
+  void testMazeFromFile(Tester t) {
+    MazeGrid grid = new MazeGrid(12, 9);
+    new SidewinderGenerator().generate(grid, 4, EdgeWeights.NO_BIAS);
+    Maze maze = new Maze(new MazeFile(grid, 4, EdgeWeights.BIAS_X, null, 0));
+    t.checkExpect(maze.grid, grid);
+    t.checkExpect(maze.dimension, new Posn(12, 9));
+    t.checkExpect(maze.seed, 4L);
+    // nothing is weighed or found until it's needed
+    t.checkExpect(maze.buffers, null);
+    t.checkExpect(maze.usedPassages, null);
+    t.checkExpect(maze.ensureUsedPassages().length, 107);
+    t.checkExpect(maze.usedCount, 107);
+    t.checkExpect(maze.usedPassages[0], 0);
+    t.checkExpect(maze.weights()[2 * 11 + MazeGrid.EAST], GridKruskal.LEFT_OUT);
+    t.checkExpect(maze.weights()[1], new EdgeWeights(4, EdgeWeights.BIAS_X).weight(1));
+    t.checkExpect(maze.unweighed, null);
+    int[] solution = new GridSolver().solve(grid, new IntQueue());
+    t.checkExpect(maze.answerFound, false);
+    t.checkExpect(maze.ensureAnswer().size(), solution.length);
+    t.checkExpect(maze.answer.get(1), maze.vertexAt(solution[1]));
+    t.checkExpect(maze.pointer, maze.findVertex(new Posn(0, 0)));
+    // the keys carry on with the file's seed
+    Maze made = new Maze(new Posn(12, 9), 4);
+    made.onKeyEvent("r");
+    maze.onKeyEvent("r");
+    t.checkExpect(maze.seed, made.seed);
+    t.checkExpect(maze.grid.passages, made.grid.passages);
+  }
+
+  // MazeRaster
+  // tests for blocks(int, int)
+  void testBlocks(Tester t) {
+    // 2 cells in 7 pixels: line, inside, inside, line, inside, inside, line
+    t.checkExpect(MazeRaster.blocks(7, 2), new int[] { 0, 1, 1, 2, 3, 3, 4 });
+    // 3 cells in 5 pixels: the 7 blocks are stretched
+    t.checkExpect(MazeRaster.blocks(5, 3), new int[] { 0, 1, 2, 4, 5 });
+    // more cells than pixels
+    t.checkExpect(MazeRaster.blocks(3, 1000), new int[] { 0, 667, 1334 });
+  }
+
+  // tests for render(MazeGrid, BitSet, BitSet, int, int)
+  void testRender(Tester t) {
+    MazeGrid grid = new MazeGrid(2, 2);
+    grid.open(0, MazeGrid.EAST);
+    grid.open(1, MazeGrid.SOUTH);
+    MazeRaster raster = new MazeRaster(7, 7);
+    raster.render(grid, null, null, -1, -1);
+    int w = MazeRaster.WALL;
+    int f = MazeRaster.FLOOR;
+    int g = MazeRaster.START;
+    int m = MazeRaster.END;
+    t.checkExpect(raster.pixels, new int[] {
+        w, w, w, w, w, w, w,
+        w, g, g, f, f, f, w,
+        w, g, g, f, f, f, w,
+        w, w, w, w, f, f, w,
+        w, f, f, w, m, m, w,
+        w, f, f, w, m, m, w,
+        w, w, w, w, w, w, w });
+    BitSet visited = new BitSet();
+    visited.set(0);
+    visited.set(1);
+    BitSet answer = new BitSet();
+    answer.set(1);
+    raster.render(grid, visited, answer, 0, 2);
+    t.checkExpect(raster.pixels[8], MazeRaster.START);
+    t.checkExpect(raster.pixels[11], MazeRaster.ANSWER);
+    t.checkExpect(raster.pixels[29], MazeRaster.POINTER);
+    raster.render(grid, visited, null, 3, -1);
+    t.checkExpect(raster.pixels[8], MazeRaster.VISITED);
+    t.checkExpect(raster.pixels[11], MazeRaster.VISITED);
+    t.checkExpect(raster.pixels[32], MazeRaster.START);
+    t.checkExpect(raster.image.getRGB(1, 1), MazeRaster.VISITED);
+    t.checkConstructorException(new IllegalArgumentException("Picture has to be at least 1 pixel!"),
+        "MazeRaster", 0, 5);
+  }
+
+  // tests for render(MazeGrid, BitSet, BitSet, int, int) with more blocks than pixels
+  void testRenderStretched(Tester t) {
+    MazeGrid grid = new MazeGrid(1000, 1000);
+    new KruskalGenerator().generate(grid, 6, EdgeWeights.NO_BIAS);
+    int[] path = new GridSolver().solve(grid, new IntQueue());
+    BitSet answer = new BitSet();
+    for (int cell : path) {
+      answer.set(cell);
+    }
+    MazeRaster raster = new MazeRaster(1000, 600);
+    raster.render(grid, null, answer, -1, -1);
+    int answerPixels = 0;
+    for (int color : raster.pixels) {
+      answerPixels += color == MazeRaster.ANSWER ? 1 : 0;
+    }
+    t.checkExpect(answerPixels > 0, true);
+    t.checkExpect(raster.pixels[0], MazeRaster.ANSWER);
+    t.checkExpect(raster.pixels[raster.pixels.length - 1], MazeRaster.ANSWER);
+    // every pixel shows a cell, so with every cell visited every pixel is visited
+    MazeGrid wide = new MazeGrid(2000, 1200);
+    BitSet visited = new BitSet();
+    visited.set(0, wide.size());
+    raster.render(wide, visited, null, -1, -1);
+    boolean allVisited = true;
+    for (int color : raster.pixels) {
+      allVisited = allVisited && color == MazeRaster.VISITED;
+    }
+    t.checkExpect(allVisited, true);
+    // the pointer and cursor still show, and start and end with nothing visited
+    raster.render(wide, visited, null, 500 * 2000 + 7, 3);
+    t.checkExpect(raster.pixels[1], MazeRaster.POINTER);
+    t.checkExpect(raster.pixels[250 * 1000 + 3], MazeRaster.START);
+    raster.render(wide, null, null, -1, -1);
+    t.checkExpect(raster.pixels[0], MazeRaster.START);
+    t.checkExpect(raster.pixels[raster.pixels.length - 1], MazeRaster.END);
+    t.checkExpect(raster.pixels[1], MazeRaster.FLOOR);
+  }
+
+  // tests for end(int[], int, int) and anySet(long[], int, int, int, int, int)
+  void testRasterSpans(Tester t) {
+    int[] blocks = MazeRaster.blocks(5, 3); // { 0, 1, 2, 4, 5 }
+    t.checkExpect(MazeRaster.end(blocks, 0, 3), 1);
+    t.checkExpect(MazeRaster.end(blocks, 2, 3), 4);
+    t.checkExpect(MazeRaster.end(blocks, 4, 3), 7);
+    // pixels that share a block still show it
+    t.checkExpect(MazeRaster.end(MazeRaster.blocks(7, 2), 1, 2), 2);
+    BitSet bits = new BitSet();
+    bits.set(100 * 3 + 70);
+    long[] words = bits.toLongArray();
+    t.checkExpect(MazeRaster.anySet(words, 100, 60, 80, 3, 4), true);
+    t.checkExpect(MazeRaster.anySet(words, 100, 60, 80, 0, 3), false);
+    t.checkExpect(MazeRaster.anySet(words, 100, 70, 71, 2, 5), true);
+    t.checkExpect(MazeRaster.anySet(words, 100, 71, 100, 0, 10), false);
+    t.checkExpect(MazeRaster.anySet(words, 100, 0, 70, 0, 10), false);
+    t.checkExpect(MazeRaster.anySet(null, 100, 0, 100, 0, 10), false);
+  }
+
+  // tests for copyTo(ComputedPixelImage)
+  void testCopyTo(Tester t) {
+    MazeGrid grid = new MazeGrid(3, 2);
+    new BinaryTreeGenerator().generate(grid, 1, EdgeWeights.NO_BIAS);
+    MazeRaster raster = new MazeRaster(10, 7);
+    raster.render(grid, null, null, -1, -1);
+    ComputedPixelImage picture = new ComputedPixelImage(10, 7);
+    raster.copyTo(picture);
+    boolean same = true;
+    for (int y = 0; y < 7; y += 1) {
+      for (int x = 0; x < 10; x += 1) {
+        same = same && picture.getPixel(x, y).getRGB() == raster.pixels[y * 10 + x];
+      }
+    }
+    t.checkExpect(same, true);
+    t.checkExpect(raster.copiedTo == picture, true);
+    // rows that haven't changed since the last copy are left alone
+    picture.setPixel(0, 0, Color.red);
+    raster.pixels[35] = MazeRaster.ANSWER;
+    raster.copyTo(picture);
+    t.checkExpect(picture.getPixel(0, 0), Color.red);
+    t.checkExpect(picture.getPixel(5, 3).getRGB(), MazeRaster.ANSWER);
+    // but all of them go into another picture
+    ComputedPixelImage other = new ComputedPixelImage(10, 7);
+    raster.copyTo(other);
+    t.checkExpect(other.getPixel(0, 0).getRGB(), raster.pixels[0]);
+    t.checkExpect(other.getPixel(5, 3).getRGB(), MazeRaster.ANSWER);
+    t.checkExpect(raster.copiedTo == other, true);
+    t.checkException(new IllegalArgumentException("Picture has to be 10x7!"), raster, "copyTo",
+        new ComputedPixelImage(7, 10));
+  }
+
+  // tests for sameRow(int[], int, int)
+  void testSameRow(Tester t) {
+    MazeGrid grid = new MazeGrid(3, 2);
+    MazeRaster raster = new MazeRaster(10, 7);
+    raster.render(grid, null, null, -1, -1);
+    // rows 1 and 2 are both the inside of the first row of cells, row 0 is a line
+    t.checkExpect(raster.sameRow(raster.pixels, 2, 1), true);
+    t.checkExpect(raster.sameRow(raster.pixels, 0, 1), false);
+    t.checkExpect(raster.sameRow(raster.copied, 1, 1), false);
+  }
+
+  // tests for update(Maze) once the cells are too small for rectangles
+  void testSceneCacheRaster(Tester t) {
+    // cells 3 pixels wide, so a 1 pixel line and 2 pixels inside
+    Maze maze = new Maze(new Posn(300, 3));
+    maze.makeScene();
+    t.checkExpect(maze.sceneCache.raster == null, false);
+    t.checkExpect(maze.sceneCache.layer.getPixel(1, 100).getRGB(), MazeRaster.START);
+    t.checkExpect(maze.sceneCache.layer.getPixel(998, 500).getRGB(), MazeRaster.END);
+    // every wall is still standing
+    t.checkExpect(maze.sceneCache.layer.getPixel(500, 199).getRGB(), MazeRaster.WALL);
+    maze.currentUsedEdgeIndex = maze.usedCount;
+    maze.showAnswer = true;
+    maze.makeScene();
+    t.checkExpect(maze.sceneCache.edgeCount, maze.usedCount);
+    t.checkExpect(maze.sceneCache.shownWalls.passages, maze.grid.passages);
+    t.checkExpect(maze.sceneCache.layer.getPixel(998, 500).getRGB(), MazeRaster.ANSWER);
+
+    // cellSize is 0, which still gets a picture
+    Maze wide = new Maze(new Posn(1200, 3));
+    t.checkExpect(wide.cellSize, new Posn(0, 200));
+    wide.makeScene();
+    t.checkExpect(wide.sceneCache.raster == null, false);
+
+    // a maze with big enough cells goes back to rectangles
+    Maze small = new Maze(new Posn(2, 2));
+    small.sceneCache = maze.sceneCache;
+    small.makeScene();
+    t.checkExpect(small.sceneCache.raster, null);
+  }
+
+  // MazeServer
+  // tests for query(String) and endpoint(String)
+  void testQuery(Tester t) {
+    Map<String, String> query = MazeServer.query("size=30x20&seed=-4&from=1%2C2&flag");
+    t.checkExpect(query.get("size"), "30x20");
+    t.checkExpect(query.get("seed"), "-4");
+    t.checkExpect(query.get("from"), "1,2");
+    t.checkExpect(query.get("flag"), "");
+    t.checkExpect(MazeServer.query(null).isEmpty(), true);
+    t.checkExpect(MazeServer.endpoint("/generate"), MazeServer.GENERATE);
+    t.checkExpect(MazeServer.endpoint("/stats"), MazeServer.STATS);
+    t.checkExpect(MazeServer.endpoint("/generated"), -1);
+  }
+
+  // tests for parse(Map) and the MazeRequest constructor
+  void testMazeRequest(Tester t) {
+    MazeRequest request = MazeRequest.parse(MazeServer.query(
+        "size=30x20&bias=y&seed=-4&generator=eller&format=text"));
+    t.checkExpect(request.width, 30);
+    t.checkExpect(request.height, 20);
+    t.checkExpect(request.bias, EdgeWeights.BIAS_Y);
+    t.checkExpect(request.seed, -4L);
+    t.checkExpect(request.generator, "eller");
+    t.checkExpect(request.binary, false);
+    request = MazeRequest.parse(MazeServer.query(null));
+    t.checkExpect(request.width, 100);
+    t.checkExpect(request.generator, "kruskal");
+    t.checkExpect(request.binary, true);
+    t.checkException(new IllegalArgumentException("Size has to look like 100x60!"), this,
+        "requestHelp", "size=30");
+    t.checkException(new IllegalArgumentException("Size and seed have to be numbers!"), this,
+        "requestHelp", "seed=lots");
+    t.checkException(new IllegalArgumentException("Maze can't have more than 4000000 cells!"),
+        this, "requestHelp", "size=4000x4000");
+    t.checkException(new IllegalArgumentException("Format has to be binary or text!"), this,
+        "requestHelp", "format=json");
+    t.checkException(new IllegalArgumentException("There is no generator called maze!"), this,
+        "requestHelp", "generator=maze");
+  }
+
+  // calls MazeRequest.parse on a query string, for checkException
+  MazeRequest requestHelp(String query) {
+    return MazeRequest.parse(MazeServer.query(query));
+  }
+
+  // tests for draw(MazeGrid) and isFloor(MazeGrid, int, int)
+  void testDraw(Tester t) {
+    MazeGrid grid = new MazeGrid(2, 2);
+    grid.open(0, MazeGrid.EAST);
+    grid.open(1, MazeGrid.SOUTH);
+    grid.open(2, MazeGrid.EAST);
+    t.checkExpect(MazeServer.draw(grid), "#####\n#   #\n### #\n#   #\n#####\n");
+    t.checkExpect(MazeServer.isFloor(grid, 3, 2), true);
+    t.checkExpect(MazeServer.isFloor(grid, 1, 2), false);
+    t.checkExpect(MazeServer.isFloor(grid, 2, 2), false);
+  }
+
+  // tests for encodePath(MazeGrid, int[]), pathText(MazeGrid, int[]) and
+  // cell(MazeGrid, Map, String, int)
+  void testEncodePath(Tester t) {
+    MazeGrid grid = this.forkedGrid();
+    ByteBuffer bytes = ByteBuffer.wrap(MazeServer.encodePath(grid, new int[] { 2, 1, 0, 3 }));
+    bytes.order(ByteOrder.LITTLE_ENDIAN);
+    t.checkExpect(bytes.capacity(), 9);
+    t.checkExpect(bytes.getInt(0), 2);
+    t.checkExpect(bytes.getInt(4), 3);
+    t.checkExpect(MazeFile.readSteps(grid, MazeFile.slice(bytes, 8, 1), 2, 3),
+        new int[] { 2, 1, 0, 3 });
+    t.checkExpect(MazeServer.encodePath(grid, new int[] { 5 }).length, 8);
+    t.checkExpect(MazeServer.pathText(grid, new int[] { 2, 1, 0, 3 }), "2,0 1,0 0,0 0,1\n");
+    Map<String, String> query = MazeServer.query("from=2,1&to=4,1&bad=1");
+    t.checkExpect(MazeServer.cell(grid, query, "from", 0), 5);
+    t.checkExpect(MazeServer.cell(grid, query, "at", 8), 8);
+    t.checkException(new IllegalArgumentException("Cell 4,1 isn't in the maze!"), this,
+        "cellHelp", grid, query, "to");
+    t.checkException(new IllegalArgumentException("bad has to look like 3,4!"), this,
+        "cellHelp", grid, query, "bad");
+  }
+
+  // calls MazeServer.cell, for checkException
+  int cellHelp(MazeGrid grid, Map<String, String> query, String name) {
+    return MazeServer.cell(grid, query, name, 0);
+  }
+
+  // tests for bucket(long), highest(int), record(long), percentile(double) and report()
+  void testLatencyHistogram(Tester t) {
+    t.checkExpect(LatencyHistogram.bucket(5), 5);
+    t.checkExpect(LatencyHistogram.bucket(8), 8);
+    t.checkExpect(LatencyHistogram.bucket(17), 16);
+    t.checkExpect(LatencyHistogram.bucket(Long.MAX_VALUE) < LatencyHistogram.BUCKETS, true);
+    t.checkExpect(LatencyHistogram.highest(16), 17L);
+    t.checkExpect(LatencyHistogram.highest(LatencyHistogram.bucket(1000000)) >= 1000000, true);
+    LatencyHistogram latencies = new LatencyHistogram();
+    t.checkExpect(latencies.percentile(0.5), 0L);
+    for (int i = 1; i <= 100; i += 1) {
+      latencies.record(i * 1000L);
+    }
+    // within an eighth of the real percentile
+    t.checkExpect(Math.abs(latencies.percentile(0.5) - 50000) <= 50000 / 8, true);
+    t.checkExpect(Math.abs(latencies.percentile(0.99) - 99000) <= 99000 / 8, true);
+    t.checkExpect(latencies.percentile(1), 100000L);
+    t.checkExpect(latencies.report().startsWith("100 requests, p50 0.05"), true);
+    t.checkExpect(latencies.report().endsWith("max 0.100 ms"), true);
+  }
+
+  // tests for respond(int, Map) and stats()
+  void testRespond(Tester t) throws Exception {
+    MazeServer server = new MazeServer(0, 2, 1000000);
+    MazeGrid grid = new MazeGrid(30, 20);
+    new WilsonGenerator().generate(grid, 6, EdgeWeights.BIAS_X);
+    int[] solution = new GridSolver().solve(grid, new IntQueue());
+    String maze = "size=30x20&seed=6&bias=x&generator=wilson";
+    MazeResponse response = server.respond(MazeServer.GENERATE, MazeServer.query(maze));
+    t.checkExpect(response.status, 200);
+    t.checkExpect(response.type, "application/octet-stream");
+    t.checkExpect(response.body, MazeFile.encode(grid, 6, EdgeWeights.BIAS_X, null));
+    response = server.respond(MazeServer.GENERATE, MazeServer.query(maze + "&format=text"));
+    t.checkExpect(new String(response.body, "UTF-8"), MazeServer.draw(grid));
+    response = server.respond(MazeServer.SOLUTION, MazeServer.query(maze));
+    t.checkExpect(response.body, MazeServer.encodePath(grid, solution));
+    response = server.respond(MazeServer.PATH,
+        MazeServer.query(maze + "&from=3,4&to=20,9&format=text"));
+    t.checkExpect(new String(response.body, "UTF-8"),
+        MazeServer.pathText(grid, new TreeIndex(grid).path(grid.cell(3, 4), grid.cell(20, 9))));
+    // without from and to it's the solution
+    t.checkExpect(server.respond(MazeServer.PATH, MazeServer.query(maze)).body,
+        MazeServer.encodePath(grid, solution));
+    t.checkExpect(server.respond(MazeServer.STATS, MazeServer.query(null)).type,
+        "text/plain; charset=utf-8");
+    t.checkExpect(server.stats().contains("generate: 0 requests"), true);
+    // the maze was only made once, and grew its TreeIndex for the path
+    t.checkExpect(server.cache.misses, 1L);
+    t.checkExpect(server.cache.hits, 4L);
+    t.checkExpect(server.cache.bytes,
+        64 + 8L * grid.passageWords() + 4L * solution.length + 12L * 600);
+    t.checkExpect(server.stats().contains("cache: 1 mazes, "), true);
+    t.checkConstructorException(
+        new IllegalArgumentException("There has to be at least 1 thread!"), "MazeServer", 0, 0, 0L);
+    t.checkConstructorException(
+        new IllegalArgumentException("There has to be room to make at least 1 maze!"),
+        "MazeServer", 0, 2, 0L, 0, 0L);
+    server.stop();
+  }
+
+  // tests for generate(MazeRequest)
+  void testGenerate(Tester t) throws Exception {
+    // many different mazes at once, but only 2 are made at a time
+    MazeServer server = new MazeServer(0, 2, 100000000, 2, 60000);
+    ExecutorService requests = Executors.newFixedThreadPool(8);
+    ArrayList<Future<MazeResponse>> answers = new ArrayList<Future<MazeResponse>>();
+    for (int i = 0; i < 8; i += 1) {
+      String maze = "size=200x200&seed=" + i;
+      answers.add(requests.submit(() -> server.respond(MazeServer.GENERATE,
+          MazeServer.query(maze))));
+    }
+    boolean made = true;
+    for (Future<MazeResponse> answer : answers) {
+      made = made && answer.get().status == 200;
+    }
+    requests.shutdown();
+    t.checkExpect(made, true);
+    t.checkExpect(server.cache.misses, 8L);
+    t.checkExpect(server.mostGenerating.get() <= 2, true);
+    t.checkExpect(server.generating.get(), 0);
+    t.checkExpect(server.turns.availablePermits(), 2);
+    t.checkExpect(server.turnedAway.get(), 0L);
+    server.stop();
+
+    // a miss that can't get a turn in time is turned away with a 503
+    MazeServer busy = new MazeServer(0, 2, 1000000, 1, 50);
+    busy.turns.acquire();
+    busy.start();
+    String base = "http://127.0.0.1:" + busy.port();
+    HttpURLConnection connection = (HttpURLConnection) new URL(base
+        + "/generate?size=8x5&seed=3").openConnection();
+    t.checkExpect(connection.getResponseCode(), 503);
+    t.checkExpect(new String(connection.getErrorStream().readAllBytes(), "UTF-8"),
+        "Too many mazes are being made, try again later!");
+    t.checkExpect(busy.turnedAway.get(), 1L);
+    // and isn't left being made, so it's made once there's a turn
+    t.checkExpect(busy.cache.making.isEmpty(), true);
+    busy.turns.release();
+    connection = (HttpURLConnection) new URL(base + "/generate?size=8x5&seed=3")
+        .openConnection();
+    t.checkExpect(connection.getResponseCode(), 200);
+    connection = (HttpURLConnection) new URL(base + "/stats").openConnection();
+    String stats = new String(connection.getInputStream().readAllBytes(), "UTF-8");
+    t.checkExpect(stats.contains("generating: 0 now, 1 at most, 1 turned away"), true);
+    busy.stop();
+  }
+
+  // tests for equals(Object) and hashCode()
+  void testMazeRequestEquals(Tester t) {
+    MazeRequest request = new MazeRequest(30, 20, EdgeWeights.BIAS_X, 6, "wilson", true);
+    MazeRequest text = new MazeRequest(30, 20, EdgeWeights.BIAS_X, 6, "wilson", false);
+    t.checkExpect(request.equals(text), true);
+    t.checkExpect(request.hashCode(), text.hashCode());
+    t.checkExpect(request.equals(new MazeRequest(30, 20, EdgeWeights.BIAS_X, 7, "wilson",
+        true)), false);
+    t.checkExpect(request.equals(new MazeRequest(30, 20, EdgeWeights.BIAS_X, 6, "prim",
+        true)), false);
+    t.checkExpect(request.equals(new MazeRequest(20, 30, EdgeWeights.BIAS_X, 6, "wilson",
+        true)), false);
+    t.checkExpect(request.equals("wilson"), false);
+  }
+
+  // MazeCache
+  // tests for get(MazeRequest), put(MazeRequest, ServedMaze), evict() and report()
+  void testMazeCache(Tester t) {
+    MazeRequest first = new MazeRequest(10, 10, EdgeWeights.NO_BIAS, 1, "kruskal", true);
+    MazeRequest second = new MazeRequest(10, 10, EdgeWeights.NO_BIAS, 2, "kruskal", true);
+    MazeRequest third = new MazeRequest(10, 10, EdgeWeights.NO_BIAS, 3, "kruskal", true);
+    long each = new ServedMaze(first).bytes();
+    // room for two mazes of 100 cells
+    MazeCache cache = new MazeCache(2 * each + 200);
+    ServedMaze maze = cache.get(first);
+    t.checkExpect(cache.get(first) == maze, true);
+    t.checkExpect(cache.get(new MazeRequest(10, 10, EdgeWeights.NO_BIAS, 1, "kruskal", false))
+        == maze, true);
+    t.checkExpect(cache.hits, 2L);
+    t.checkExpect(cache.misses, 1L);
+    t.checkExpect(cache.bytes, maze.bytes());
+    cache.get(second);
+    // using first makes second the least recently used
+    cache.get(first);
+    cache.get(third);
+    t.checkExpect(cache.evictions, 1L);
+    t.checkExpect(cache.size(), 2);
+    t.checkExpect(cache.mazes.containsKey(second), false);
+    t.checkExpect(cache.get(first) == maze, true);
+    long both = maze.bytes() + cache.mazes.get(third).bytes();
+    t.checkExpect(cache.bytes, both);
+    t.checkExpect(cache.report(), String.format("2 mazes, %.2f MB of %.2f MB, 4 hits, 3 misses, "
+        + "0 waits, 1 evictions", both / 1e6, (2 * each + 200) / 1e6));
+    // a maze put in while another was being made gives way to the one put in first
+    t.checkExpect(cache.put(first, new ServedMaze(first)) == maze, true);
+    // a maze that doesn't fit at all isn't kept
+    MazeRequest big = new MazeRequest(100, 100, EdgeWeights.NO_BIAS, 1, "kruskal", true);
+    t.checkExpect(cache.get(big).grid.size(), 10000);
+    t.checkExpect(cache.size(), 2);
+    t.checkExpect(cache.evictions, 1L);
+    t.checkExpect(new MazeCache(0).get(first).grid.size(), 100);
+    t.checkConstructorException(new IllegalArgumentException("Capacity can't be negative!"),
+        "MazeCache", -1L);
+  }
+
+  // tests for get(MazeRequest) while the maze is being made, make(MazeRequest) and
+  // await(CompletableFuture)
+  void testMazeCacheSingleFlight(Tester t) throws Exception {
+    MazeRequest request = new MazeRequest(10, 10, EdgeWeights.NO_BIAS, 1, "kruskal", true);
+    MazeCache cache = new MazeCache(1000000);
+    // a request that comes while the maze is being made waits for it
+    CompletableFuture<ServedMaze> made = new CompletableFuture<ServedMaze>();
+    cache.making.put(request, made);
+    ExecutorService waiter = Executors.newSingleThreadExecutor();
+    Future<ServedMaze> waited = waiter.submit(() -> cache.get(request));
+    ServedMaze maze = new ServedMaze(request);
+    long waits = 0;
+    while (waits == 0) {
+      Thread.sleep(1);
+      synchronized (cache) {
+        waits = cache.waits;
+      }
+    }
+    t.checkExpect(waited.isDone(), false);
+    made.complete(maze);
+    t.checkExpect(waited.get() == maze, true);
+    t.checkExpect(cache.misses, 0L);
+    // and gets the exception if it couldn't be made
+    made = new CompletableFuture<ServedMaze>();
+    made.completeExceptionally(new IllegalArgumentException("No!"));
+    t.checkException(new IllegalArgumentException("No!"), this, "awaitHelp", made);
+    waiter.shutdown();
+    cache.making.clear();
+
+    // many requests for the same maze at once make it once
+    MazeRequest big = new MazeRequest(300, 300, EdgeWeights.NO_BIAS, 2, "wilson", true);
+    ExecutorService requests = Executors.newFixedThreadPool(8);
+    ArrayList<Future<ServedMaze>> answers = new ArrayList<Future<ServedMaze>>();
+    for (int i = 0; i < 8; i += 1) {
+      answers.add(requests.submit(() -> cache.get(big)));
+    }
+    boolean same = true;
+    for (Future<ServedMaze> answer : answers) {
+      same = same && answer.get() == answers.get(0).get();
+    }
+    requests.shutdown();
+    t.checkExpect(same, true);
+    t.checkExpect(cache.misses, 1L);
+    t.checkExpect(cache.hits + cache.waits, 8L);
+    t.checkExpect(cache.making.isEmpty(), true);
+    t.checkExpect(cache.bytes, answers.get(0).get().bytes());
+    // a maze that can't be made isn't left being made
+    MazeRequest bad = new MazeRequest(10, 10, EdgeWeights.NO_BIAS, 1, "kruskal", true);
+    bad.generator = "nope";
+    t.checkException(new IllegalArgumentException("There is no generator called nope!"), cache,
+        "get", bad);
+    t.checkExpect(cache.making.isEmpty(), true);
+  }
+
+  // calls MazeCache.await, for checkException
+  ServedMaze awaitHelp(CompletableFuture<ServedMaze> made) {
+    return MazeCache.await(made);
+  }
+
+  // tests for remeasure(MazeRequest, ServedMaze) and bytes()
+  void testRemeasure(Tester t) {
+    MazeRequest first = new MazeRequest(10, 10, EdgeWeights.NO_BIAS, 1, "kruskal", true);
+    MazeRequest second = new MazeRequest(10, 10, EdgeWeights.NO_BIAS, 2, "kruskal", true);
+    ServedMaze alone = new ServedMaze(first);
+    t.checkExpect(alone.bytes(), 64 + 8L * 4 + 4L * alone.solution.length);
+    MazeCache cache = new MazeCache(1000000);
+    ServedMaze maze = cache.get(first);
+    cache.get(second);
+    long before = cache.bytes;
+    // room for the TreeIndex of one of them
+    cache.capacity = before + 12 * 100;
+    maze.index();
+    cache.remeasure(first, maze);
+    t.checkExpect(cache.bytes, before + 12 * 100);
+    t.checkExpect(maze.cachedBytes, maze.bytes());
+    // a maze that isn't in the cache isn't counted
+    alone.index();
+    cache.remeasure(first, alone);
+    t.checkExpect(cache.bytes, before + 12 * 100);
+    // growing past the capacity takes out the least recently used maze
+    ServedMaze other = cache.get(second);
+    other.index();
+    cache.remeasure(second, other);
+    t.checkExpect(cache.mazes.containsKey(first), false);
+    t.checkExpect(cache.mazes.containsKey(second), true);
+    t.checkExpect(cache.evictions, 1L);
+  }
+
+  // tests for start(), handle(HttpExchange) and stop() over the loopback address
+  void testMazeServer(Tester t) throws Exception {
+    MazeServer server = new MazeServer(0, 2, 1000000);
+    server.start();
+    String base = "http://127.0.0.1:" + server.port();
+    HttpURLConnection connection = (HttpURLConnection) new URL(base
+        + "/solution?size=8x5&seed=3").openConnection();
+    t.checkExpect(connection.getResponseCode(), 200);
+    byte[] body = connection.getInputStream().readAllBytes();
+    MazeGrid grid = new MazeGrid(8, 5);
+    new KruskalGenerator().generate(grid, 3, EdgeWeights.NO_BIAS);
+    t.checkExpect(body, MazeServer.encodePath(grid, new GridSolver().solve(grid,
+        new IntQueue())));
+    connection = (HttpURLConnection) new URL(base + "/generate?size=8").openConnection();
+    t.checkExpect(connection.getResponseCode(), 400);
+    t.checkExpect(new String(connection.getErrorStream().readAllBytes(), "UTF-8"),
+        "Size has to look like 100x60!");
+    connection = (HttpURLConnection) new URL(base + "/maze").openConnection();
+    t.checkExpect(connection.getResponseCode(), 404);
+    connection = (HttpURLConnection) new URL(base + "/stats").openConnection();
+    String stats = new String(connection.getInputStream().readAllBytes(), "UTF-8");
+    t.checkExpect(stats.contains("solution: 1 requests"), true);
+    t.checkExpect(stats.contains("generate: 1 requests"), true);
+    server.stop();
+  }
+
+  // MazeStats
+  // tests for the MazeStats constructor
+  void testMazeStats(Tester t) {
+    MazeStats stats = new MazeStats(this.forkedGrid(), new ParallelBfs(new ForkJoinPool(4), 1),
+        2);
+    t.checkExpect(stats.fromStart, new int[] { 0, 1, 2, 1, 2, 3, 2, 3, 4 });
+    t.checkExpect(stats.fromGoal, new int[] { 4, 5, 6, 3, 2, 1, 4, 5, 0 });
+    t.checkExpect(stats.solution, 4);
+    // 8, 5, 4, 3, 0, 1, 2 is the longest path
+    t.checkExpect(stats.diameter, 6);
+    t.checkExpect(stats.diameterStart, 8);
+    t.checkExpect(stats.diameterEnd, 2);
+    t.checkExpect(stats.deadEnds, 3);
+    t.checkExpect(stats.junctions, 1);
+    t.checkExpect(stats.straight, 2);
+    t.checkExpect(stats.turns, 3);
+    // 3 to 2 and 3 to 8 are 3 long, 3 to 7 is 2 long
+    t.checkExpect(stats.corridors, new int[] { 0, 0, 1, 2 });
+    t.checkExpect(stats.corridorCount(), 3);
+    t.checkExpect(stats.longestCorridor(), 3);
+    t.checkExpect(stats.straightness(), 0.4);
+    // a loop back to a junction is one corridor, and a cell with no passages is nothing
+    MazeGrid loop = new MazeGrid(3, 2);
+    loop.open(0, MazeGrid.EAST);
+    loop.open(1, MazeGrid.EAST);
+    loop.open(2, MazeGrid.SOUTH);
+    loop.open(4, MazeGrid.EAST);
+    loop.open(1, MazeGrid.SOUTH);
+    stats = new MazeStats(loop);
+    t.checkExpect(stats.corridors, new int[] { 0, 1, 0, 0, 1 });
+    t.checkExpect(stats.deadEnds, 1);
+    t.checkExpect(stats.junctions, 1);
+    t.checkExpect(stats.fromStart[3], -1);
+    t.checkExpect(stats.solution, 3);
+    stats = new MazeStats(new MazeGrid(2, 2));
+    t.checkExpect(stats.solution, -1);
+    t.checkExpect(stats.diameter, 0);
+    t.checkExpect(stats.corridors, new int[] { 0 });
+    t.checkExpect(stats.straightness(), 0.0);
+    t.checkConstructorException(
+        new IllegalArgumentException("Tiles have to have at least 1 cell!"), "MazeStats",
+        this.forkedGrid(), new ParallelBfs(), 0);
+  }
+
+  // tests for the MazeStats constructor on generated mazes
+  void testMazeStatsTiles(Tester t) {
+    Maze maze = new Maze(new Posn(60, 40));
+    MazeStats stats = maze.stats();
+    MazeStats tiled = new MazeStats(maze.grid, new ParallelBfs(new ForkJoinPool(4), 8), 100);
+    t.checkExpect(tiled.corridors, stats.corridors);
+    t.checkExpect(tiled.deadEnds, stats.deadEnds);
+    t.checkExpect(tiled.straight, stats.straight);
+    t.checkExpect(stats.solution, maze.ensureAnswer().size() - 1);
+    t.checkExpect(stats.fromStart, new TreeIndex(maze.grid).depth);
+    // every passage is in one corridor, and a tree has one passage less than cells
+    int passages = 0;
+    for (int length = 1; length < stats.corridors.length; length += 1) {
+      passages += length * stats.corridors[length];
+    }
+    t.checkExpect(passages, maze.grid.size() - 1);
+    t.checkExpect(stats.deadEnds + stats.junctions + stats.straight + stats.turns,
+        maze.grid.size());
+    // the diameter is the furthest any two cells are apart
+    MazeGrid small = new MazeGrid(20, 15);
+    new KruskalGenerator().generate(small, 3, EdgeWeights.NO_BIAS);
+    ParallelBfs bfs = new ParallelBfs();
+    int furthest = 0;
+    for (int cell = 0; cell < small.size(); cell += 1) {
+      bfs.distances(small, cell);
+      furthest = Math.max(furthest, bfs.levels - 1);
+    }
+    t.checkExpect(new MazeStats(small).diameter, furthest);
+    // mazes biased in x go straight on more often
+    MazeGrid biased = new MazeGrid(60, 40);
+    new KruskalGenerator().generate(biased, 3, EdgeWeights.BIAS_X);
+    t.checkExpect(new MazeStats(biased).straightness() > stats.straightness(), true);
+  }
+
+  // tests for parse(String[]) and report()
+  void testMazeStatsReport(Tester t) throws Exception {
+    MazeGrid grid = MazeStats.parse(new String[] { "--size", "30x20", "--seed", "5", "--bias",
+        "x", "--generator", "wilson" });
+    MazeGrid expected = new MazeGrid(30, 20);
+    new WilsonGenerator().generate(expected, 5, EdgeWeights.BIAS_X);
+    t.checkExpect(grid.passages, expected.passages);
+    Path path = Files.createTempFile("maze", ".maze");
+    MazeFile.write(path, expected, 5, EdgeWeights.BIAS_X, new int[0]);
+    t.checkExpect(MazeStats.parse(new String[] { "--file", path.toString() }).isPerfect(), true);
+    Files.delete(path);
+    t.checkException(new IllegalArgumentException("--seed has to be a number!"), this,
+        "statsHelp", (Object) new String[] { "--seed", "lots" });
+    t.checkException(new IllegalArgumentException("There is no option called --count!"), this,
+        "statsHelp", (Object) new String[] { "--count", "3" });
+    t.checkException(new IllegalArgumentException("Maze has to be bigger than 1 dimension!"),
+        this, "statsHelp", (Object) new String[] { "--size", "1x9" });
+    t.checkExpect(new MazeStats(this.forkedGrid()).report(), String.format("maze: 3x3, 9 cells%n"
+        + "solution: 4 steps%n"
+        + "diameter: 6 steps, (2,2) to (2,0)%n"
+        + "dead ends: 3 (33.3%% of cells)%n"
+        + "junctions: 1 (11.1%% of cells)%n"
+        + "straightness: 0.400%n"
+        + "corridors: 3, longest 3, length:count 2:1 3:2"));
+  }
+
+  // calls MazeStats.parse, for checkException
+  MazeGrid statsHelp(String[] args) throws Exception {
+    return MazeStats.parse(args);
   }
 
   void testBigBang(Tester t) {
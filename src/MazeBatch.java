@@ -0,0 +1,223 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Notes:
+ * - Runs without a World, so no WorldScene, WorldImage, Vertex or Edge is ever made,
+ *   just one MazeGrid and one GridSolver for each worker, reused for every maze
+ * - Maze i of a batch gets the seed seed + i, so a batch can be repeated, or split
+ *   into smaller batches, and give the same mazes
+ * - Every worker takes the next maze number from one counter, so the work stays even
+ * - Usage: java MazeBatch --size 100x100 --bias none --seed 0 --count 1000
+ *          --threads 1 --generator kruskal --out dir
+ *   every option can be left out, and without --out nothing is written
+ * - Every maze is written to --out as a MazeFile with its solution
+ */
+
+// represents a headless run that generates and solves many mazes back to back
+class MazeBatch {
+  static final String USAGE = "usage: java MazeBatch [--size WxH] [--bias none|x|y] [--seed n]"
+      + " [--count n] [--threads n] [--generator name] [--out dir]";
+
+  int width;
+  int height;
+  int bias;
+  long seed; // the seed of the first maze
+  int count; // the number of mazes
+  int threads; // the number of mazes made at the same time
+  String generator; // the name of the MazeGenerator to use
+  Path outDir; // where each maze is written, or null to not write them
+  AtomicInteger next; // the number of the next maze a worker should make
+  AtomicLong pathCells; // the cells on every solution so far, added up
+
+  // constructor for MazeBatch
+  MazeBatch(int width, int height, int bias, long seed, int count, int threads,
+      String generator, Path outDir) {
+    MazeGrid.checkSize(width, height); // before a worker makes the grid
+    if (count < 0) {
+      throw new IllegalArgumentException("Count can't be negative!");
+    }
+    if (threads < 1) {
+      throw new IllegalArgumentException("There has to be at least 1 thread!");
+    }
+    new EdgeWeights(seed, bias); // checks the bias
+    MazeGenerator.byName(generator); // checks the generator
+    this.width = width;
+    this.height = height;
+    this.bias = bias;
+    this.seed = seed;
+    this.count = count;
+    this.threads = threads;
+    this.generator = generator;
+    this.outDir = outDir;
+    this.next = new AtomicInteger();
+    this.pathCells = new AtomicLong();
+  }
+
+  // returns the batch that the command line arguments ask for
+  static MazeBatch parse(String[] args) {
+    int width = 100;
+    int height = 100;
+    int bias = EdgeWeights.NO_BIAS;
+    long seed = 0;
+    int count = 1000;
+    int threads = 1;
+    String generator = "kruskal";
+    Path outDir = null;
+    for (int i = 0; i < args.length; i += 2) {
+      if (i + 1 >= args.length) {
+        throw new IllegalArgumentException(args[i] + " needs a value!");
+      }
+      String value = args[i + 1];
+      try {
+        if (args[i].equals("--size")) {
+          String[] dimensions = value.split("x");
+          if (dimensions.length != 2) {
+            throw new IllegalArgumentException("Size has to look like 100x60!");
+          }
+          width = Integer.parseInt(dimensions[0]);
+          height = Integer.parseInt(dimensions[1]);
+        }
+        else if (args[i].equals("--bias")) {
+          bias = parseBias(value);
+        }
+        else if (args[i].equals("--seed")) {
+          seed = Long.parseLong(value);
+        }
+        else if (args[i].equals("--count")) {
+          count = Integer.parseInt(value);
+        }
+        else if (args[i].equals("--threads")) {
+          threads = Integer.parseInt(value);
+        }
+        else if (args[i].equals("--generator")) {
+          generator = value;
+        }
+        else if (args[i].equals("--out")) {
+          outDir = Paths.get(value);
+        }
+        else {
+          throw new IllegalArgumentException("There is no option called " + args[i] + "!");
+        }
+      }
+      catch (NumberFormatException e) {
+        throw new IllegalArgumentException(args[i] + " has to be a number!");
+      }
+    }
+    return new MazeBatch(width, height, bias, seed, count, threads, generator, outDir);
+  }
+
+  // returns the EdgeWeights bias called none, x or y
+  static int parseBias(String name) {
+    if (name.equals("none")) {
+      return EdgeWeights.NO_BIAS;
+    }
+    else if (name.equals("x")) {
+      return EdgeWeights.BIAS_X;
+    }
+    else if (name.equals("y")) {
+      return EdgeWeights.BIAS_Y;
+    }
+    else {
+      throw new IllegalArgumentException("Bias has to be none, x or y!");
+    }
+  }
+
+  // returns how many nanoseconds it took to generate and solve every maze
+  // EFFECT: writes every maze to outDir if there is one
+  long run() throws InterruptedException {
+    this.next.set(0);
+    this.pathCells.set(0);
+    if (this.outDir != null) {
+      try {
+        Files.createDirectories(this.outDir);
+      }
+      catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+    long start = System.nanoTime();
+    if (this.threads == 1) {
+      this.work();
+    }
+    else {
+      ExecutorService pool = Executors.newFixedThreadPool(this.threads);
+      ArrayList<Future<?>> workers = new ArrayList<Future<?>>();
+      for (int i = 0; i < this.threads; i += 1) {
+        workers.add(pool.submit(this::work));
+      }
+      pool.shutdown();
+      try {
+        for (Future<?> worker : workers) {
+          worker.get();
+        }
+      }
+      catch (ExecutionException e) {
+        pool.shutdownNow();
+        if (e.getCause() instanceof RuntimeException) {
+          throw (RuntimeException) e.getCause();
+        }
+        throw new IllegalStateException(e.getCause());
+      }
+    }
+    return System.nanoTime() - start;
+  }
+
+  // EFFECT: generates, solves and writes mazes until there are none left
+  void work() {
+    MazeGrid grid = new MazeGrid(this.width, this.height);
+    MazeGenerator generator = MazeGenerator.byName(this.generator);
+    GridSolver solver = new GridSolver();
+    IntQueue worklist = new IntQueue();
+    for (int i = this.next.getAndIncrement(); i < this.count; i = this.next.getAndIncrement()) {
+      generator.generate(grid, this.seed + i, this.bias);
+      int[] solution = solver.solve(grid, worklist);
+      this.pathCells.addAndGet(solution.length);
+      if (this.outDir != null) {
+        this.write(grid, i, solution);
+      }
+    }
+  }
+
+  // EFFECT: writes the grid and its solution to maze-i.maze in outDir
+  void write(MazeGrid grid, int i, int[] solution) {
+    try {
+      MazeFile.write(this.outDir.resolve("maze-" + i + ".maze"), grid, this.seed + i, this.bias,
+          solution);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // returns a summary of a run that took the given nanoseconds
+  String report(long nanos) {
+    double seconds = Math.max(nanos, 1) / 1e9;
+    return String.format("%d %dx%d mazes by %s in %.2f s (%.1f mazes/s, %.1f cells per solution)",
+        this.count, this.width, this.height, this.generator, seconds, this.count / seconds,
+        this.pathCells.get() / (double) Math.max(this.count, 1));
+  }
+
+  public static void main(String[] args) throws InterruptedException {
+    MazeBatch batch;
+    try {
+      batch = parse(args);
+    }
+    catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(USAGE);
+      System.exit(2);
+      return;
+    }
+    System.out.println(batch.report(batch.run()));
+  }
+}
@@ -0,0 +1,173 @@
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/* Notes:
+ * - Asking for the same size, bias, seed and generator again used to generate and
+ *   solve the whole maze again, the cache keeps the ServedMaze (its passage bits, its
+ *   solution and its TreeIndex once a path was asked for) and hands the same one back
+ * - It's bounded by how many bytes the mazes take, not how many there are, since a
+ *   4000x1000 maze takes as much as ten thousand 20x20 ones, and once it's over the
+ *   least recently used mazes go first (a LinkedHashMap in access order)
+ * - A maze that wasn't there is generated outside the lock, so a big maze doesn't hold
+ *   up hits on other mazes. While it's being made its CompletableFuture is kept under
+ *   the request, so other requests for the same maze wait for that one instead of each
+ *   making it again, and N requests for a maze that isn't there make it once
+ * - The bytes are only counted once the maze is made and put in
+ * - A maze grows when its TreeIndex is made, so remeasure counts it again after that
+ */
+
+// represents the mazes made for MazeRequests, kept until they take too many bytes
+class MazeCache {
+  long capacity; // the most bytes the mazes can take
+  long bytes; // the bytes the mazes take now
+  LinkedHashMap<MazeRequest, ServedMaze> mazes; // least recently used first
+  HashMap<MazeRequest, CompletableFuture<ServedMaze>> making; // the mazes being made now
+  long hits; // requests for a maze that was in the cache
+  long misses; // requests for a maze that had to be made
+  long waits; // requests for a maze that another request was making
+  long evictions; // mazes taken out to make room
+
+  // constructor for MazeCache, a capacity of 0 keeps nothing
+  MazeCache(long capacity) {
+    if (capacity < 0) {
+      throw new IllegalArgumentException("Capacity can't be negative!");
+    }
+    this.capacity = capacity;
+    this.bytes = 0;
+    this.mazes = new LinkedHashMap<MazeRequest, ServedMaze>(16, 0.75f, true);
+    this.making = new HashMap<MazeRequest, CompletableFuture<ServedMaze>>();
+    this.hits = 0;
+    this.misses = 0;
+    this.waits = 0;
+    this.evictions = 0;
+  }
+
+  // returns the maze the request asks for, the one in the cache if it's there, or the
+  // one another request is making if it's being made
+  // EFFECT: makes and adds the maze if it isn't there, taking out the least recently
+  // used mazes until they all fit
+  ServedMaze get(MazeRequest request) {
+    return this.get(request, ServedMaze::new);
+  }
+
+  // returns the maze the request asks for, like get(MazeRequest), making it with the
+  // given maker if it isn't there or being made
+  ServedMaze get(MazeRequest request, Function<MazeRequest, ServedMaze> maker) {
+    CompletableFuture<ServedMaze> made;
+    synchronized (this) {
+      ServedMaze maze = this.mazes.get(request);
+      if (maze != null) {
+        this.hits += 1;
+        return maze;
+      }
+      made = this.making.get(request);
+      if (made != null) {
+        this.waits += 1;
+      }
+      else {
+        this.misses += 1;
+        this.making.put(request, new CompletableFuture<ServedMaze>());
+      }
+    }
+    if (made != null) {
+      return MazeCache.await(made);
+    }
+    return this.make(request, maker);
+  }
+
+  // returns the maze the request asks for, made by this thread with the given maker
+  // EFFECT: adds it and hands it to every request that waited for it, or hands them
+  // the exception if it couldn't be made
+  ServedMaze make(MazeRequest request, Function<MazeRequest, ServedMaze> maker) {
+    ServedMaze maze;
+    try {
+      maze = maker.apply(request);
+    }
+    catch (RuntimeException | Error e) {
+      CompletableFuture<ServedMaze> made;
+      synchronized (this) {
+        made = this.making.remove(request);
+      }
+      made.completeExceptionally(e);
+      throw e;
+    }
+    CompletableFuture<ServedMaze> made;
+    synchronized (this) {
+      made = this.making.remove(request);
+      maze = this.put(request, maze);
+    }
+    made.complete(maze);
+    return maze;
+  }
+
+  // returns the maze another request is making, once it's made
+  static ServedMaze await(CompletableFuture<ServedMaze> made) {
+    try {
+      return made.join();
+    }
+    catch (CompletionException e) {
+      // the same exception the request making it got
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      if (e.getCause() instanceof Error) {
+        throw (Error) e.getCause();
+      }
+      throw e;
+    }
+  }
+
+  // returns the maze for the request that is in the cache now, which is the given maze
+  // unless one was put in first
+  // EFFECT: adds the maze if there isn't one yet and it fits at all
+  synchronized ServedMaze put(MazeRequest request, ServedMaze maze) {
+    ServedMaze other = this.mazes.get(request);
+    if (other != null) {
+      return other;
+    }
+    maze.cachedBytes = maze.bytes();
+    if (maze.cachedBytes <= this.capacity) {
+      this.mazes.put(request, maze);
+      this.bytes += maze.cachedBytes;
+      this.evict();
+    }
+    return maze;
+  }
+
+  // EFFECT: counts the bytes of the maze again if it's in the cache, after it grew
+  synchronized void remeasure(MazeRequest request, ServedMaze maze) {
+    if (this.mazes.get(request) == maze) {
+      long now = maze.bytes();
+      this.bytes += now - maze.cachedBytes;
+      maze.cachedBytes = now;
+      this.evict();
+    }
+  }
+
+  // EFFECT: takes out the least recently used mazes until the rest fit
+  void evict() {
+    Iterator<Map.Entry<MazeRequest, ServedMaze>> oldest = this.mazes.entrySet().iterator();
+    while (this.bytes > this.capacity && oldest.hasNext()) {
+      this.bytes -= oldest.next().getValue().cachedBytes;
+      oldest.remove();
+      this.evictions += 1;
+    }
+  }
+
+  // returns the number of mazes in the cache
+  synchronized int size() {
+    return this.mazes.size();
+  }
+
+  // returns what is in the cache and how well it's doing as one line of text
+  synchronized String report() {
+    return String.format("%d mazes, %.2f MB of %.2f MB, %d hits, %d misses, %d waits, "
+        + "%d evictions", this.mazes.size(), this.bytes / 1e6, this.capacity / 1e6, this.hits,
+        this.misses, this.waits, this.evictions);
+  }
+}
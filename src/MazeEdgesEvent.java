@@ -0,0 +1,17 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// represents making or weighing again the Edges of a maze, for Flight Recorder
+@Name("maze.Edges")
+@Label("Maze Edges")
+@Category("Maze")
+@Description("Making or weighing again the Edges of a maze")
+@Enabled(false)
+class MazeEdgesEvent extends Event {
+  @Label("Edges")
+  int edges;
+}
@@ -0,0 +1,227 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/* Notes:
+ * - A maze file is little endian, so the passage longs have the same bytes as the
+ *   output of a StreamRowSink, and is laid out as:
+ *     header (40 bytes): "MAZE", version, width, height, seed (8 bytes), bias,
+ *                        flags, solution steps, 4 bytes of padding
+ *     passages:          passageWords() longs, bit 2 * cell is east and 2 * cell + 1 south
+ *     solution:          if flags has HAS_SOLUTION, the direction of every step from the
+ *                        top left, 4 to a byte from the lowest bits up
+ * - The passages start on an 8 byte boundary, so reading a file maps it and views the
+ *   passages as a LongBuffer in place, nothing is copied or regenerated
+ * - Files are opened to read, and mapped copy-on-write when they could also be written,
+ *   so knocking down walls in a grid that was read never changes the file. A file that
+ *   can't be written, or is on a read only file system, is mapped read only, and
+ *   knocking down its walls throws a ReadOnlyBufferException
+ * - A stored solution is checked step by step as it's read, so a corrupt one can't walk
+ *   off the grid or through a wall
+ */
+
+// represents a maze read from a maze file
+class MazeFile {
+  static final int MAGIC = 0x455A414D; // "MAZE" read as a little endian int
+  static final int VERSION = 1;
+  static final int HEADER_BYTES = 40;
+  static final int HAS_SOLUTION = 1; // the flag for a file that has a solution
+
+  MazeGrid grid; // a view of the passages in the file
+  long seed;
+  int bias;
+  ByteBuffer solution; // a view of the solution in the file, or null if there is none
+  int solutionSteps; // the number of steps in the solution
+
+  MazeFile(MazeGrid grid, long seed, int bias, ByteBuffer solution, int solutionSteps) {
+    this.grid = grid;
+    this.seed = seed;
+    this.bias = bias;
+    this.solution = solution;
+    this.solutionSteps = solutionSteps;
+  }
+
+  // returns the maze in the given file
+  static MazeFile read(Path path) throws IOException {
+    MappedByteBuffer file = MazeFile.map(path);
+    if (file.capacity() < HEADER_BYTES || file.getInt(0) != MAGIC) {
+      throw new IllegalArgumentException("Not a maze file!");
+    }
+    if (file.getInt(4) != VERSION) {
+      throw new IllegalArgumentException("Maze file version " + file.getInt(4)
+          + " isn't supported!");
+    }
+    int width = file.getInt(8);
+    int height = file.getInt(12);
+    long seed = file.getLong(16);
+    int bias = file.getInt(24);
+    boolean hasSolution = (file.getInt(28) & HAS_SOLUTION) != 0;
+    int steps = file.getInt(32);
+    if (bias < EdgeWeights.NO_BIAS || bias > EdgeWeights.BIAS_Y) {
+      throw new IllegalArgumentException("Maze file bias " + bias + " isn't supported!");
+    }
+
+    MazeGrid sized = new MazeGrid(width, height, false); // checks the dimensions
+    long passageBytes = 8L * sized.passageWords();
+    long solutionBytes = hasSolution ? (steps + 3L) / 4 : 0;
+    if (steps < 0 || file.capacity() < HEADER_BYTES + passageBytes + solutionBytes) {
+      throw new IllegalArgumentException("Maze file is too short!");
+    }
+    LongBuffer passages = MazeFile.slice(file, HEADER_BYTES, passageBytes).asLongBuffer();
+    ByteBuffer solution = null;
+    if (hasSolution) {
+      solution = MazeFile.slice(file, HEADER_BYTES + passageBytes, solutionBytes);
+    }
+    return new MazeFile(new MappedMazeGrid(width, height, passages), seed, bias, solution,
+        steps);
+  }
+
+  // returns the whole file mapped into memory read only, or copy-on-write if the file
+  // can be written to (a copy-on-write mapping needs a channel that could write)
+  static MappedByteBuffer map(Path path) throws IOException {
+    FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+    FileChannel.MapMode mode = FileChannel.MapMode.READ_ONLY;
+    if (Files.isWritable(path)) {
+      try {
+        FileChannel writable = FileChannel.open(path, StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+        channel.close();
+        channel = writable;
+        mode = FileChannel.MapMode.PRIVATE;
+      }
+      catch (IOException | UnsupportedOperationException e) {
+        // the file system won't write after all, so it stays read only
+      }
+    }
+    // the mapping stays usable after the channel is closed
+    try (FileChannel open = channel) {
+      MappedByteBuffer file = open.map(mode, 0, open.size());
+      file.order(ByteOrder.LITTLE_ENDIAN);
+      return file;
+    }
+  }
+
+  // returns a little endian view of length bytes of the buffer, starting at from
+  static ByteBuffer slice(ByteBuffer buffer, long from, long length) {
+    ByteBuffer view = buffer.duplicate();
+    view.position((int) from);
+    view.limit((int) (from + length));
+    return view.slice().order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  // EFFECT: writes the grid to the given file, with its solution if the given path of
+  // cells from the top left isn't null or empty
+  static void write(Path path, MazeGrid grid, long seed, int bias, int[] solution)
+      throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      MappedByteBuffer file = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+          MazeFile.size(grid, solution));
+      file.order(ByteOrder.LITTLE_ENDIAN);
+      MazeFile.put(file, grid, seed, bias, solution);
+    }
+  }
+
+  // returns the bytes of the maze file of the grid and solution, without a file
+  static byte[] encode(MazeGrid grid, long seed, int bias, int[] solution) {
+    ByteBuffer file = ByteBuffer.allocate((int) MazeFile.size(grid, solution));
+    file.order(ByteOrder.LITTLE_ENDIAN);
+    MazeFile.put(file, grid, seed, bias, solution);
+    return file.array();
+  }
+
+  // returns the number of bytes in the maze file of the grid and solution
+  static long size(MazeGrid grid, int[] solution) {
+    boolean hasSolution = solution != null && solution.length > 0;
+    return HEADER_BYTES + 8L * grid.passageWords()
+        + (hasSolution ? (solution.length - 1 + 3L) / 4 : 0);
+  }
+
+  // EFFECT: puts the maze file of the grid and solution in the little endian buffer
+  static void put(ByteBuffer file, MazeGrid grid, long seed, int bias, int[] solution) {
+    boolean hasSolution = solution != null && solution.length > 0;
+    file.putInt(MAGIC);
+    file.putInt(VERSION);
+    file.putInt(grid.width);
+    file.putInt(grid.height);
+    file.putLong(seed);
+    file.putInt(bias);
+    file.putInt(hasSolution ? HAS_SOLUTION : 0);
+    file.putInt(hasSolution ? solution.length - 1 : 0);
+    file.putInt(0);
+    for (int i = 0; i < grid.passageWords(); i += 1) {
+      file.putLong(grid.passageWord(i));
+    }
+    if (hasSolution) {
+      MazeFile.putSteps(file, grid, solution);
+    }
+  }
+
+  // EFFECT: puts the direction of every step along the path of cells in the buffer, 4
+  // to a byte from the lowest bits up
+  static void putSteps(ByteBuffer buffer, MazeGrid grid, int[] path) {
+    int steps = path.length - 1;
+    for (int i = 0; i < steps; i += 4) {
+      int packed = 0;
+      for (int j = i; j < Math.min(i + 4, steps); j += 1) {
+        packed |= MazeFile.direction(grid, path[j], path[j + 1]) << (2 * (j - i));
+      }
+      buffer.put((byte) packed);
+    }
+  }
+
+  // returns the direction to go from one cell to the next cell over
+  static int direction(MazeGrid grid, int from, int to) {
+    if (to == from + 1) {
+      return MazeGrid.EAST;
+    }
+    else if (to == from + grid.width) {
+      return MazeGrid.SOUTH;
+    }
+    else if (to == from - 1) {
+      return MazeGrid.WEST;
+    }
+    else if (to == from - grid.width) {
+      return MazeGrid.NORTH;
+    }
+    else {
+      throw new IllegalArgumentException("Cells " + from + " and " + to + " aren't next to "
+          + "each other!");
+    }
+  }
+
+  // Does this file have a solution?
+  boolean hasSolution() {
+    return this.solution != null;
+  }
+
+  // returns the cells of the solution, from the top left to the bottom right
+  int[] solution() {
+    if (this.solution == null) {
+      throw new IllegalStateException("This maze file has no solution!");
+    }
+    return MazeFile.readSteps(this.grid, this.solution, 0, this.solutionSteps);
+  }
+
+  // returns the cells of the path that takes the given number of steps from the start
+  // cell, with the directions put in the buffer by putSteps
+  static int[] readSteps(MazeGrid grid, ByteBuffer directions, int start, int steps) {
+    int[] path = new int[steps + 1];
+    path[0] = start;
+    for (int i = 0; i < steps; i += 1) {
+      int direction = (directions.get(i >>> 2) >>> (2 * (i & 3))) & 3;
+      if (!grid.isOpen(path[i], direction)) {
+        throw new IllegalArgumentException("Step " + i + " of the path goes through a wall!");
+      }
+      path[i + 1] = grid.neighbor(path[i], direction);
+    }
+    return path;
+  }
+}
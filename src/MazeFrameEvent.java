@@ -0,0 +1,23 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// represents a frame drawn by makeScene, for Flight Recorder
+@Name("maze.Frame")
+@Label("Maze Frame")
+@Category("Maze")
+@Description("Drawing a frame of a maze")
+@Enabled(false)
+class MazeFrameEvent extends Event {
+  @Label("Walls Painted")
+  int edges;
+
+  @Label("Cells Painted")
+  int cells;
+
+  @Label("Raster")
+  boolean raster;
+}
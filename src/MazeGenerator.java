@@ -0,0 +1,89 @@
+import java.util.SplittableRandom;
+
+/* Notes:
+ * - Every generator knocks down the walls of a spanning tree in a MazeGrid, so they all
+ *   make perfect mazes in the same compact model and can be swapped for each other
+ * - Kruskal's and Prim's take their weights from EdgeWeights, the others flip coins
+ *   from a SplittableRandom, either way a seed always gives the same maze
+ * - The bias makes passages across (BIAS_X) or up and down (BIAS_Y) more likely
+ * - Binary tree, sidewinder and Eller's make the maze in one pass with almost no
+ *   memory besides the grid, but they have a visible texture: binary tree and
+ *   sidewinder have a long straight corridor along one side
+ */
+
+// represents a way to make a perfect maze in a MazeGrid
+interface MazeGenerator {
+  // returns the name used to pick this generator
+  String name();
+
+  // EFFECT: puts every wall of the grid back up and knocks down a spanning tree
+  void generate(MazeGrid grid, long seed, int bias);
+
+  // returns how long this generator took to make the maze
+  // EFFECT: generates the maze into the grid
+  default GenerationReport generateTimed(MazeGrid grid, long seed, int bias) {
+    long start = System.nanoTime();
+    this.generate(grid, seed, bias);
+    return new GenerationReport(this.name(), grid.size(), System.nanoTime() - start);
+  }
+
+  // returns one of every generator
+  static MazeGenerator[] all() {
+    return new MazeGenerator[] { new KruskalGenerator(), new ParallelKruskal(),
+        new BacktrackerGenerator(), new PrimGenerator(), new WilsonGenerator(),
+        new BinaryTreeGenerator(), new SidewinderGenerator(), new EllerMazeGenerator() };
+  }
+
+  // returns the generator with the given name
+  static MazeGenerator byName(String name) {
+    for (MazeGenerator generator : all()) {
+      if (generator.name().equals(name)) {
+        return generator;
+      }
+    }
+    throw new IllegalArgumentException("There is no generator called " + name + "!");
+  }
+
+  // returns how likely a step in the given direction is, out of 4, under the bias
+  static int directionWeight(int direction, int bias) {
+    boolean across = direction == MazeGrid.EAST || direction == MazeGrid.WEST;
+    if ((bias == EdgeWeights.BIAS_X && across) || (bias == EdgeWeights.BIAS_Y && !across)) {
+      return 3;
+    }
+    else if (bias == EdgeWeights.NO_BIAS) {
+      return 2;
+    }
+    else {
+      return 1;
+    }
+  }
+
+  // returns one of the first count directions, picked at random by their weights
+  static int pickDirection(SplittableRandom random, int[] directions, int count, int bias) {
+    int total = 0;
+    for (int i = 0; i < count; i += 1) {
+      total += directionWeight(directions[i], bias);
+    }
+    int roll = random.nextInt(total);
+    for (int i = 0; i < count - 1; i += 1) {
+      roll -= directionWeight(directions[i], bias);
+      if (roll < 0) {
+        return directions[i];
+      }
+    }
+    return directions[count - 1];
+  }
+
+  // returns 64 coin flips that come up 1 half of the time, 3/4 of the time with
+  // BIAS_X or 1/4 of the time with BIAS_Y (1 means go east)
+  static long flipCoins(SplittableRandom random, int bias) {
+    long flips = random.nextLong();
+    if (bias == EdgeWeights.BIAS_X) {
+      flips |= random.nextLong();
+    }
+    else if (bias == EdgeWeights.BIAS_Y) {
+      flips &= random.nextLong();
+    }
+    return flips;
+  }
+}
@@ -0,0 +1,183 @@
+import java.util.Arrays;
+
+/* Notes:
+ * - Cells are numbered across each row, so the cell at (x, y) is y * width + x
+ * - Every cell owns the two walls on its east and south side, so passage 2 * cell
+ *   is the wall to the east of the cell and passage 2 * cell + 1 is the wall to the south
+ * - A passage bit is 1 once that wall has been knocked down, so a whole maze takes
+ *   2 bits per cell instead of a Vertex, a Posn and an Edge per wall
+ */
+
+// represents the walls of a maze as a grid of int cells and a bitset of open passages
+class MazeGrid {
+  static final int EAST = 0; // the directions that a cell owns the walls of
+  static final int SOUTH = 1;
+  static final int WEST = 2; // the directions that a neighbor owns the walls of
+  static final int NORTH = 3;
+
+  int width; // number of cells to the right
+  int height; // number of cells down
+  long[] passages; // two bits per cell, set if the wall to the east/south is knocked down
+  // (null in a MappedMazeGrid, which keeps them in a file)
+
+  // constructor for MazeGrid, every wall starts out standing
+  MazeGrid(int width, int height) {
+    this(width, height, true);
+  }
+
+  // constructor for MazeGrid, leaves passages null if makePassages is false, for a
+  // grid that keeps its passage bits somewhere else
+  MazeGrid(int width, int height, boolean makePassages) {
+    MazeGrid.checkSize(width, height);
+    this.width = width;
+    this.height = height;
+    this.passages = makePassages ? new long[this.passageWords()] : null;
+  }
+
+  // EFFECT: throws an IllegalArgumentException if there can't be a grid of the given size
+  static void checkSize(int width, int height) {
+    if (width <= 1 || height <= 1) {
+      throw new IllegalArgumentException("Maze has to be bigger than 1 dimension!");
+    }
+    // every passage index has to fit in an int
+    if ((long) width * height > Integer.MAX_VALUE / 2) {
+      throw new IllegalArgumentException("Maze is too big!");
+    }
+  }
+
+  // returns the number of cells in the grid
+  int size() {
+    return this.width * this.height;
+  }
+
+  // returns the number of longs it takes to hold every passage bit
+  int passageWords() {
+    return (int) ((2L * this.size() + 63) >>> 6);
+  }
+
+  // returns passage bits 64 * i to 64 * i + 63, the lowest bit first
+  long passageWord(int i) {
+    return this.passages[i];
+  }
+
+  // returns the cell at the given coordinates
+  int cell(int x, int y) {
+    return y * this.width + x;
+  }
+
+  // returns the x coordinate of the given cell
+  int cellX(int cell) {
+    return cell % this.width;
+  }
+
+  // returns the y coordinate of the given cell
+  int cellY(int cell) {
+    return cell / this.width;
+  }
+
+  // returns whether there is a cell next to the given cell in the given direction
+  boolean hasNeighbor(int cell, int direction) {
+    if (direction == EAST) {
+      return this.cellX(cell) < this.width - 1;
+    }
+    else if (direction == SOUTH) {
+      return cell < this.size() - this.width;
+    }
+    else if (direction == WEST) {
+      return this.cellX(cell) > 0;
+    }
+    else {
+      return cell >= this.width;
+    }
+  }
+
+  // returns the cell next to the given cell in the given direction
+  // (only meaningful if hasNeighbor is true)
+  int neighbor(int cell, int direction) {
+    if (direction == EAST) {
+      return cell + 1;
+    }
+    else if (direction == SOUTH) {
+      return cell + this.width;
+    }
+    else if (direction == WEST) {
+      return cell - 1;
+    }
+    else {
+      return cell - this.width;
+    }
+  }
+
+  // returns the passage index of the wall on the given side of the given cell
+  // (only meaningful if hasNeighbor is true)
+  int passage(int cell, int direction) {
+    if (direction == EAST || direction == SOUTH) {
+      return 2 * cell + direction;
+    }
+    else {
+      return 2 * this.neighbor(cell, direction) + direction - 2;
+    }
+  }
+
+  // returns the cell that owns the given passage, which is its west or north side
+  int passageCell(int passage) {
+    return passage >>> 1;
+  }
+
+  // returns EAST or SOUTH, the side of passageCell that the given passage is on
+  int passageDirection(int passage) {
+    return passage & 1;
+  }
+
+  // returns the cell on the other side of the given passage from passageCell
+  int passageNeighbor(int passage) {
+    return this.neighbor(passage >>> 1, passage & 1);
+  }
+
+  // returns whether the given passage index is a wall inside the grid
+  boolean isPassage(int passage) {
+    return passage >= 0 && passage < 2 * this.size()
+        && this.hasNeighbor(passage >>> 1, passage & 1);
+  }
+
+  // returns whether the given passage has been knocked down
+  boolean isPassageOpen(int passage) {
+    return (this.passages[passage >>> 6] & (1L << passage)) != 0;
+  }
+
+  // returns whether you can walk from the given cell in the given direction
+  boolean isOpen(int cell, int direction) {
+    return this.hasNeighbor(cell, direction) && this.isPassageOpen(this.passage(cell, direction));
+  }
+
+  // EFFECT: knocks down the given passage
+  void openPassage(int passage) {
+    this.passages[passage >>> 6] |= 1L << passage;
+  }
+
+  // EFFECT: knocks down the wall on the given side of the given cell
+  void open(int cell, int direction) {
+    this.openPassage(this.passage(cell, direction));
+  }
+
+  // EFFECT: puts every wall back up
+  void clear() {
+    Arrays.fill(this.passages, 0L);
+  }
+
+  // returns whether the open passages make a perfect maze, which is a spanning tree
+  // with exactly one path between any two cells
+  boolean isPerfect() {
+    UnionFind sets = new UnionFind(this.size());
+    int open = 0;
+    for (int p = 0; p < 2 * this.size(); p += 1) {
+      if (this.isPassageOpen(p)) {
+        if (!this.isPassage(p) || !sets.union(this.passageCell(p), this.passageNeighbor(p))) {
+          return false; // a passage out of the grid or a loop
+        }
+        open += 1;
+      }
+    }
+    return open == this.size() - 1;
+  }
+}
@@ -0,0 +1,122 @@
+import jdk.jfr.Event;
+
+/* Notes:
+ * - A Maze records how long it spent making Edges, in kruskals, in searchHelp and in
+ *   makeScene into its MazeMetrics, which is null (off) unless the maze.metrics system
+ *   property is true or one is set, and into the JDK Flight Recorder events
+ *   MazeEdgesEvent, KruskalsEvent, MazeSearchEvent and MazeFrameEvent
+ * - The numbers come from local counters and a couple of System.nanoTime calls for
+ *   each maze, search or frame, taken only if recording says something is listening.
+ *   That is checked for each kind of event, so a flight recording that leaves the Maze
+ *   events off (like a continuous one in production) costs the same as no recording: a
+ *   null check and the isEnabled of an event that is never begun or committed, and
+ *   nothing is timed or counted
+ * - Only a recorded kruskals counts find steps, with a CountingUnionFind, every other
+ *   Kruskal's keeps the plain UnionFind's find in its inner loop
+ * - snapshot() copies every number while holding the lock the records take, so it can
+ *   be read from another thread while a maze is being made or drawn
+ * - The events are @Enabled(false), so a recording only has them if it turns them on:
+ *   java -XX:StartFlightRecording:filename=maze.jfr,+maze.Kruskals#enabled=true ... (and
+ *   the same for maze.Edges, maze.Search and maze.Frame) and then
+ *   jfr print --categories Maze maze.jfr, or open it in JDK Mission Control
+ */
+
+// represents the numbers recorded about making, solving and drawing mazes
+class MazeMetrics {
+  static final String PROPERTY = "maze.metrics"; // the system property that turns it on
+
+  long mazes; // kruskals runs recorded
+  long edgeNanos; // making (or weighing again) the Edges of the last maze
+  long kruskalNanos; // the last kruskals, with its sort
+  long sortNanos; // sorting the Edges of the last kruskals by weight
+  long unions; // calls to union in the last kruskals
+  long findSteps; // steps up the UnionFind taken by every find in the last kruskals
+  int deepestFind; // the most steps one find took in the last kruskals
+  long searches; // searchHelp runs recorded
+  int expanded; // Vertices taken off the worklist and looked at by the last search
+  int largestWorklist; // the most Vertices on the worklist at once in the last search
+  long frames; // makeScene runs recorded
+  long frameNanos; // the last frame
+  long slowestFrameNanos; // the slowest frame so far
+  long totalFrameNanos; // every frame so far, added up
+  int frameEdges; // knocked down walls the last frame painted
+  int frameCells; // visited and answer cells the last frame painted
+
+  // returns a MazeMetrics if the maze.metrics system property is true, null if it isn't
+  static MazeMetrics fromProperty() {
+    return Boolean.getBoolean(PROPERTY) ? new MazeMetrics() : null;
+  }
+
+  // returns whether there is anything to record into: the given MazeMetrics, or a flight
+  // recording that has the given event's kind turned on
+  static boolean recording(MazeMetrics metrics, Event event) {
+    return metrics != null || event.isEnabled();
+  }
+
+  // EFFECT: records the time it took to make the Edges of a maze
+  synchronized void recordEdges(long nanos) {
+    this.edgeNanos = nanos;
+  }
+
+  // EFFECT: records a run of kruskals
+  synchronized void recordKruskals(long nanos, long sortNanos, long unions, long findSteps,
+      int deepestFind) {
+    this.mazes += 1;
+    this.kruskalNanos = nanos;
+    this.sortNanos = sortNanos;
+    this.unions = unions;
+    this.findSteps = findSteps;
+    this.deepestFind = deepestFind;
+  }
+
+  // EFFECT: records a run of searchHelp
+  synchronized void recordSearch(int expanded, int largestWorklist) {
+    this.searches += 1;
+    this.expanded = expanded;
+    this.largestWorklist = largestWorklist;
+  }
+
+  // EFFECT: records a frame drawn by makeScene
+  synchronized void recordFrame(long nanos, int edges, int cells) {
+    this.frames += 1;
+    this.frameNanos = nanos;
+    this.slowestFrameNanos = Math.max(this.slowestFrameNanos, nanos);
+    this.totalFrameNanos += nanos;
+    this.frameEdges = edges;
+    this.frameCells = cells;
+  }
+
+  // returns a copy of every number as it is right now
+  synchronized MazeMetrics snapshot() {
+    MazeMetrics copy = new MazeMetrics();
+    copy.mazes = this.mazes;
+    copy.edgeNanos = this.edgeNanos;
+    copy.kruskalNanos = this.kruskalNanos;
+    copy.sortNanos = this.sortNanos;
+    copy.unions = this.unions;
+    copy.findSteps = this.findSteps;
+    copy.deepestFind = this.deepestFind;
+    copy.searches = this.searches;
+    copy.expanded = this.expanded;
+    copy.largestWorklist = this.largestWorklist;
+    copy.frames = this.frames;
+    copy.frameNanos = this.frameNanos;
+    copy.slowestFrameNanos = this.slowestFrameNanos;
+    copy.totalFrameNanos = this.totalFrameNanos;
+    copy.frameEdges = this.frameEdges;
+    copy.frameCells = this.frameCells;
+    return copy;
+  }
+
+  // returns the numbers as one line of text
+  synchronized String report() {
+    return String.format("%d mazes (edges %.2f ms, kruskals %.2f ms, sort %.2f ms, "
+        + "%d unions, %d find steps, deepest find %d), %d searches (%d expanded, "
+        + "largest worklist %d), %d frames (last %.2f ms, slowest %.2f ms, average %.2f ms, "
+        + "%d walls, %d cells)", this.mazes, this.edgeNanos / 1e6, this.kruskalNanos / 1e6,
+        this.sortNanos / 1e6, this.unions, this.findSteps, this.deepestFind, this.searches,
+        this.expanded, this.largestWorklist, this.frames, this.frameNanos / 1e6,
+        this.slowestFrameNanos / 1e6, this.totalFrameNanos / 1e6 / Math.max(this.frames, 1),
+        this.frameEdges, this.frameCells);
+  }
+}
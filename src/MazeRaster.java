@@ -0,0 +1,278 @@
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+import java.util.BitSet;
+
+import javalib.worldimages.ComputedPixelImage;
+
+/* Notes:
+ * - Paints a whole maze straight into the int[] of a BufferedImage, one pixel at a
+ *   time, so the cost depends on the size of the picture and not the size of the maze
+ * - The grid is laid out as blocks: block 2 * x + 1 is the inside of column x of cells
+ *   and block 2 * x is the line to its west, the same going down, so a pixel only has
+ *   to look up its column's block and its row's block to know what it shows
+ * - If every cell gets at least 2 pixels, a line is 1 pixel and the rest of the cell is
+ *   its inside, otherwise the blocks are stretched evenly, which keeps mazes wider than
+ *   the picture recognizable instead of making cellSize 0
+ * - A stretched pixel shows every block from its own up to the next pixel's, and takes
+ *   the color that matters most among them: the pointer, then the answer, the cursor,
+ *   visited cells, start and end, floor and last wall. Picking one block per pixel
+ *   instead lands every pixel on a line when the maze is 1000 or 2000 cells across, so
+ *   none of the cells would show
+ * - The visited and answer bits are copied to long[]s once a render, so whether any of a
+ *   pixel's cells are set is a few word masks for each row of cells it shows
+ * - A color is only worked out when the block changes, and a row of pixels showing the
+ *   same blocks as the row above is copied, so big cells cost about one array copy
+ * - Works headless, and copyTo puts the pixels in a ComputedPixelImage for makeScene
+ *   through its public setPixels, one rectangle for each run of a color in a row. Rows
+ *   it copied to the same picture last time and that haven't changed are skipped, and
+ *   a run of the same row going down is one rectangle, so a frame costs about the
+ *   walls that changed and not every pixel
+ */
+
+// represents a picture of a maze's walls, visited cells and answer as ARGB pixels
+class MazeRaster {
+  static final int WALL = 0xFF000000; // black
+  static final int FLOOR = 0xFF808080; // gray, and every knocked down wall
+  static final int VISITED = 0xFF87D2FA; // lightBlue
+  static final int ANSWER = 0xFF0000FF; // blue
+  static final int START = 0xFF00FF00; // green, and the cell the search is on
+  static final int END = 0xFFFF00FF; // magenta
+  static final int POINTER = 0xFFFF5C00; // orange
+
+  int width; // in pixels
+  int height;
+  BufferedImage image;
+  int[] pixels; // the pixels of image, across each row
+  int gridWidth; // the size of grid the blocks are laid out for, in cells
+  int gridHeight;
+  int[] columns; // the first block that each column of pixels shows
+  int[] rows; // the first block that each row of pixels shows
+  ComputedPixelImage copiedTo; // the picture of the last copyTo, null if there wasn't one
+  int[] copied; // the pixels as they were the last copyTo
+
+  MazeRaster(int width, int height) {
+    if (width <= 0 || height <= 0) {
+      throw new IllegalArgumentException("Picture has to be at least 1 pixel!");
+    }
+    this.width = width;
+    this.height = height;
+    this.image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+    this.pixels = ((DataBufferInt) this.image.getRaster().getDataBuffer()).getData();
+    this.gridWidth = 0;
+    this.gridHeight = 0;
+    this.copiedTo = null;
+    this.copied = new int[width * height];
+  }
+
+  // returns the block of each pixel along a side of the picture that is pixels long,
+  // showing cells cells
+  static int[] blocks(int pixels, int cells) {
+    int[] blocks = new int[pixels];
+    if ((pixels - 1) / cells >= 2) {
+      // a 1 pixel line on the west of each cell, and one more at the end
+      for (int c = 0; c < cells; c += 1) {
+        int start = (int) ((long) c * (pixels - 1) / cells);
+        int end = (int) ((long) (c + 1) * (pixels - 1) / cells);
+        blocks[start] = 2 * c;
+        for (int p = start + 1; p < end; p += 1) {
+          blocks[p] = 2 * c + 1;
+        }
+      }
+      blocks[pixels - 1] = 2 * cells;
+    }
+    else {
+      for (int p = 0; p < pixels; p += 1) {
+        blocks[p] = (int) ((long) p * (2 * cells + 1) / pixels);
+      }
+    }
+    return blocks;
+  }
+
+  // EFFECT: paints the grid's walls (a wall is knocked down if its passage is open),
+  // the visited cells and the answer (either can be null), the cell the search is on
+  // and the manual pointer (either can be -1)
+  void render(MazeGrid walls, BitSet visited, BitSet answer, int cursor, int pointer) {
+    if (walls.width != this.gridWidth || walls.height != this.gridHeight) {
+      this.gridWidth = walls.width;
+      this.gridHeight = walls.height;
+      this.columns = MazeRaster.blocks(this.width, walls.width);
+      this.rows = MazeRaster.blocks(this.height, walls.height);
+    }
+    long[] visitedWords = visited == null ? null : visited.toLongArray();
+    long[] answerWords = answer == null ? null : answer.toLongArray();
+    int row = 0;
+    for (int py = 0; py < this.height; py += 1, row += this.width) {
+      int y0 = this.rows[py];
+      if (py > 0 && y0 == this.rows[py - 1]) {
+        // the same blocks as the row above
+        System.arraycopy(this.pixels, row - this.width, this.pixels, row, this.width);
+        continue;
+      }
+      int y1 = MazeRaster.end(this.rows, py, walls.height);
+      int lastX0 = -1;
+      int color = WALL;
+      for (int px = 0; px < this.width; px += 1) {
+        int x0 = this.columns[px];
+        if (x0 != lastX0) {
+          color = this.color(walls, visitedWords, answerWords, cursor, pointer, x0,
+              MazeRaster.end(this.columns, px, walls.width), y0, y1);
+          lastX0 = x0;
+        }
+        this.pixels[row + px] = color;
+      }
+    }
+  }
+
+  // returns one past the last block that pixel p of the given blocks shows, along a side
+  // showing cells cells
+  static int end(int[] blocks, int p, int cells) {
+    int next = p + 1 < blocks.length ? blocks[p + 1] : 2 * cells + 1;
+    return Math.max(next, blocks[p] + 1);
+  }
+
+  // returns the color of a pixel showing blocks x0 to x1 - 1 across and y0 to y1 - 1
+  // down, the one that matters most among them
+  int color(MazeGrid walls, long[] visited, long[] answer, int cursor, int pointer, int x0,
+      int x1, int y0, int y1) {
+    // the cells whose insides are among the blocks
+    int left = x0 >>> 1;
+    int right = x1 >>> 1;
+    int top = y0 >>> 1;
+    int bottom = y1 >>> 1;
+    if (left == right || top == bottom) {
+      // only lines, open if any of them is
+      for (int by = y0; by < y1; by += 1) {
+        for (int bx = x0; bx < x1; bx += 1) {
+          if (this.lineOpen(walls, bx, by)) {
+            return FLOOR;
+          }
+        }
+      }
+      return WALL;
+    }
+    else if (this.inside(walls, pointer, left, right, top, bottom)) {
+      return POINTER;
+    }
+    else if (MazeRaster.anySet(answer, walls.width, left, right, top, bottom)) {
+      return ANSWER;
+    }
+    else if (this.inside(walls, cursor, left, right, top, bottom)) {
+      return START;
+    }
+    else if (MazeRaster.anySet(visited, walls.width, left, right, top, bottom)) {
+      return VISITED;
+    }
+    else if (left == 0 && top == 0) {
+      return START;
+    }
+    else if (right == walls.width && bottom == walls.height) {
+      return END;
+    }
+    else {
+      return FLOOR;
+    }
+  }
+
+  // Is line block (bx, by) a knocked down wall? A block where two lines cross never is
+  boolean lineOpen(MazeGrid walls, int bx, int by) {
+    int x = bx >>> 1;
+    int y = by >>> 1;
+    if ((by & 1) == 0) {
+      // a line above row y, open where row y - 1 has its south wall knocked down
+      return (bx & 1) == 1 && y > 0 && y < walls.height
+          && walls.isPassageOpen(2 * ((y - 1) * walls.width + x) + 1);
+    }
+    else {
+      // a line west of cell x, open where the cell to its west has its east wall down
+      return (bx & 1) == 0 && x > 0 && x < walls.width
+          && walls.isPassageOpen(2 * (y * walls.width + x - 1));
+    }
+  }
+
+  // Is the given cell (which can be -1) in columns left to right - 1 of rows top to
+  // bottom - 1?
+  boolean inside(MazeGrid walls, int cell, int left, int right, int top, int bottom) {
+    if (cell < 0) {
+      return false;
+    }
+    int x = walls.cellX(cell);
+    int y = walls.cellY(cell);
+    return left <= x && x < right && top <= y && y < bottom;
+  }
+
+  // Is any bit (of a BitSet's long[], which can be null) set for the cells in columns
+  // left to right - 1 of rows top to bottom - 1 of a grid that is width cells across?
+  static boolean anySet(long[] words, int width, int left, int right, int top, int bottom) {
+    if (words == null) {
+      return false;
+    }
+    for (int y = top; y < bottom; y += 1) {
+      int from = y * width + left;
+      int to = y * width + right; // one past the last
+      for (int i = from >>> 6; i <= (to - 1) >>> 6 && i < words.length; i += 1) {
+        long word = words[i];
+        if (i == from >>> 6) {
+          word &= -1L << from;
+        }
+        if (i == (to - 1) >>> 6) {
+          word &= -1L >>> (63 - ((to - 1) & 63));
+        }
+        if (word != 0) {
+          return true;
+        }
+      }
+    }
+    return false;
+  }
+
+  // EFFECT: copies the pixels into the given picture, which has to be the same size,
+  // leaving out the rows that are already there from the last copy
+  void copyTo(ComputedPixelImage picture) {
+    if (picture.width != this.width || picture.height != this.height) {
+      throw new IllegalArgumentException("Picture has to be " + this.width + "x" + this.height
+          + "!");
+    }
+    boolean again = picture == this.copiedTo;
+    int py = 0;
+    while (py < this.height) {
+      if (again && this.sameRow(this.copied, py, py)) {
+        py += 1;
+        continue;
+      }
+      // the rows below that show the same pixels are painted with this one
+      int tall = 1;
+      while (py + tall < this.height && this.sameRow(this.pixels, py + tall, py)
+          && !(again && this.sameRow(this.copied, py + tall, py + tall))) {
+        tall += 1;
+      }
+      this.copyRow(picture, py, tall);
+      py += tall;
+    }
+    System.arraycopy(this.pixels, 0, this.copied, 0, this.pixels.length);
+    this.copiedTo = picture;
+  }
+
+  // returns whether row row of the given pixels is the same as row py of this picture
+  boolean sameRow(int[] other, int row, int py) {
+    return Arrays.equals(other, row * this.width, (row + 1) * this.width, this.pixels,
+        py * this.width, (py + 1) * this.width);
+  }
+
+  // EFFECT: paints row py and the tall - 1 rows below it with row py of the pixels, one
+  // rectangle for each run of the same color
+  void copyRow(ComputedPixelImage picture, int py, int tall) {
+    int row = py * this.width;
+    int px = 0;
+    while (px < this.width) {
+      int color = this.pixels[row + px];
+      int end = px + 1;
+      while (end < this.width && this.pixels[row + end] == color) {
+        end += 1;
+      }
+      picture.setPixels(px, py, end - px, tall, new Color(color, true));
+      px = end;
+    }
+  }
+}
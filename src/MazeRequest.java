@@ -0,0 +1,83 @@
+import java.util.Map;
+import java.util.Objects;
+
+// represents what a request to the MazeServer asks for
+class MazeRequest {
+  static final int MAX_CELLS = 4000000; // the biggest maze a request can ask for
+
+  int width;
+  int height;
+  int bias;
+  long seed;
+  String generator; // the name of the MazeGenerator to use
+  boolean binary; // is the answer binary instead of text?
+
+  // constructor for MazeRequest
+  MazeRequest(int width, int height, int bias, long seed, String generator, boolean binary) {
+    if (width <= 1 || height <= 1) {
+      throw new IllegalArgumentException("Maze has to be bigger than 1 dimension!");
+    }
+    if ((long) width * height > MAX_CELLS) {
+      throw new IllegalArgumentException("Maze can't have more than " + MAX_CELLS + " cells!");
+    }
+    new EdgeWeights(seed, bias); // checks the bias
+    MazeGenerator.byName(generator); // checks the generator
+    this.width = width;
+    this.height = height;
+    this.bias = bias;
+    this.seed = seed;
+    this.generator = generator;
+    this.binary = binary;
+  }
+
+  // returns the request that the given parameters ask for
+  static MazeRequest parse(Map<String, String> parameters) {
+    int width = 100;
+    int height = 100;
+    int bias = EdgeWeights.NO_BIAS;
+    long seed = 0;
+    String generator = parameters.getOrDefault("generator", "kruskal");
+    boolean binary = true;
+    try {
+      if (parameters.containsKey("size")) {
+        String[] dimensions = parameters.get("size").split("x");
+        if (dimensions.length != 2) {
+          throw new IllegalArgumentException("Size has to look like 100x60!");
+        }
+        width = Integer.parseInt(dimensions[0]);
+        height = Integer.parseInt(dimensions[1]);
+      }
+      if (parameters.containsKey("seed")) {
+        seed = Long.parseLong(parameters.get("seed"));
+      }
+    }
+    catch (NumberFormatException e) {
+      throw new IllegalArgumentException("Size and seed have to be numbers!");
+    }
+    if (parameters.containsKey("bias")) {
+      bias = MazeBatch.parseBias(parameters.get("bias"));
+    }
+    if (parameters.containsKey("format")) {
+      String format = parameters.get("format");
+      if (!format.equals("binary") && !format.equals("text")) {
+        throw new IllegalArgumentException("Format has to be binary or text!");
+      }
+      binary = format.equals("binary");
+    }
+    return new MazeRequest(width, height, bias, seed, generator, binary);
+  }
+
+  // Does the other request ask for the same maze (in any format)?
+  public boolean equals(Object other) {
+    if (!(other instanceof MazeRequest)) {
+      return false;
+    }
+    MazeRequest that = (MazeRequest) other;
+    return this.width == that.width && this.height == that.height && this.bias == that.bias
+        && this.seed == that.seed && this.generator.equals(that.generator);
+  }
+
+  public int hashCode() {
+    return Objects.hash(this.width, this.height, this.bias, this.seed, this.generator);
+  }
+}
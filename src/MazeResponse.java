@@ -0,0 +1,25 @@
+import java.nio.charset.StandardCharsets;
+
+// represents the status, content type and body of an answer from the MazeServer
+class MazeResponse {
+  int status;
+  String type;
+  byte[] body;
+
+  MazeResponse(int status, String type, byte[] body) {
+    this.status = status;
+    this.type = type;
+    this.body = body;
+  }
+
+  // returns a response of the given status with the given text
+  static MazeResponse text(int status, String text) {
+    return new MazeResponse(status, "text/plain; charset=utf-8",
+        text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  // returns a successful response with the given bytes
+  static MazeResponse binary(byte[] bytes) {
+    return new MazeResponse(200, "application/octet-stream", bytes);
+  }
+}
@@ -0,0 +1,23 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// represents a run of searchHelp, for Flight Recorder
+@Name("maze.Search")
+@Label("Maze Search")
+@Category("Maze")
+@Description("Searching a maze from the top left to the bottom right")
+@Enabled(false)
+class MazeSearchEvent extends Event {
+  @Label("Expanded")
+  int expanded;
+
+  @Label("Largest Worklist")
+  int largestWorklist;
+
+  @Label("Path Length")
+  int pathLength;
+}
@@ -0,0 +1,422 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Notes:
+ * - Serves mazes over HTTP to other processes on the same machine (it only listens on
+ *   the loopback address) without a World: like MazeBatch, a request generates into a
+ *   MazeGrid with a MazeGenerator and solves it with a GridSolver, the grid version of
+ *   searchHelp, so no Vertex, Edge or picture is ever made
+ * - The mazes are kept in a MazeCache, so asking for the same maze again (even with a
+ *   different format, from or to) doesn't generate or solve it again
+ * - GET /generate?size=WxH&bias=none|x|y&seed=n&generator=name&format=binary|text
+ *     the maze, as a MazeFile (binary) or drawn with # for walls (text)
+ *   GET /solution?...  the path from the top left to the bottom right
+ *   GET /path?...&from=x,y&to=x,y  the path between two cells, out of a TreeIndex
+ *   GET /stats  how many requests each endpoint answered and how long they took
+ *   every parameter can be left out, the defaults are a 100x100 kruskal maze with no
+ *   bias, seed 0, in binary, and a path from the top left to the bottom right
+ * - A path is little endian: the first cell, the number of steps and then the
+ *   direction of every step, 4 to a byte like a MazeFile solution (binary), or x,y for
+ *   every cell (text)
+ * - Each request runs on its own virtual thread when the JDK has them (21 and up),
+ *   found by reflection so this still compiles for 11, otherwise on a fixed pool of
+ *   threads, and either way thousands of requests at once wait in the accept backlog
+ *   and the executor instead of each getting a platform thread
+ * - Waiting is cheap but making a maze isn't (a 2000x2000 kruskal maze allocates about
+ *   134 MB while it's made), so only as many mazes as there are cores are made at once.
+ *   A request for a maze that isn't in the cache waits up to GENERATE_WAIT for a turn,
+ *   and is answered 503 if it doesn't get one, instead of a burst of big requests
+ *   making them all at once and running out of memory
+ * - Every response time goes in its endpoint's LatencyHistogram with one atomic add,
+ *   so requests never wait on each other to record
+ * - Usage: java MazeServer --port 8080 --threads n --cache-mb 256 --generating n
+ */
+
+// represents a local HTTP server that generates, solves and answers path queries on mazes
+class MazeServer {
+  static final String USAGE = "usage: java MazeServer [--port n] [--threads n] [--cache-mb n] "
+      + "[--generating n]";
+  static final String[] ENDPOINTS = { "generate", "solution", "path", "stats" };
+  static final int GENERATE = 0; // the index of each endpoint in ENDPOINTS
+  static final int SOLUTION = 1;
+  static final int PATH = 2;
+  static final int STATS = 3;
+  static final int BACKLOG = 4096; // connections that can wait to be accepted
+  static final long GENERATE_WAIT = 2000; // milliseconds a request waits to make a maze
+
+  HttpServer server;
+  ExecutorService executor; // runs every request
+  boolean virtual; // does every request get its own virtual thread?
+  int threads; // the size of the pool if it doesn't
+  LatencyHistogram[] latencies; // the response times of each endpoint
+  MazeCache cache; // the mazes that were asked for
+  Semaphore turns; // a permit for each maze that can be made at once
+  long waitMillis; // how long a request waits for a permit before it's turned away
+  AtomicInteger generating; // the mazes being made now
+  AtomicInteger mostGenerating; // the most mazes that were made at once
+  AtomicLong turnedAway; // requests that didn't get to make their maze in time
+
+  // constructor for MazeServer, listening on the given port (0 picks a free one) and
+  // keeping up to cacheBytes of mazes, making as many at once as there are cores
+  MazeServer(int port, int threads, long cacheBytes) throws IOException {
+    this(port, threads, cacheBytes, Runtime.getRuntime().availableProcessors(), GENERATE_WAIT);
+  }
+
+  // constructor for MazeServer, making up to generating mazes at once, with a request
+  // waiting up to waitMillis to make its maze
+  MazeServer(int port, int threads, long cacheBytes, int generating, long waitMillis)
+      throws IOException {
+    if (threads < 1) {
+      throw new IllegalArgumentException("There has to be at least 1 thread!");
+    }
+    if (generating < 1) {
+      throw new IllegalArgumentException("There has to be room to make at least 1 maze!");
+    }
+    this.turns = new Semaphore(generating, true);
+    this.waitMillis = waitMillis;
+    this.generating = new AtomicInteger();
+    this.mostGenerating = new AtomicInteger();
+    this.turnedAway = new AtomicLong();
+    this.executor = MazeServer.virtualExecutor();
+    this.virtual = this.executor != null;
+    this.threads = threads;
+    if (!this.virtual) {
+      this.executor = Executors.newFixedThreadPool(threads);
+    }
+    this.cache = new MazeCache(cacheBytes);
+    this.latencies = new LatencyHistogram[ENDPOINTS.length];
+    for (int i = 0; i < ENDPOINTS.length; i += 1) {
+      this.latencies[i] = new LatencyHistogram();
+    }
+    this.server = HttpServer.create(
+        new InetSocketAddress(InetAddress.getLoopbackAddress(), port), BACKLOG);
+    this.server.setExecutor(this.executor);
+    this.server.createContext("/", this::handle);
+  }
+
+  // returns an executor that starts a virtual thread for each task, or null if this JDK
+  // doesn't have them
+  static ExecutorService virtualExecutor() {
+    try {
+      Method method = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+      return (ExecutorService) method.invoke(null);
+    }
+    catch (ReflectiveOperationException | RuntimeException e) {
+      return null;
+    }
+  }
+
+  // EFFECT: starts answering requests
+  void start() {
+    this.server.start();
+  }
+
+  // EFFECT: stops answering requests and lets the threads go
+  void stop() {
+    this.server.stop(0);
+    this.executor.shutdown();
+  }
+
+  // returns the port the server is listening on
+  int port() {
+    return this.server.getAddress().getPort();
+  }
+
+  // EFFECT: answers one request and records how long it took
+  void handle(HttpExchange exchange) throws IOException {
+    long start = System.nanoTime();
+    String path = exchange.getRequestURI().getPath();
+    int endpoint = MazeServer.endpoint(path);
+    MazeResponse response;
+    try {
+      if (!exchange.getRequestMethod().equals("GET")) {
+        response = MazeResponse.text(405, "Only GET is supported!");
+      }
+      else if (endpoint < 0) {
+        response = MazeResponse.text(404, "There is no endpoint called " + path + "!");
+      }
+      else {
+        response = this.respond(endpoint,
+            MazeServer.query(exchange.getRequestURI().getRawQuery()));
+      }
+    }
+    catch (IllegalArgumentException e) {
+      response = MazeResponse.text(400, e.getMessage());
+    }
+    catch (RejectedExecutionException e) {
+      response = MazeResponse.text(503, e.getMessage());
+    }
+    catch (RuntimeException e) {
+      response = MazeResponse.text(500, e.toString());
+    }
+    try {
+      exchange.getResponseHeaders().set("Content-Type", response.type);
+      // a length of 0 would mean the length isn't known, -1 is no body
+      exchange.sendResponseHeaders(response.status,
+          response.body.length == 0 ? -1 : response.body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(response.body);
+      }
+    }
+    finally {
+      exchange.close();
+      if (endpoint >= 0) {
+        this.latencies[endpoint].record(System.nanoTime() - start);
+      }
+    }
+  }
+
+  // returns the index in ENDPOINTS of the endpoint at the given path, or -1 if there
+  // isn't one
+  static int endpoint(String path) {
+    for (int i = 0; i < ENDPOINTS.length; i += 1) {
+      if (path.equals("/" + ENDPOINTS[i])) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  // returns the parameters of the given query string, which can be null
+  static Map<String, String> query(String raw) {
+    HashMap<String, String> parameters = new HashMap<String, String>();
+    if (raw == null || raw.isEmpty()) {
+      return parameters;
+    }
+    for (String pair : raw.split("&")) {
+      int equals = pair.indexOf('=');
+      String name = equals < 0 ? pair : pair.substring(0, equals);
+      String value = equals < 0 ? "" : pair.substring(equals + 1);
+      parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8),
+          URLDecoder.decode(value, StandardCharsets.UTF_8));
+    }
+    return parameters;
+  }
+
+  // returns the answer of the given endpoint to a request with the given parameters
+  MazeResponse respond(int endpoint, Map<String, String> parameters) {
+    if (endpoint == STATS) {
+      return MazeResponse.text(200, this.stats());
+    }
+    MazeRequest request = MazeRequest.parse(parameters);
+    ServedMaze maze = this.cache.get(request, this::generate);
+    if (endpoint == GENERATE) {
+      if (request.binary) {
+        return MazeResponse.binary(MazeFile.encode(maze.grid, request.seed, request.bias, null));
+      }
+      else {
+        return MazeResponse.text(200, MazeServer.draw(maze.grid));
+      }
+    }
+    int[] path;
+    if (endpoint == SOLUTION) {
+      path = maze.solution;
+    }
+    else {
+      int from = MazeServer.cell(maze.grid, parameters, "from", 0);
+      int to = MazeServer.cell(maze.grid, parameters, "to", maze.grid.size() - 1);
+      TreeIndex index = maze.index();
+      this.cache.remeasure(request, maze);
+      path = index.path(from, to);
+    }
+    if (request.binary) {
+      return MazeResponse.binary(MazeServer.encodePath(maze.grid, path));
+    }
+    else {
+      return MazeResponse.text(200, MazeServer.pathText(maze.grid, path));
+    }
+  }
+
+  // returns the maze the request asks for, made once a turn to make it is free
+  // EFFECT: throws a RejectedExecutionException if no turn is free within waitMillis
+  ServedMaze generate(MazeRequest request) {
+    try {
+      if (!this.turns.tryAcquire(this.waitMillis, TimeUnit.MILLISECONDS)) {
+        this.turnedAway.incrementAndGet();
+        throw new RejectedExecutionException("Too many mazes are being made, try again later!");
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new RejectedExecutionException("Stopped waiting to make the maze!");
+    }
+    try {
+      this.mostGenerating.accumulateAndGet(this.generating.incrementAndGet(), Math::max);
+      return new ServedMaze(request);
+    }
+    finally {
+      this.generating.decrementAndGet();
+      this.turns.release();
+    }
+  }
+
+  // returns the cell that the parameter with the given name gives as x,y, or the given
+  // cell if it's left out
+  static int cell(MazeGrid grid, Map<String, String> parameters, String name, int otherwise) {
+    String value = parameters.get(name);
+    if (value == null) {
+      return otherwise;
+    }
+    String[] posn = value.split(",");
+    int x;
+    int y;
+    try {
+      if (posn.length != 2) {
+        throw new NumberFormatException();
+      }
+      x = Integer.parseInt(posn[0]);
+      y = Integer.parseInt(posn[1]);
+    }
+    catch (NumberFormatException e) {
+      throw new IllegalArgumentException(name + " has to look like 3,4!");
+    }
+    if (x < 0 || x >= grid.width || y < 0 || y >= grid.height) {
+      throw new IllegalArgumentException("Cell " + value + " isn't in the maze!");
+    }
+    return grid.cell(x, y);
+  }
+
+  // returns the path as its first cell, its number of steps and the direction of every
+  // step, 4 to a byte
+  static byte[] encodePath(MazeGrid grid, int[] path) {
+    int steps = path.length - 1;
+    ByteBuffer buffer = ByteBuffer.allocate(8 + (steps + 3) / 4);
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+    buffer.putInt(path[0]);
+    buffer.putInt(steps);
+    MazeFile.putSteps(buffer, grid, path);
+    return buffer.array();
+  }
+
+  // returns the path as x,y for every cell, with a space between them
+  static String pathText(MazeGrid grid, int[] path) {
+    StringBuilder text = new StringBuilder(8 * path.length);
+    for (int i = 0; i < path.length; i += 1) {
+      if (i > 0) {
+        text.append(' ');
+      }
+      text.append(grid.cellX(path[i])).append(',').append(grid.cellY(path[i]));
+    }
+    return text.append('\n').toString();
+  }
+
+  // returns the maze drawn with # for every wall and corner and a space for every cell
+  // and knocked down wall, laid out like the blocks of a MazeRaster
+  static String draw(MazeGrid grid) {
+    StringBuilder text = new StringBuilder((2 * grid.width + 2) * (2 * grid.height + 1));
+    for (int by = 0; by <= 2 * grid.height; by += 1) {
+      for (int bx = 0; bx <= 2 * grid.width; bx += 1) {
+        text.append(MazeServer.isFloor(grid, bx, by) ? ' ' : '#');
+      }
+      text.append('\n');
+    }
+    return text.toString();
+  }
+
+  // Is block (bx, by) the inside of a cell or a knocked down wall?
+  static boolean isFloor(MazeGrid grid, int bx, int by) {
+    int x = bx >>> 1;
+    int y = by >>> 1;
+    if ((bx & 1) == 1 && (by & 1) == 1) {
+      return true;
+    }
+    else if ((bx & 1) == 1) {
+      // the line above row y
+      return y > 0 && y < grid.height && grid.isPassageOpen(2 * ((y - 1) * grid.width + x) + 1);
+    }
+    else if ((by & 1) == 1) {
+      // the line west of column x
+      return x > 0 && x < grid.width && grid.isPassageOpen(2 * (y * grid.width + x - 1));
+    }
+    else {
+      return false;
+    }
+  }
+
+  // returns how many requests each endpoint answered and how long they took
+  String stats() {
+    StringBuilder text = new StringBuilder();
+    text.append(this.virtual ? "a virtual thread for each request"
+        : "a pool of " + this.threads + " threads").append('\n');
+    for (int i = 0; i < ENDPOINTS.length; i += 1) {
+      text.append(ENDPOINTS[i]).append(": ").append(this.latencies[i].report()).append('\n');
+    }
+    text.append("cache: ").append(this.cache.report()).append('\n');
+    text.append("generating: ").append(this.generating.get()).append(" now, ")
+        .append(this.mostGenerating.get()).append(" at most, ").append(this.turnedAway.get())
+        .append(" turned away").append('\n');
+    return text.toString();
+  }
+
+  public static void main(String[] args) throws IOException {
+    int port = 8080;
+    int threads = 4 * Runtime.getRuntime().availableProcessors();
+    long cacheMegabytes = 256;
+    int generating = Runtime.getRuntime().availableProcessors();
+    try {
+      for (int i = 0; i < args.length; i += 2) {
+        if (i + 1 >= args.length) {
+          throw new IllegalArgumentException(args[i] + " needs a value!");
+        }
+        try {
+          if (args[i].equals("--port")) {
+            port = Integer.parseInt(args[i + 1]);
+          }
+          else if (args[i].equals("--threads")) {
+            threads = Integer.parseInt(args[i + 1]);
+          }
+          else if (args[i].equals("--cache-mb")) {
+            cacheMegabytes = Long.parseLong(args[i + 1]);
+          }
+          else if (args[i].equals("--generating")) {
+            generating = Integer.parseInt(args[i + 1]);
+          }
+          else {
+            throw new IllegalArgumentException("There is no option called " + args[i] + "!");
+          }
+        }
+        catch (NumberFormatException e) {
+          throw new IllegalArgumentException(args[i] + " has to be a number!");
+        }
+      }
+    }
+    catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(USAGE);
+      System.exit(2);
+      return;
+    }
+    MazeServer server;
+    try {
+      server = new MazeServer(port, threads, cacheMegabytes * 1000000, generating,
+          GENERATE_WAIT);
+    }
+    catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(USAGE);
+      System.exit(2);
+      return;
+    }
+    server.start();
+    System.out.println("Serving mazes on http://127.0.0.1:" + server.port() + "/ with "
+        + (server.virtual ? "virtual threads" : threads + " threads"));
+  }
+}
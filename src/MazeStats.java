@@ -0,0 +1,329 @@
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+/* Notes:
+ * - Everything is measured on the MazeGrid after it's generated, so it works the same for
+ *   every MazeGenerator and for a MappedMazeGrid read from a MazeFile
+ * - The distance fields come from a ParallelBfs, one from the top left and one from the
+ *   bottom right, and the solution is the bottom right's distance from the top left
+ * - The diameter (the longest path in the maze) takes one more search: the cell furthest
+ *   from the top left is an end of a longest path, and the furthest cell from it is the
+ *   other end. That only holds for perfect mazes, with loops it can come up short
+ * - A dead end is a cell with 1 passage and a junction a cell with 3 or 4. A corridor is
+ *   the run of passages between two cells that aren't 2 passage cells, so a dead end
+ *   right next to a junction is a corridor 1 long, and every passage is in one corridor
+ * - Straightness is the share of the 2 passage cells that go straight on instead of
+ *   turning, so a maze biased in x or y has more of it
+ * - The cells are cut into tiles of tile cells that are counted on the ParallelBfs's
+ *   pool, split in half with invokeAll like ParallelKruskal's strips. A corridor is
+ *   counted by the tile of its end with the lower index, and walked from there even
+ *   when it leaves the tile
+ * - Usage: java MazeStats --size 100x100 --bias none --seed 0 --generator kruskal
+ *          or java MazeStats --file maze.maze
+ */
+
+// represents the measurements of a maze that tell how hard it is
+class MazeStats {
+  static final String USAGE = "usage: java MazeStats [--size WxH] [--bias none|x|y] [--seed n]"
+      + " [--generator name] [--file path]";
+  static final int TILE = 1 << 16; // the cells counted by each task
+
+  MazeGrid grid;
+  int[] fromStart; // the steps from the top left to each cell, -1 if it can't be reached
+  int[] fromGoal; // the steps from the bottom right to each cell, -1 if it can't be reached
+  int solution; // the steps from the top left to the bottom right, -1 if there's no path
+  int diameter; // the steps on the longest path in the maze
+  int diameterStart; // the cells at the two ends of that path
+  int diameterEnd;
+  int deadEnds; // cells with 1 passage
+  int junctions; // cells with 3 or 4 passages
+  int straight; // cells with 2 passages on opposite sides
+  int turns; // cells with 2 passages on sides next to each other
+  int[] corridors; // the number of corridors of each length in passages, up to the longest
+
+  // constructor for MazeStats, searches with the given ParallelBfs and counts tiles of
+  // the given number of cells on its pool
+  MazeStats(MazeGrid grid, ParallelBfs bfs, int tile) {
+    if (tile < 1) {
+      throw new IllegalArgumentException("Tiles have to have at least 1 cell!");
+    }
+    this.grid = grid;
+    this.fromStart = bfs.distances(grid, 0);
+    this.fromGoal = bfs.distances(grid, grid.size() - 1);
+    this.solution = this.fromStart[grid.size() - 1];
+    this.diameterStart = MazeStats.farthest(this.fromStart);
+    this.diameterEnd = MazeStats.farthest(bfs.distances(grid, this.diameterStart));
+    this.diameter = bfs.distance[this.diameterEnd];
+
+    StatsTiles tiles = new StatsTiles(this, tile, 0, grid.size());
+    if (grid.size() <= tile) {
+      tiles.compute();
+    }
+    else {
+      bfs.pool.invoke(tiles);
+    }
+    this.deadEnds = tiles.deadEnds;
+    this.junctions = tiles.junctions;
+    this.straight = tiles.straight;
+    this.turns = tiles.turns;
+    int longest = tiles.corridors.length - 1;
+    while (longest > 0 && tiles.corridors[longest] == 0) {
+      longest -= 1;
+    }
+    this.corridors = Arrays.copyOf(tiles.corridors, longest + 1);
+  }
+
+  // constructor for MazeStats, uses every core
+  MazeStats(MazeGrid grid) {
+    this(grid, new ParallelBfs(), TILE);
+  }
+
+  // returns the lowest cell with the biggest distance
+  static int farthest(int[] distance) {
+    int farthest = 0;
+    for (int cell = 1; cell < distance.length; cell += 1) {
+      if (distance[cell] > distance[farthest]) {
+        farthest = cell;
+      }
+    }
+    return farthest;
+  }
+
+  // returns the number of passages the given cell has
+  int degree(int cell) {
+    int degree = 0;
+    for (int direction = 0; direction < 4; direction += 1) {
+      if (this.grid.isOpen(cell, direction)) {
+        degree += 1;
+      }
+    }
+    return degree;
+  }
+
+  // returns the share of the 2 passage cells that go straight on, 0 if there are none
+  double straightness() {
+    if (this.straight + this.turns == 0) {
+      return 0;
+    }
+    return (double) this.straight / (this.straight + this.turns);
+  }
+
+  // returns the number of corridors
+  int corridorCount() {
+    int count = 0;
+    for (int c : this.corridors) {
+      count += c;
+    }
+    return count;
+  }
+
+  // returns the length of the longest corridor, 0 if there are none
+  int longestCorridor() {
+    return this.corridors.length - 1;
+  }
+
+  // returns all the measurements as lines of text
+  String report() {
+    StringBuilder corridors = new StringBuilder();
+    for (int length = 1; length < this.corridors.length; length += 1) {
+      if (this.corridors[length] > 0) {
+        corridors.append(" ").append(length).append(":").append(this.corridors[length]);
+      }
+    }
+    double cells = this.grid.size();
+    return String.format("maze: %dx%d, %d cells%n", this.grid.width, this.grid.height,
+        this.grid.size())
+        + String.format("solution: %d steps%n", this.solution)
+        + String.format("diameter: %d steps, (%d,%d) to (%d,%d)%n", this.diameter,
+            this.grid.cellX(this.diameterStart), this.grid.cellY(this.diameterStart),
+            this.grid.cellX(this.diameterEnd), this.grid.cellY(this.diameterEnd))
+        + String.format("dead ends: %d (%.1f%% of cells)%n", this.deadEnds,
+            100 * this.deadEnds / cells)
+        + String.format("junctions: %d (%.1f%% of cells)%n", this.junctions,
+            100 * this.junctions / cells)
+        + String.format("straightness: %.3f%n", this.straightness())
+        + String.format("corridors: %d, longest %d, length:count%s", this.corridorCount(),
+            this.longestCorridor(), corridors);
+  }
+
+  // returns the grid that the command line arguments ask for
+  static MazeGrid parse(String[] args) throws IOException {
+    int width = 100;
+    int height = 100;
+    int bias = EdgeWeights.NO_BIAS;
+    long seed = 0;
+    String generator = "kruskal";
+    String file = null;
+    for (int i = 0; i < args.length; i += 2) {
+      if (i + 1 >= args.length) {
+        throw new IllegalArgumentException(args[i] + " needs a value!");
+      }
+      String value = args[i + 1];
+      try {
+        if (args[i].equals("--size")) {
+          String[] dimensions = value.split("x");
+          if (dimensions.length != 2) {
+            throw new IllegalArgumentException("Size has to look like 100x60!");
+          }
+          width = Integer.parseInt(dimensions[0]);
+          height = Integer.parseInt(dimensions[1]);
+        }
+        else if (args[i].equals("--bias")) {
+          bias = MazeBatch.parseBias(value);
+        }
+        else if (args[i].equals("--seed")) {
+          seed = Long.parseLong(value);
+        }
+        else if (args[i].equals("--generator")) {
+          generator = value;
+        }
+        else if (args[i].equals("--file")) {
+          file = value;
+        }
+        else {
+          throw new IllegalArgumentException("There is no option called " + args[i] + "!");
+        }
+      }
+      catch (NumberFormatException e) {
+        throw new IllegalArgumentException(args[i] + " has to be a number!");
+      }
+    }
+    if (file != null) {
+      return MazeFile.read(Paths.get(file)).grid;
+    }
+    MazeGrid.checkSize(width, height);
+    MazeGrid grid = new MazeGrid(width, height);
+    MazeGenerator.byName(generator).generate(grid, seed, bias);
+    return grid;
+  }
+
+  public static void main(String[] args) throws IOException {
+    MazeGrid grid;
+    try {
+      grid = parse(args);
+    }
+    catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.err.println(USAGE);
+      System.exit(2);
+      return;
+    }
+    long start = System.nanoTime();
+    MazeStats stats = new MazeStats(grid);
+    long took = System.nanoTime() - start;
+    System.out.println(stats.report());
+    System.out.printf("measured in %.1f ms%n", took / 1e6);
+  }
+}
+
+// represents counting the cells from .. to - 1 of a MazeStats' grid, splitting them in
+// half until each task has at most one tile
+class StatsTiles extends RecursiveAction {
+  static final long serialVersionUID = 1L; // never serialized, RecursiveAction is Serializable
+
+  MazeStats stats;
+  int tile; // the most cells a task counts itself
+  int from; // the first cell
+  int to; // one past the last cell
+  int deadEnds;
+  int junctions;
+  int straight;
+  int turns;
+  int[] corridors; // the number of corridors of each length that start in these cells
+
+  StatsTiles(MazeStats stats, int tile, int from, int to) {
+    this.stats = stats;
+    this.tile = tile;
+    this.from = from;
+    this.to = to;
+    this.deadEnds = 0;
+    this.junctions = 0;
+    this.straight = 0;
+    this.turns = 0;
+    this.corridors = new int[1];
+  }
+
+  // EFFECT: counts the dead ends, junctions, straight cells, turns and corridors of the
+  // cells, adding up the counts of the two halves if there is more than a tile
+  protected void compute() {
+    if (this.to - this.from <= this.tile) {
+      for (int cell = this.from; cell < this.to; cell += 1) {
+        this.count(cell);
+      }
+    }
+    else {
+      int middle = (this.from + this.to) >>> 1;
+      StatsTiles low = new StatsTiles(this.stats, this.tile, this.from, middle);
+      StatsTiles high = new StatsTiles(this.stats, this.tile, middle, this.to);
+      invokeAll(low, high);
+      this.deadEnds = low.deadEnds + high.deadEnds;
+      this.junctions = low.junctions + high.junctions;
+      this.straight = low.straight + high.straight;
+      this.turns = low.turns + high.turns;
+      this.corridors = low.corridors;
+      for (int length = 1; length < high.corridors.length; length += 1) {
+        this.addCorridor(length, high.corridors[length]);
+      }
+    }
+  }
+
+  // EFFECT: counts the given cell, and the corridors that start at it
+  void count(int cell) {
+    MazeGrid grid = this.stats.grid;
+    int degree = this.stats.degree(cell);
+    if (degree == 2) {
+      // east and west both open, or both closed so north and south are, is straight
+      if (grid.isOpen(cell, MazeGrid.EAST) == grid.isOpen(cell, MazeGrid.WEST)) {
+        this.straight += 1;
+      }
+      else {
+        this.turns += 1;
+      }
+      return;
+    }
+    if (degree == 1) {
+      this.deadEnds += 1;
+    }
+    else if (degree >= 3) {
+      this.junctions += 1;
+    }
+    for (int direction = 0; direction < 4; direction += 1) {
+      if (grid.isOpen(cell, direction)) {
+        this.walk(cell, direction);
+      }
+    }
+  }
+
+  // EFFECT: follows the corridor that leaves the given cell in the given direction and
+  // counts it if the cell is the end with the lower index
+  void walk(int cell, int direction) {
+    MazeGrid grid = this.stats.grid;
+    int length = 1;
+    int at = grid.neighbor(cell, direction);
+    int back = (direction + 2) % 4; // the direction of the cell it came from
+    while (this.stats.degree(at) == 2) {
+      int ahead = 0;
+      while (ahead == back || !grid.isOpen(at, ahead)) {
+        ahead += 1;
+      }
+      at = grid.neighbor(at, ahead);
+      back = (ahead + 2) % 4;
+      length += 1;
+    }
+    // a corridor that comes back to the same cell is counted from the lower direction
+    if (cell < at || (cell == at && direction < back)) {
+      this.addCorridor(length, 1);
+    }
+  }
+
+  // EFFECT: adds count corridors of the given length
+  void addCorridor(int length, int count) {
+    if (length >= this.corridors.length) {
+      this.corridors = Arrays.copyOf(this.corridors,
+          Math.max(length + 1, 2 * this.corridors.length));
+    }
+    this.corridors[length] += count;
+  }
+}
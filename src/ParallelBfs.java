@@ -0,0 +1,209 @@
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/* Notes:
+ * - A breadth first search reaches every cell of a level (distance) from the level
+ *   before it, so all the cells of a level can be expanded at the same time: the level
+ *   is cut into chunks and the chunks run on a ForkJoinPool
+ * - The distance array is also the visited mark: a cell is -1 until one chunk claims it
+ *   with a compareAndSet, so a cell two chunks reach at once is only added once
+ * - Each chunk writes the cells it reaches into its own part of the next level's
+ *   buffer, 4 slots for each cell it expands, so chunks never share a slot, and the
+ *   parts are packed together once the level is done
+ * - The chunks are sized from the level and the pool: a level is cut into TASKS chunks
+ *   for each worker, so a worker that finishes early has some to steal, but never into
+ *   chunks of fewer than chunk (CHUNK = 64) cells, so a level of up to 64 cells is one
+ *   chunk. A level of one chunk, or any level on a pool of one worker, is expanded on
+ *   the calling thread, handing it to the pool would cost more than it saves
+ * - The levels of a perfect maze are narrow (at most 296 cells in a 1000x1000 kruskal
+ *   one, 765 in a 2000x2000 one, over 11581 and 16514 levels), so with a fixed chunk of
+ *   512 none of the 1000x1000 one and 29% of the 2000x2000 one was ever split. Past 64
+ *   cells that's 84% and 96% of the cells, but each split level is only a few chunks and
+ *   there is a fork and join for every one of thousands of levels, so a perfect maze
+ *   gains far less than a grid with loops, whose levels are thousands of cells wide
+ * - The path goes back from the end to a neighbor one step closer each time, trying
+ *   east, south, west and north in that order, so it doesn't depend on which chunk
+ *   claimed a cell, and in a perfect maze it's the only path, the one searchHelp finds
+ */
+
+// represents a breadth first search of a grid that expands each level in parallel,
+// for the distance from the start to every cell
+class ParallelBfs {
+  static final int CHUNK = 64; // the fewest frontier cells a task expands
+  static final int TASKS = 4; // the chunks a level is cut into for each worker
+  static final VarHandle CELLS = MethodHandles.arrayElementVarHandle(int[].class);
+
+  ForkJoinPool pool; // runs the chunks of wide levels
+  int chunk; // the fewest frontier cells a task expands
+  int size; // the frontier cells each task of the current level expands
+  int[] distance; // the steps from the start to each cell, -1 if it can't be reached
+  int levels; // the number of levels the last search had
+  int[] counts; // the number of cells each chunk of the current level reached
+
+  // constructor for ParallelBfs
+  ParallelBfs(ForkJoinPool pool, int chunk) {
+    if (chunk < 1) {
+      throw new IllegalArgumentException("Chunks have to have at least 1 cell!");
+    }
+    this.pool = pool;
+    this.chunk = chunk;
+    this.size = chunk;
+    this.distance = new int[0];
+    this.levels = 0;
+    this.counts = new int[0];
+  }
+
+  // constructor for ParallelBfs, uses every core
+  ParallelBfs() {
+    this(ForkJoinPool.commonPool(), CHUNK);
+  }
+
+  // returns the cells on the shortest path from the top left to the bottom right of the
+  // grid, or an empty path if the bottom right can't be reached
+  int[] solve(MazeGrid grid) {
+    this.distances(grid, 0);
+    return this.path(grid, grid.size() - 1);
+  }
+
+  // returns the number of steps from the start cell to every cell of the grid, -1 for
+  // the cells it can't reach
+  int[] distances(MazeGrid grid, int start) {
+    this.distance = new int[grid.size()];
+    Arrays.fill(this.distance, -1);
+    this.distance[start] = 0;
+    int[] frontier = new int[] { start };
+    int length = 1;
+    int[] next = new int[0];
+    this.levels = 0;
+    while (length > 0) {
+      this.levels += 1;
+      this.size = this.chunkSize(length);
+      int chunks = (length + this.size - 1) / this.size;
+      if (next.length < 4 * length) {
+        next = new int[Math.max(4 * length, 2 * next.length)];
+      }
+      if (this.counts.length < chunks) {
+        this.counts = new int[chunks];
+      }
+      BfsChunks level = new BfsChunks(this, grid, frontier, length, next, this.levels, 0,
+          chunks);
+      if (chunks == 1) {
+        level.compute();
+      }
+      else {
+        this.pool.invoke(level);
+      }
+      // packs each chunk's part of next together at the front
+      int packed = 0;
+      for (int c = 0; c < chunks; c += 1) {
+        System.arraycopy(next, 4 * c * this.size, next, packed, this.counts[c]);
+        packed += this.counts[c];
+      }
+      int[] swap = frontier;
+      frontier = next;
+      next = swap;
+      length = packed;
+    }
+    return this.distance;
+  }
+
+  // returns the number of frontier cells each task of a level of the given length
+  // expands, all of them if the pool has one worker
+  int chunkSize(int length) {
+    int tasks = TASKS * this.pool.getParallelism();
+    if (tasks == TASKS) {
+      return length;
+    }
+    return Math.max(this.chunk, (length + tasks - 1) / tasks);
+  }
+
+  // returns the number of cells reached from frontier[from] to frontier[to - 1], which
+  // are written to next starting at at
+  // EFFECT: claims every neighbor that hasn't been reached for the given level
+  int expand(MazeGrid grid, int[] frontier, int from, int to, int[] next, int at, int level) {
+    int count = 0;
+    for (int i = from; i < to; i += 1) {
+      int cell = frontier[i];
+      for (int direction = 0; direction < 4; direction += 1) {
+        if (grid.isOpen(cell, direction)) {
+          int neighbor = grid.neighbor(cell, direction);
+          // a plain read first, most neighbors were reached a level ago
+          if (this.distance[neighbor] < 0
+              && CELLS.compareAndSet(this.distance, neighbor, -1, level)) {
+            next[at + count] = neighbor;
+            count += 1;
+          }
+        }
+      }
+    }
+    return count;
+  }
+
+  // returns the cells on a shortest path from the start of the last search to the given
+  // cell, or an empty path if it wasn't reached
+  int[] path(MazeGrid grid, int cell) {
+    if (this.distance[cell] < 0) {
+      return new int[0];
+    }
+    int[] path = new int[this.distance[cell] + 1];
+    for (int i = path.length - 1; i > 0; i -= 1) {
+      path[i] = cell;
+      int direction = 0;
+      while (!grid.isOpen(cell, direction)
+          || this.distance[grid.neighbor(cell, direction)] != i - 1) {
+        direction += 1;
+      }
+      cell = grid.neighbor(cell, direction);
+    }
+    path[0] = cell;
+    return path;
+  }
+}
+
+// represents expanding the chunks from .. to - 1 of a level of a ParallelBfs, splitting
+// them in half until there is one left for each task
+class BfsChunks extends RecursiveAction {
+  static final long serialVersionUID = 1L; // never serialized, RecursiveAction is Serializable
+
+  ParallelBfs bfs;
+  MazeGrid grid;
+  int[] frontier; // the cells of the level
+  int length; // the number of cells in frontier
+  int[] next; // where the cells of the next level go, 4 slots for each frontier cell
+  int level; // the distance of the next level
+  int from; // the first chunk of this task
+  int to; // one past the last chunk of this task
+
+  BfsChunks(ParallelBfs bfs, MazeGrid grid, int[] frontier, int length, int[] next, int level,
+      int from, int to) {
+    this.bfs = bfs;
+    this.grid = grid;
+    this.frontier = frontier;
+    this.length = length;
+    this.next = next;
+    this.level = level;
+    this.from = from;
+    this.to = to;
+  }
+
+  // EFFECT: expands each chunk of this task and records how many cells it reached
+  protected void compute() {
+    if (this.to - this.from <= 1) {
+      int size = this.bfs.size;
+      for (int c = this.from; c < this.to; c += 1) {
+        this.bfs.counts[c] = this.bfs.expand(this.grid, this.frontier, c * size,
+            Math.min((c + 1) * size, this.length), this.next, 4 * c * size, this.level);
+      }
+    }
+    else {
+      int middle = (this.from + this.to) >>> 1;
+      invokeAll(new BfsChunks(this.bfs, this.grid, this.frontier, this.length, this.next,
+          this.level, this.from, middle),
+          new BfsChunks(this.bfs, this.grid, this.frontier, this.length, this.next,
+              this.level, middle, this.to));
+    }
+  }
+}
@@ -0,0 +1,349 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/* Notes:
+ * - The grid is cut into strips of STRIP_HEIGHT rows. Every strip runs Kruskal's on
+ *   the passages inside it, and the strips run at the same time on a ForkJoinPool
+ * - Strips never share a cell, so they can share one UnionFind without locking, and
+ *   they never share a passage, so each knocks down its own walls. A strip's passages
+ *   start on a long of the grid's passage bits (64 rows of 2 bits a cell), so no two
+ *   strips write the same long either
+ * - A passage that isn't in its strip's tree closes a loop of lighter passages inside
+ *   the strip, so it isn't in the whole grid's tree either. The whole grid's tree is
+ *   Kruskal's again on only the strip trees and the passages between strips, in weight
+ *   order, which makes exactly the maze KruskalGenerator makes, not strips joined by one
+ *   passage each
+ * - Only the part of a strip tree that connects the cells on its top and bottom rows
+ *   can be in a loop with a passage between strips. Every other passage of the tree
+ *   is kept, and each path of it between two cells that are on those rows or where it
+ *   branches is one passage for the last pass, weighing what the heaviest passage on
+ *   the path does. If the last pass leaves it out, only that heaviest passage is left
+ *   out, since every loop through the path goes through it
+ * - So the one pass that runs on a single thread joins a few passages for each cell
+ *   of the strips' top and bottom rows (about a tenth of the passages of a square
+ *   maze) instead of every passage of the grid, and the strips work out the rest and
+ *   knock down their walls in parallel
+ * - The strips don't depend on the number of threads, so a seed always gives the same maze
+ */
+
+// represents Kruskal's algorithm run on horizontal strips of a grid in parallel
+class ParallelKruskal implements MazeGenerator {
+  static final int STRIP_HEIGHT = 64; // rows per strip
+
+  ForkJoinPool pool; // runs the strips
+
+  // constructor for ParallelKruskal
+  ParallelKruskal(ForkJoinPool pool) {
+    this.pool = pool;
+  }
+
+  // constructor for ParallelKruskal, uses every core
+  ParallelKruskal() {
+    this(ForkJoinPool.commonPool());
+  }
+
+  public String name() {
+    return "parallel-kruskal";
+  }
+
+  public void generate(MazeGrid grid, long seed, int bias) {
+    this.generate(grid, new EdgeWeights(seed, bias));
+  }
+
+  // EFFECT: knocks down the walls of a spanning tree of the grid
+  void generate(MazeGrid grid, EdgeWeights weights) {
+    grid.clear();
+    UnionFind sets = new UnionFind(grid.size());
+    ArrayList<KruskalStrip> strips = new ArrayList<KruskalStrip>();
+    for (int top = 0; top < grid.height; top += STRIP_HEIGHT) {
+      strips.add(new KruskalStrip(grid, weights, sets, top,
+          Math.min(top + STRIP_HEIGHT, grid.height)));
+    }
+    this.pool.invoke(new KruskalStrips(strips, false));
+    boolean[] kept = ParallelKruskal.join(strips);
+    for (KruskalStrip strip : strips) {
+      strip.kept = kept;
+    }
+    this.pool.invoke(new KruskalStrips(strips, true));
+  }
+
+  // returns which of the strips' paths and passages between strips the last pass keeps,
+  // in the order of the strips and then of their passages
+  static boolean[] join(ArrayList<KruskalStrip> strips) {
+    int keys = 0;
+    int count = 0;
+    for (KruskalStrip strip : strips) {
+      strip.firstKey = keys;
+      strip.firstPassage = count;
+      keys += strip.keyCount;
+      count += strip.count;
+    }
+    int[] weights = new int[count];
+    int[] from = new int[count];
+    int[] to = new int[count];
+    for (KruskalStrip strip : strips) {
+      for (int i = 0; i < strip.count; i += 1) {
+        int at = strip.firstPassage + i;
+        weights[at] = strip.weights[i];
+        from[at] = ParallelKruskal.key(strips, strip.from[i]);
+        to[at] = ParallelKruskal.key(strips, strip.to[i]);
+      }
+    }
+    // the passages are in passage order, so ties are broken the same as GridKruskal's
+    int[] order = new BucketOrder(weights).order;
+    UnionFind joined = new UnionFind(Math.max(keys, 1));
+    boolean[] kept = new boolean[count];
+    int unions = 0;
+    for (int i = 0; i < order.length && unions < keys - 1; i += 1) {
+      if (joined.union(from[order[i]], to[order[i]])) {
+        kept[order[i]] = true;
+        unions += 1;
+      }
+    }
+    return kept;
+  }
+
+  // returns the number the last pass gives the given cell, which has to be a key cell
+  // of its strip
+  static int key(ArrayList<KruskalStrip> strips, int cell) {
+    KruskalStrip strip = strips.get(strips.get(0).grid.cellY(cell) / STRIP_HEIGHT);
+    return strip.firstKey + strip.keys[cell - strip.first];
+  }
+}
+
+// represents running every strip of a ParallelKruskal, splitting the strips in half
+// until there is one left for each task
+class KruskalStrips extends RecursiveAction {
+  static final long serialVersionUID = 1L; // never serialized, RecursiveAction is Serializable
+
+  ArrayList<KruskalStrip> strips;
+  boolean open; // knocks down the strips' walls instead of running Kruskal's on them
+  int from; // the first strip of this task
+  int to; // one past the last strip of this task
+
+  KruskalStrips(ArrayList<KruskalStrip> strips, boolean open, int from, int to) {
+    this.strips = strips;
+    this.open = open;
+    this.from = from;
+    this.to = to;
+  }
+
+  KruskalStrips(ArrayList<KruskalStrip> strips, boolean open) {
+    this(strips, open, 0, strips.size());
+  }
+
+  // EFFECT: runs Kruskal's on, or knocks down the walls of, each strip of this task
+  protected void compute() {
+    if (this.to - this.from <= 1) {
+      for (int i = this.from; i < this.to; i += 1) {
+        if (this.open) {
+          this.strips.get(i).open();
+        }
+        else {
+          this.strips.get(i).run();
+        }
+      }
+    }
+    else {
+      int middle = (this.from + this.to) >>> 1;
+      invokeAll(new KruskalStrips(this.strips, this.open, this.from, middle),
+          new KruskalStrips(this.strips, this.open, middle, this.to));
+    }
+  }
+}
+
+// represents the rows top .. bottom - 1 of a grid, and once run, the spanning tree of
+// the passages inside of them and the passages of it that the last pass has to join
+class KruskalStrip {
+  MazeGrid grid;
+  EdgeWeights weightOf;
+  UnionFind sets; // shared with the other strips, only this strip's cells are touched
+  int top; // the first row
+  int bottom; // one past the last row
+  int first; // the first cell
+  int cells; // the number of cells
+  GridKruskal kruskal; // the strip's passages and, once run, its spanning tree
+  int[] keys; // the number of each key cell among the strip's key cells, -1 if it isn't
+  int keyCount; // the number of key cells, on the top or bottom rows or where it branches
+  int[] passages; // what the last pass joins, the heaviest passage of each path between
+  // two key cells and the passages down to the next strip, in passage order
+  int[] weights; // the weight of each of those
+  int[] from; // the cells each of them joins
+  int[] to;
+  int count; // the number of passages for the last pass
+  int firstKey; // the number of this strip's first key cell in the last pass
+  int firstPassage; // where this strip's passages are in the last pass
+  boolean[] kept; // every strip's passages that the last pass kept, set after it
+
+  KruskalStrip(MazeGrid grid, EdgeWeights weightOf, UnionFind sets, int top, int bottom) {
+    this.grid = grid;
+    this.weightOf = weightOf;
+    this.sets = sets;
+    this.top = top;
+    this.bottom = bottom;
+    this.first = grid.cell(0, top);
+    this.cells = grid.cell(0, bottom) - this.first;
+  }
+
+  // EFFECT: runs Kruskal's on the passages inside the strip, and finds what of its tree
+  // and the passages down to the next strip the last pass has to join
+  void run() {
+    this.kruskal = new GridKruskal(this.first, this.first + this.cells);
+    this.kruskal.weigh(this.grid, this.weightOf);
+    this.kruskal.sort();
+    this.kruskal.join(this.grid, this.sets);
+
+    byte[] links = this.links();
+    this.keys = new int[this.cells];
+    this.keyCount = 0;
+    for (int c = 0; c < this.cells; c += 1) {
+      boolean key = links[c] != 0 && (this.isEnd(c) || Integer.bitCount(links[c]) >= 3);
+      this.keys[c] = key ? this.keyCount : -1;
+      this.keyCount += key ? 1 : 0;
+    }
+    int most = this.keyCount + this.grid.width; // a tree has fewer paths than key cells
+    this.passages = new int[most];
+    this.weights = new int[most];
+    this.from = new int[most];
+    this.to = new int[most];
+    this.count = 0;
+    for (int c = 0; c < this.cells; c += 1) {
+      if (this.keys[c] >= 0) {
+        this.addPaths(links, c);
+      }
+    }
+    if (this.bottom < this.grid.height) {
+      for (int x = 0; x < this.grid.width; x += 1) {
+        int cell = this.grid.cell(x, this.bottom - 1);
+        int passage = this.grid.passage(cell, MazeGrid.SOUTH);
+        this.add(passage, this.weightOf.weight(passage), cell, cell + this.grid.width);
+      }
+    }
+    this.sortByPassage();
+  }
+
+  // returns the directions of the strip tree's passages out of each cell, one bit for
+  // each, after taking away every branch that doesn't reach the top or bottom row
+  byte[] links() {
+    byte[] links = new byte[this.cells];
+    for (int i = 0; i < this.kruskal.treeSize; i += 1) {
+      int passage = this.kruskal.tree[i];
+      int direction = this.grid.passageDirection(passage);
+      links[this.grid.passageCell(passage) - this.first] |= 1 << direction;
+      links[this.grid.passageNeighbor(passage) - this.first] |= 1 << (direction + 2);
+    }
+    // takes away the leaves that aren't on the top or bottom row until there are none
+    IntStack leaves = new IntStack();
+    for (int c = 0; c < this.cells; c += 1) {
+      if (Integer.bitCount(links[c]) == 1 && !this.isEnd(c)) {
+        leaves.add(c);
+      }
+    }
+    while (!leaves.isEmpty()) {
+      int c = leaves.remove();
+      if (links[c] == 0) {
+        // the other end of the last passage, which went with it
+        continue;
+      }
+      int direction = Integer.numberOfTrailingZeros(links[c]);
+      int next = this.grid.neighbor(this.first + c, direction) - this.first;
+      links[c] = 0;
+      links[next] &= ~(1 << ((direction + 2) & 3));
+      if (Integer.bitCount(links[next]) == 1 && !this.isEnd(next)) {
+        leaves.add(next);
+      }
+    }
+    return links;
+  }
+
+  // Is the given cell of the strip on a row next to another strip?
+  boolean isEnd(int c) {
+    return (this.top > 0 && c < this.grid.width)
+        || (this.bottom < this.grid.height && c >= this.cells - this.grid.width);
+  }
+
+  // EFFECT: adds each path from the given key cell to a key cell after it, as its
+  // heaviest passage
+  void addPaths(byte[] links, int start) {
+    for (int out = 0; out < 4; out += 1) {
+      if ((links[start] & (1 << out)) == 0) {
+        continue;
+      }
+      int c = start;
+      int direction = out;
+      int heaviest = -1;
+      int heaviestWeight = -1;
+      do {
+        int passage = this.grid.passage(this.first + c, direction);
+        int weight = this.kruskal.weights[passage - this.kruskal.offset];
+        // ties go to the later passage, like the order of the last pass
+        if (weight > heaviestWeight || (weight == heaviestWeight && passage > heaviest)) {
+          heaviest = passage;
+          heaviestWeight = weight;
+        }
+        c = this.grid.neighbor(this.first + c, direction) - this.first;
+        // the one way on that isn't back
+        direction = Integer.numberOfTrailingZeros(links[c] & ~(1 << ((direction + 2) & 3)));
+      } while (this.keys[c] < 0);
+      if (start < c) {
+        this.add(heaviest, heaviestWeight, this.first + start, this.first + c);
+      }
+    }
+  }
+
+  // EFFECT: adds a passage joining the given cells for the last pass
+  void add(int passage, int weight, int from, int to) {
+    this.passages[this.count] = passage;
+    this.weights[this.count] = weight;
+    this.from[this.count] = from;
+    this.to[this.count] = to;
+    this.count += 1;
+  }
+
+  // EFFECT: puts the passages for the last pass in passage order
+  void sortByPassage() {
+    long[] sorted = new long[this.count];
+    for (int i = 0; i < this.count; i += 1) {
+      sorted[i] = (long) this.passages[i] << 32 | i;
+    }
+    Arrays.sort(sorted);
+    int[] weights = new int[this.count];
+    int[] from = new int[this.count];
+    int[] to = new int[this.count];
+    for (int i = 0; i < this.count; i += 1) {
+      int was = (int) sorted[i];
+      weights[i] = this.weights[was];
+      from[i] = this.from[was];
+      to[i] = this.to[was];
+      this.passages[i] = (int) (sorted[i] >>> 32);
+    }
+    this.weights = weights;
+    this.from = from;
+    this.to = to;
+  }
+
+  // EFFECT: knocks down the walls of the strip tree except the heaviest passage of every
+  // path the last pass left out, and the passages down to the next strip it kept
+  void open() {
+    BitSet left = new BitSet();
+    for (int i = 0; i < this.count; i += 1) {
+      int passage = this.passages[i];
+      boolean between = this.grid.passageNeighbor(passage) >= this.first + this.cells;
+      if (between && this.kept[this.firstPassage + i]) {
+        this.grid.openPassage(passage);
+      }
+      else if (!between && !this.kept[this.firstPassage + i]) {
+        left.set(passage - this.kruskal.offset);
+      }
+    }
+    for (int i = 0; i < this.kruskal.treeSize; i += 1) {
+      int passage = this.kruskal.tree[i];
+      if (!left.get(passage - this.kruskal.offset)) {
+        this.grid.openPassage(passage);
+      }
+    }
+  }
+}
@@ -0,0 +1,42 @@
+import java.util.BitSet;
+
+// represents Prim's algorithm, which grows one tree from the top left by always
+// knocking down the lightest wall on its edge, kept in a LongHeap
+class PrimGenerator implements MazeGenerator {
+  public String name() {
+    return "prim";
+  }
+
+  public void generate(MazeGrid grid, long seed, int bias) {
+    grid.clear();
+    EdgeWeights weights = new EdgeWeights(seed, bias);
+    BitSet inTree = new BitSet(grid.size());
+    LongHeap frontier = new LongHeap();
+    inTree.set(0);
+    this.addFrontier(grid, weights, inTree, frontier, 0);
+    while (!frontier.isEmpty()) {
+      int passage = (int) frontier.remove();
+      int cell = grid.passageCell(passage);
+      if (inTree.get(cell)) {
+        cell = grid.passageNeighbor(passage);
+      }
+      if (!inTree.get(cell)) {
+        grid.openPassage(passage);
+        inTree.set(cell);
+        this.addFrontier(grid, weights, inTree, frontier, cell);
+      }
+    }
+  }
+
+  // EFFECT: adds the walls between the cell and its neighbors outside the tree to the
+  // frontier, with the weight in the high bits so the lightest comes out first
+  void addFrontier(MazeGrid grid, EdgeWeights weights, BitSet inTree, LongHeap frontier,
+      int cell) {
+    for (int direction = 0; direction < 4; direction += 1) {
+      if (grid.hasNeighbor(cell, direction) && !inTree.get(grid.neighbor(cell, direction))) {
+        int passage = grid.passage(cell, direction);
+        frontier.add(((long) weights.weight(passage) << 32) | passage);
+      }
+    }
+  }
+}
@@ -0,0 +1,213 @@
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.BitSet;
+
+import javalib.worldimages.*;
+
+/* Notes:
+ * - makeScene used to place every grid line, knocked down wall and visited box again
+ *   every frame, so a frame got slower the further the animation went
+ * - The cache paints the maze into one ComputedPixelImage and remembers how much of
+ *   usedPassages (up to currentUsedEdgeIndex), drawnBoxes and the answer it has already
+ *   painted, so a frame only paints what was added since the frame before
+ * - Those only grow until a key press replaces them, so one that is a different
+ *   object, or shorter than what was painted, starts the picture over
+ * - The search cursor, the manual pointer and "YOU WIN!" move around, so makeScene
+ *   still places them on top of the picture every frame
+ * - Once cells are smaller than SMALLEST_CELL pixels (or cellSize is 0) rectangles
+ *   can't show them, so the cache keeps the knocked down walls, visited cells and
+ *   answer as bits instead and a MazeRaster paints the whole picture from them,
+ *   cursor and pointer included
+ */
+
+// represents the picture of a maze's grid, knocked down walls, visited cells and
+// answer, kept from one frame to the next
+class SceneCache {
+  static final int WIDTH = 1000; // the size of the scene
+  static final int HEIGHT = 600;
+  static final int SMALLEST_CELL = 4; // the smallest cellSize drawn with rectangles
+
+  ComputedPixelImage layer; // the picture
+  int[] paintedPassages; // the usedPassages that are painted
+  int edgeCount; // the number of its passages that are painted
+  ArrayList<Vertex> paintedBoxes; // the drawnBoxes that are painted
+  int boxCount; // the number of its Vertices that are painted
+  ArrayList<Vertex> paintedAnswer; // the answer that is painted, or null if it isn't
+  BitSet answerCells; // the cells of the painted answer
+  MazeGrid shownWalls; // the walls that are painted knocked down
+  BitSet visitedCells; // the cells of the painted drawnBoxes
+  MazeRaster raster; // paints the picture if the cells are too small, null if they aren't
+  int newEdges; // the knocked down walls the last update painted
+  int newCells; // the visited and answer cells the last update painted
+
+  SceneCache() {
+    this.layer = new ComputedPixelImage(WIDTH, HEIGHT);
+    this.paintedPassages = null;
+    this.edgeCount = 0;
+    this.paintedBoxes = null;
+    this.boxCount = 0;
+    this.paintedAnswer = null;
+    this.answerCells = new BitSet();
+    this.shownWalls = null;
+    this.visitedCells = new BitSet();
+    this.raster = null;
+    this.newEdges = 0;
+    this.newCells = 0;
+  }
+
+  // returns the picture of the given maze as it is now
+  // EFFECT: paints what changed in the maze since the last update, or paints the
+  // whole picture again if one of its lists was replaced or the answer was hidden
+  ComputedPixelImage update(Maze maze) {
+    maze.ensureUsedPassages();
+    if (maze.usedPassages != this.paintedPassages
+        || maze.currentUsedEdgeIndex < this.edgeCount
+        || maze.drawnBoxes != this.paintedBoxes
+        || maze.drawnBoxes.size() < this.boxCount
+        || (this.paintedAnswer != null
+            && (!maze.showAnswer || maze.answer != this.paintedAnswer))) {
+      this.restart(maze);
+    }
+    int edgesBefore = this.edgeCount;
+    int cellsBefore = this.boxCount;
+
+    // knocks down each wall as it comes
+    while (this.edgeCount < maze.currentUsedEdgeIndex) {
+      int passage = maze.usedPassages[this.edgeCount];
+      this.shownWalls.openPassage(passage);
+      if (this.raster == null) {
+        this.paintPassage(maze, passage);
+      }
+      this.edgeCount += 1;
+    }
+
+    while (this.boxCount < maze.drawnBoxes.size()) {
+      int cell = maze.cellIndex(maze.drawnBoxes.get(this.boxCount));
+      this.visitedCells.set(cell);
+      // the answer stays on top of the visited cells
+      if (this.raster == null && this.paintedAnswer != null && this.answerCells.get(cell)) {
+        this.paintCell(maze, cell, Color.BLUE);
+      }
+      else if (this.raster == null) {
+        this.paintCell(maze, cell, maze.lightBlue);
+      }
+      this.boxCount += 1;
+    }
+
+    this.newEdges = this.edgeCount - edgesBefore;
+    this.newCells = this.boxCount - cellsBefore;
+    if (maze.showAnswer && this.paintedAnswer == null) {
+      for (Vertex v : maze.ensureAnswer()) {
+        int cell = maze.cellIndex(v);
+        this.answerCells.set(cell);
+        if (this.raster == null) {
+          this.paintCell(maze, cell, Color.BLUE);
+        }
+      }
+      this.paintedAnswer = maze.answer;
+      this.newCells += maze.answer.size();
+    }
+
+    if (this.raster != null) {
+      this.raster.render(this.shownWalls, this.visitedCells,
+          this.paintedAnswer == null ? null : this.answerCells, maze.cellIndex(maze.current),
+          maze.manual ? maze.cellIndex(maze.pointer) : -1);
+      this.raster.copyTo(this.layer);
+    }
+    return this.layer;
+  }
+
+  // EFFECT: forgets everything that was painted and starts the picture over, with
+  // rectangles or with the raster depending on how big the cells are
+  void restart(Maze maze) {
+    if (maze.cellSize.x < SMALLEST_CELL || maze.cellSize.y < SMALLEST_CELL) {
+      if (this.raster == null) {
+        this.raster = new MazeRaster(WIDTH, HEIGHT);
+      }
+    }
+    else {
+      this.raster = null;
+      this.paintGrid(maze);
+    }
+    if (this.shownWalls == null || this.shownWalls.width != maze.dimension.x
+        || this.shownWalls.height != maze.dimension.y) {
+      this.shownWalls = new MazeGrid(maze.dimension.x, maze.dimension.y);
+    }
+    else {
+      this.shownWalls.clear();
+    }
+    this.paintedPassages = maze.usedPassages;
+    this.edgeCount = 0;
+    this.paintedBoxes = maze.drawnBoxes;
+    this.boxCount = 0;
+    this.visitedCells.clear();
+    this.paintedAnswer = null;
+    this.answerCells.clear();
+  }
+
+  // EFFECT: makes the next update start the picture over, for when the maze's lists
+  // were emptied and filled again in place instead of being replaced
+  void forget() {
+    this.paintedPassages = null;
+  }
+
+  // EFFECT: paints the gray background, the start and end boxes and every grid line
+  void paintGrid(Maze maze) {
+    Posn cellSize = maze.cellSize;
+    this.place(WIDTH, HEIGHT, WIDTH / 2, HEIGHT / 2, Color.gray);
+    this.place(cellSize.x, cellSize.y, cellSize.x / 2, cellSize.y / 2, Color.green);
+    this.place(cellSize.x, cellSize.y,
+        (maze.dimension.x - 1) * cellSize.x + cellSize.x / 2,
+        (maze.dimension.y - 1) * cellSize.y + cellSize.y / 2, Color.magenta);
+    // the horizontal and vertical lines of the grid
+    for (int y = 0; y <= HEIGHT; y += Math.max(cellSize.y, 1)) {
+      this.place(WIDTH, 2, WIDTH / 2, y, Color.black);
+    }
+    for (int x = 0; x < WIDTH; x += Math.max(cellSize.x, 1)) {
+      this.place(2, HEIGHT, x, HEIGHT / 2, Color.black);
+    }
+
+    // (UNCOMMENT THIS TO START WITH WALLS ALREADY KNOCKED DOWN)
+    // paints over the lines with gray if there's an edge connecting two nodes
+    //    for (int p = 0; p < 2 * maze.grid.size(); p += 1) {
+    //      if (maze.grid.isPassageOpen(p)) {
+    //        this.paintPassage(maze, p);
+    //      }
+    //    }
+  }
+
+  // EFFECT: paints over the wall of the given passage with gray
+  void paintPassage(Maze maze, int passage) {
+    Posn cellSize = maze.cellSize;
+    int x = maze.grid.cellX(maze.grid.passageCell(passage));
+    int y = maze.grid.cellY(maze.grid.passageCell(passage));
+    if (maze.grid.passageDirection(passage) == MazeGrid.EAST) {
+      this.place(2, cellSize.y - 2, (x + 1) * cellSize.x, y * cellSize.y + cellSize.y / 2,
+          Color.gray);
+    }
+    else {
+      this.place(cellSize.x - 2, 2, x * cellSize.x + cellSize.x / 2, (y + 1) * cellSize.y,
+          Color.gray);
+    }
+  }
+
+  // EFFECT: paints the inside of the given cell with the given color
+  void paintCell(Maze maze, int cell, Color color) {
+    Posn cellSize = maze.cellSize;
+    this.place(cellSize.x - 2, cellSize.y - 2,
+        maze.grid.cellX(cell) * cellSize.x + cellSize.x / 2,
+        maze.grid.cellY(cell) * cellSize.y + cellSize.y / 2, color);
+  }
+
+  // EFFECT: paints a width x height rectangle centered on (x, y), like placing a solid
+  // RectangleImage there, leaving out the part that is off the picture
+  void place(int width, int height, int x, int y, Color color) {
+    int left = Math.max(x - width / 2, 0);
+    int top = Math.max(y - height / 2, 0);
+    int right = Math.min(x - width / 2 + width, WIDTH);
+    int bottom = Math.min(y - height / 2 + height, HEIGHT);
+    if (left < right && top < bottom) {
+      this.layer.setPixels(left, top, right - left, bottom - top, color);
+    }
+  }
+}
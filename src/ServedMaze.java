@@ -0,0 +1,34 @@
+// represents a maze made for a request, with its solution
+class ServedMaze {
+  MazeGrid grid;
+  int[] solution; // the cells from the top left to the bottom right
+  TreeIndex index; // made the first time a path is asked for, null until then
+  long cachedBytes; // the bytes a MazeCache counted it as
+
+  // constructor for ServedMaze, generates and solves the maze the request asks for
+  ServedMaze(MazeRequest request) {
+    this.grid = new MazeGrid(request.width, request.height);
+    MazeGenerator.byName(request.generator).generate(this.grid, request.seed, request.bias);
+    this.solution = new GridSolver().solve(this.grid, new IntQueue());
+    this.index = null;
+    this.cachedBytes = 0;
+  }
+
+  // returns about how many bytes of memory the maze takes
+  synchronized long bytes() {
+    long bytes = 64 + 8L * this.grid.passageWords() + 4L * this.solution.length;
+    if (this.index != null) {
+      bytes += 12L * this.grid.size();
+    }
+    return bytes;
+  }
+
+  // returns the TreeIndex of the maze
+  // EFFECT: makes it if it hasn't been made yet
+  synchronized TreeIndex index() {
+    if (this.index == null) {
+      this.index = new TreeIndex(this.grid);
+    }
+    return this.index;
+  }
+}
@@ -0,0 +1,36 @@
+import java.util.SplittableRandom;
+
+// represents the sidewinder algorithm, every row is cut into runs of east passages
+// and every run knocks down the north wall of one of its cells
+class SidewinderGenerator implements MazeGenerator {
+  public String name() {
+    return "sidewinder";
+  }
+
+  public void generate(MazeGrid grid, long seed, int bias) {
+    grid.clear();
+    SplittableRandom random = new SplittableRandom(seed);
+    // the top row can't go north, so it is one long run
+    for (int x = 0; x < grid.width - 1; x += 1) {
+      grid.open(x, MazeGrid.EAST);
+    }
+    long coins = 0;
+    for (int y = 1; y < grid.height; y += 1) {
+      int runStart = 0;
+      for (int x = 0; x < grid.width; x += 1) {
+        int cell = grid.cell(x, y);
+        if ((cell & 63) == 0 || x == 0) {
+          coins = MazeGenerator.flipCoins(random, bias);
+        }
+        if (x < grid.width - 1 && (coins & (1L << cell)) != 0) {
+          grid.open(cell, MazeGrid.EAST);
+        }
+        else {
+          int picked = runStart + random.nextInt(x - runStart + 1);
+          grid.open(grid.cell(picked, y), MazeGrid.NORTH);
+          runStart = x + 1;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,60 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+// represents a sink that writes the passage bits to an OutputStream, in the same
+// order as MazeGrid.passages: bit 2 * cell is east and 2 * cell + 1 is south,
+// packed into bytes from the lowest bit up with no padding between rows
+class StreamRowSink implements IRowSink {
+  OutputStream out;
+  int width;
+  byte[] buffer; // a whole row plus the partial byte left over from the row before
+  int bits; // the number of bits in buffer that have been filled
+
+  StreamRowSink(OutputStream out, int width) {
+    this.out = out;
+    this.width = width;
+    this.buffer = new byte[(2 * width + 7) / 8 + 1];
+    this.bits = 0;
+  }
+
+  // EFFECT: packs the row into the buffer and writes every filled byte
+  public void acceptRow(int y, long[] east, long[] south) {
+    for (int x = 0; x < this.width; x += 1) {
+      if ((east[x >>> 6] & (1L << x)) != 0) {
+        this.buffer[this.bits >>> 3] |= 1 << (this.bits & 7);
+      }
+      if ((south[x >>> 6] & (1L << x)) != 0) {
+        this.buffer[(this.bits + 1) >>> 3] |= 1 << ((this.bits + 1) & 7);
+      }
+      this.bits += 2;
+    }
+    this.write(this.bits >>> 3);
+  }
+
+  // EFFECT: writes the last partial byte and flushes the stream
+  public void finish() {
+    this.write((this.bits + 7) >>> 3);
+    try {
+      this.out.flush();
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // EFFECT: writes the first n bytes of the buffer and moves the partial byte to the front
+  void write(int n) {
+    try {
+      this.out.write(this.buffer, 0, n);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    byte carry = this.bits > n * 8 ? this.buffer[n] : 0;
+    Arrays.fill(this.buffer, (byte) 0);
+    this.buffer[0] = carry;
+    this.bits = Math.max(this.bits - n * 8, 0);
+  }
+}
@@ -0,0 +1,125 @@
+/* Notes:
+ * - A perfect maze is a spanning tree of its cells, so there is exactly one path
+ *   between any two cells, and it goes up from each of them to the deepest cell that
+ *   is an ancestor of both (their lowest common ancestor) when the top left is the root
+ * - The index is built once with a breadth first search from the top left, and keeps
+ *   each cell's parent, depth and one jump pointer, 3 ints a cell
+ * - The jump pointers skip up the tree in sizes like a skew binary number (1, 1, 3, 1,
+ *   1, 3, 7, ...), so finding an ancestor or a common ancestor takes O(log n) jumps
+ *   without the n log n table that binary lifting needs, which for a 4000x4000 maze
+ *   would be hundreds of megabytes
+ * - A cell's jump only depends on its depth, so two cells at the same depth jump to
+ *   the same depth, which is what lets lowestCommonAncestor jump both at once
+ */
+
+// represents the spanning tree of a perfect maze, rooted at the top left cell, for
+// answering path queries between any two cells
+class TreeIndex {
+  int[] parent; // the cell one step closer to the top left, the top left is its own
+  int[] depth; // the number of steps from the top left
+  int[] jump; // an ancestor some steps up, see the notes
+
+  // constructor for TreeIndex, the grid has to be a perfect maze
+  TreeIndex(MazeGrid grid) {
+    int size = grid.size();
+    this.parent = new int[size];
+    this.depth = new int[size];
+    this.jump = new int[size];
+    // the cells in the order they're reached, each one after its parent
+    int[] order = new int[size];
+    int reached = 1;
+    for (int i = 0; i < reached; i += 1) {
+      int cell = order[i];
+      for (int direction = 0; direction < 4; direction += 1) {
+        if (grid.isOpen(cell, direction)) {
+          int neighbor = grid.neighbor(cell, direction);
+          if (neighbor == this.parent[cell] && cell != 0) {
+            continue;
+          }
+          // 0 is only ever reached first, so anything else reaching a reached cell
+          // means there is a second way there
+          if (neighbor == 0 || this.depth[neighbor] != 0) {
+            throw new IllegalArgumentException("The maze has a loop!");
+          }
+          this.parent[neighbor] = cell;
+          this.depth[neighbor] = this.depth[cell] + 1;
+          this.jump[neighbor] = this.jumpFrom(cell);
+          order[reached] = neighbor;
+          reached += 1;
+        }
+      }
+    }
+    if (reached < size) {
+      throw new IllegalArgumentException("The maze isn't connected!");
+    }
+  }
+
+  // returns the jump of a child of the given cell: twice the cell's own jump if its jump
+  // and its jump's jump are the same size, and just the cell otherwise
+  int jumpFrom(int cell) {
+    int up = this.jump[cell];
+    if (this.depth[cell] - this.depth[up] == this.depth[up] - this.depth[this.jump[up]]) {
+      return this.jump[up];
+    }
+    else {
+      return cell;
+    }
+  }
+
+  // returns the ancestor of the cell at the given depth, which can't be deeper than it
+  int ancestor(int cell, int depth) {
+    while (this.depth[cell] > depth) {
+      if (this.depth[this.jump[cell]] >= depth) {
+        cell = this.jump[cell];
+      }
+      else {
+        cell = this.parent[cell];
+      }
+    }
+    return cell;
+  }
+
+  // returns the deepest cell that both paths from the top left to the cells go through
+  int lowestCommonAncestor(int from, int to) {
+    if (this.depth[from] > this.depth[to]) {
+      from = this.ancestor(from, this.depth[to]);
+    }
+    else {
+      to = this.ancestor(to, this.depth[from]);
+    }
+    while (from != to) {
+      if (this.jump[from] != this.jump[to]) {
+        from = this.jump[from];
+        to = this.jump[to];
+      }
+      else {
+        from = this.parent[from];
+        to = this.parent[to];
+      }
+    }
+    return from;
+  }
+
+  // returns the number of steps on the path between the two cells
+  int distance(int from, int to) {
+    int common = this.lowestCommonAncestor(from, to);
+    return this.depth[from] + this.depth[to] - 2 * this.depth[common];
+  }
+
+  // returns the cells on the path from one cell to the other, both included
+  int[] path(int from, int to) {
+    int common = this.lowestCommonAncestor(from, to);
+    int up = this.depth[from] - this.depth[common];
+    int[] path = new int[up + this.depth[to] - this.depth[common] + 1];
+    // up from the first cell, then down to the second cell filled in from the end
+    for (int i = 0; i <= up; i += 1) {
+      path[i] = from;
+      from = this.parent[from];
+    }
+    for (int i = path.length - 1; i > up; i -= 1) {
+      path[i] = to;
+      to = this.parent[to];
+    }
+    return path;
+  }
+}
@@ -0,0 +1,54 @@
+import java.util.Arrays;
+
+// represents the disjoint sets of cells used by kruskals, where every cell is
+// an index into the parent array instead of a Vertex in a HashMap
+class UnionFind {
+  int[] parent; // the parent of each cell, a representative is its own parent
+  byte[] rank; // an upper bound on the height of the tree under each representative
+
+  // constructor for UnionFind, every cell starts out as its own representative
+  UnionFind(int size) {
+    this.parent = new int[size];
+    this.rank = new byte[size];
+    this.reset();
+  }
+
+  // EFFECT: makes every cell its own representative again
+  void reset() {
+    for (int i = 0; i < this.parent.length; i += 1) {
+      this.parent[i] = i;
+    }
+    Arrays.fill(this.rank, (byte) 0);
+  }
+
+  // returns the representative of the given cell
+  // EFFECT: points every other cell on the way up at its grandparent (path halving)
+  int find(int cell) {
+    while (this.parent[cell] != cell) {
+      this.parent[cell] = this.parent[this.parent[cell]];
+      cell = this.parent[cell];
+    }
+    return cell;
+  }
+
+  // returns whether the two cells were in different sets before this call
+  // EFFECT: joins the sets of the two cells, putting the shorter tree under the taller one
+  boolean union(int cell1, int cell2) {
+    int rep1 = this.find(cell1);
+    int rep2 = this.find(cell2);
+    if (rep1 == rep2) {
+      return false;
+    }
+    if (this.rank[rep1] < this.rank[rep2]) {
+      this.parent[rep1] = rep2;
+    }
+    else if (this.rank[rep1] > this.rank[rep2]) {
+      this.parent[rep2] = rep1;
+    }
+    else {
+      this.parent[rep2] = rep1;
+      this.rank[rep1] += 1;
+    }
+    return true;
+  }
+}
@@ -0,0 +1,33 @@
+import java.awt.Color;
+
+import javalib.worldimages.*;
+
+// represents each Square of the board
+class Vertex {
+  Posn posn;
+  Color color;
+
+  // constructor for Vertex
+  Vertex(Posn posn, Color color) {
+    this.posn = posn;
+    this.color = color;
+  }
+
+  // constructor for Vertex, the view of the given cell of the grid, made when it's
+  // needed instead of kept for every cell: the top left is green, the bottom right
+  // magenta and the rest gray
+  Vertex(MazeGrid grid, int cell) {
+    this(new Posn(grid.cellX(cell), grid.cellY(cell)),
+        cell == 0 ? Color.green : cell == grid.size() - 1 ? Color.magenta : Color.gray);
+  }
+
+  // EFFECT: changes the Vertex's color
+  void changeColor(Color color) {
+    this.color = color;
+  }
+
+  // draws the cell
+  WorldImage drawVertex(Posn cellSize) {
+    return new RectangleImage(cellSize.x, cellSize.y, "solid", this.color);
+  }
+}
@@ -0,0 +1,43 @@
+import java.util.BitSet;
+import java.util.SplittableRandom;
+
+// represents Wilson's algorithm, which adds loop-erased random walks to the tree
+// until every cell is in it, so with NO_BIAS every spanning tree is equally likely (a
+// bias weights the walk's directions, so the trees aren't uniform then)
+class WilsonGenerator implements MazeGenerator {
+  public String name() {
+    return "wilson";
+  }
+
+  public void generate(MazeGrid grid, long seed, int bias) {
+    grid.clear();
+    SplittableRandom random = new SplittableRandom(seed);
+    BitSet inTree = new BitSet(grid.size());
+    byte[] exit = new byte[grid.size()]; // the last way the walk left each cell
+    int[] options = new int[4];
+    inTree.set(0);
+    for (int start = 1; start < grid.size(); start += 1) {
+      // walks until it hits the tree, a loop is erased by leaving its cell another way
+      int cell = start;
+      while (!inTree.get(cell)) {
+        int count = 0;
+        for (int direction = 0; direction < 4; direction += 1) {
+          if (grid.hasNeighbor(cell, direction)) {
+            options[count] = direction;
+            count += 1;
+          }
+        }
+        int direction = MazeGenerator.pickDirection(random, options, count, bias);
+        exit[cell] = (byte) direction;
+        cell = grid.neighbor(cell, direction);
+      }
+      // follows the last exits from the start, which is the walk without its loops
+      cell = start;
+      while (!inTree.get(cell)) {
+        inTree.set(cell);
+        grid.open(cell, exit[cell]);
+        cell = grid.neighbor(cell, exit[cell]);
+      }
+    }
+  }
+}